@@ -0,0 +1,91 @@
+package com.TopScoreRanking.benchmark;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.hateoas.EntityModel;
+
+import com.TopScoreRanking.assembler.RankingLinks;
+import com.TopScoreRanking.assembler.RankingModelAssembler;
+import com.TopScoreRanking.assembler.RankingModelByIdAssembler;
+import com.TopScoreRanking.controller.RankingController;
+import com.TopScoreRanking.controller.RankingRecordController;
+import com.TopScoreRanking.entities.Ranking;
+
+/**
+ * HATEOAS assembler cost by itself (no database, no web request)
+ * 
+ * @author Marc Mendez
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssemblerBenchmark {
+
+	private final RankingLinks links = new RankingLinks();
+	private final RankingModelAssembler assembler = new RankingModelAssembler(links);
+	private final RankingModelByIdAssembler assemblerid = new RankingModelByIdAssembler(links);
+
+	private Ranking rank;
+
+	/**
+	 * Builds the record to wrap
+	 */
+	@Setup
+	public void setUp() {
+		rank = new Ranking("player1", 100, LocalDateTime.of(2020, 12, 11, 17, 46, 30));
+		rank.setId(1L);
+	}
+
+	/**
+	 * Baseline : wrapping without links
+	 * 
+	 * @return EntityModel<Ranking>
+	 */
+	@Benchmark
+	public EntityModel<Ranking> entityModelOnly() {
+		return EntityModel.of(rank);
+	}
+
+	/**
+	 * Same links as rankingModel, built through the controller proxy for each call
+	 * 
+	 * @return EntityModel<Ranking>
+	 */
+	@Benchmark
+	public EntityModel<Ranking> linkBuilderModel() {
+		return EntityModel.of(rank,
+				linkTo(methodOn(RankingRecordController.class).getHistory(rank.getPlayer())).withSelfRel(),
+				linkTo(methodOn(RankingRecordController.class).searchById(rank.getId())).withRel("record"),
+				linkTo(methodOn(RankingController.class).all(null, null)).withRel("all"));
+	}
+
+	/**
+	 * Links of a record searched by player (self, record, all)
+	 * 
+	 * @return EntityModel<Ranking>
+	 */
+	@Benchmark
+	public EntityModel<Ranking> rankingModel() {
+		return assembler.toModel(rank);
+	}
+
+	/**
+	 * Links of a record searched by ID
+	 * 
+	 * @return EntityModel<Ranking>
+	 */
+	@Benchmark
+	public EntityModel<Ranking> rankingModelById() {
+		return assemblerid.toModel(rank);
+	}
+}
@@ -0,0 +1,90 @@
+package com.TopScoreRanking.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.TopScoreRanking.TopScoreRankingApplication;
+import com.TopScoreRanking.service.PlayerDictionary;
+import com.TopScoreRanking.service.RankingService;
+
+/**
+ * Starts the application (without web server) on a seeded H2 database for the
+ * benchmarks
+ * 
+ * @author Marc Mendez
+ */
+final class BenchmarkDatabase {
+
+	// Rows inserted per statement while seeding
+	private static final int SEED_CHUNK = 1_000_000;
+
+	// Average number of records per player
+	private static final int RECORDS_PER_PLAYER = 100;
+
+	private BenchmarkDatabase() {
+	}
+
+	/**
+	 * Starts the application context and seeds the Ranking table
+	 * 
+	 * @param rows - Integer : Number of ranking records to insert
+	 * @return ConfigurableApplicationContext - Started context, to be closed by the caller
+	 */
+	static ConfigurableApplicationContext start(int rows) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(TopScoreRankingApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("spring.datasource.url=jdbc:h2:mem:benchmark" + rows + ";DB_CLOSE_DELAY=-1",
+						"spring.main.banner-mode=off", "logging.level.root=WARN",
+						"ranking.metrics.sample-rate=0")
+				.run();
+
+		seed(context.getBean(JdbcTemplate.class), rows);
+
+		// Load the player dictionary, the in-memory indexes and player statistics from the seeded tables
+		context.getBean(PlayerDictionary.class).load();
+		context.getBean(RankingService.class).rebuildIndexes();
+
+		return context;
+	}
+
+	/**
+	 * Number of distinct players for the given table size
+	 * 
+	 * @param rows - Integer : Number of ranking records
+	 * @return int
+	 */
+	static int players(int rows) {
+		return Math.max(10, rows / RECORDS_PER_PLAYER);
+	}
+
+	/**
+	 * Name of the i-th seeded player
+	 * 
+	 * @param index - Integer
+	 * @return String
+	 */
+	static String player(int index) {
+		return "player" + index;
+	}
+
+	// Inserts rows in chunks with H2's SYSTEM_RANGE, one record per second from 2020-01-01
+	private static void seed(JdbcTemplate jdbc, int rows) {
+		int players = players(rows);
+		// Player i has ID i + 1
+		jdbc.update("INSERT INTO player (id, player_key, name) "
+				+ "SELECT X + 1, CONCAT('PLAYER', X), CONCAT('player', X) FROM SYSTEM_RANGE(0, ?)", players - 1);
+		for (long from = 1; from <= rows; from += SEED_CHUNK) {
+			long to = Math.min(rows, from + SEED_CHUNK - 1);
+			jdbc.update("INSERT INTO ranking (id, player, player_id, score, time) "
+					+ "SELECT X, CONCAT('player', MOD(X, ?)), MOD(X, ?) + 1, "
+					+ "1 + MOD(X * 7919, 100000), DATEADD('SECOND', X, TIMESTAMP '2020-01-01 00:00:00') "
+					+ "FROM SYSTEM_RANGE(?, ?)", players, players, from, to);
+		}
+
+		// Keep generated IDs clear of the seeded ones (pooled allocation of 50)
+		jdbc.execute("ALTER SEQUENCE ranking_seq RESTART WITH " + (rows + 100));
+		jdbc.execute("ALTER SEQUENCE player_seq RESTART WITH " + (players + 100));
+	}
+}
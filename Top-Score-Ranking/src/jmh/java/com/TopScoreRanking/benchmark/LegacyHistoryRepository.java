@@ -0,0 +1,98 @@
+package com.TopScoreRanking.benchmark;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.exceptions.HistoryNotFoundException;
+import com.TopScoreRanking.projections.RankingHistoryListInterface;
+
+/**
+ * Player history read with four queries (average, top scores, low scores and
+ * every score), as done before the history was aggregated from a single query.
+ * Kept for the benchmarks only: the queries by name are the original ones, the
+ * queries by player ID run the same four passes on the player ID index.
+ *
+ * @author Marc Mendez
+ */
+public interface LegacyHistoryRepository extends Repository<Ranking, Long> {
+
+	// select player name and average score
+	@Query("SELECT rk.player as player, ROUND(avg(rk.score), 2) as avgScore FROM Ranking rk WHERE UPPER(rk.player) = UPPER(:player) Group by rk.player ")
+	PlayerAverage findAvgByPlayer(@Param(value = "player") String player);
+
+	// select player top score list
+	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE UPPER(rk.player) = UPPER(:player) AND rk.score = (SELECT max(rkmx.score) FROM Ranking rkmx WHERE UPPER(rkmx.player) = UPPER(:player)) ")
+	List<RankingHistoryListInterface> findMaxScoreListByPlayer(@Param(value = "player") String player);
+
+	// select player low score list
+	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE UPPER(rk.player) = UPPER(:player) AND rk.score = (SELECT min(rkmn.score) FROM Ranking rkmn WHERE UPPER(rkmn.player) = UPPER(:player)) ")
+	List<RankingHistoryListInterface> findMinScoreListByPlayer(@Param(value = "player") String player);
+
+	// select player all score list
+	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE UPPER(rk.player) = UPPER(:player) ")
+	List<RankingHistoryListInterface> findAllScoreListByPlayer(@Param(value = "player") String player);
+
+	// select player name and average score by player ID
+	@Query("SELECT MIN(rk.player) as player, ROUND(avg(rk.score), 2) as avgScore FROM Ranking rk WHERE rk.playerId = :playerId ")
+	PlayerAverage findAvgByPlayerId(@Param(value = "playerId") Integer playerId);
+
+	// select player top score list by player ID
+	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE rk.playerId = :playerId AND rk.score = (SELECT max(rkmx.score) FROM Ranking rkmx WHERE rkmx.playerId = :playerId) ")
+	List<RankingHistoryListInterface> findMaxScoreListByPlayerId(@Param(value = "playerId") Integer playerId);
+
+	// select player low score list by player ID
+	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE rk.playerId = :playerId AND rk.score = (SELECT min(rkmn.score) FROM Ranking rkmn WHERE rkmn.playerId = :playerId) ")
+	List<RankingHistoryListInterface> findMinScoreListByPlayerId(@Param(value = "playerId") Integer playerId);
+
+	// select player all score list by player ID
+	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE rk.playerId = :playerId ")
+	List<RankingHistoryListInterface> findAllScoreListByPlayerId(@Param(value = "playerId") Integer playerId);
+
+	/***
+	 * Search player's history with the original four queries on the player name
+	 *
+	 * @param player - String : Player name
+	 * @return RankingHistory - Returns player's history searched by player
+	 */
+	default RankingHistory getPlayerScoreHistory(String player) {
+		return toHistory(player, findAvgByPlayer(player), findMaxScoreListByPlayer(player),
+				findMinScoreListByPlayer(player), findAllScoreListByPlayer(player));
+	}
+
+	/***
+	 * Search player's history with the four queries on the player ID
+	 *
+	 * @param player   - String : Player name
+	 * @param playerId - Integer : Player ID
+	 * @return RankingHistory - Returns player's history searched by player ID
+	 */
+	default RankingHistory getPlayerScoreHistory(String player, Integer playerId) {
+		return toHistory(player, findAvgByPlayerId(playerId), findMaxScoreListByPlayerId(playerId),
+				findMinScoreListByPlayerId(playerId), findAllScoreListByPlayerId(playerId));
+	}
+
+	// Throws exception when no results returned, aggregates the results otherwise
+	default RankingHistory toHistory(String player, PlayerAverage playerAndAvgScore,
+			List<RankingHistoryListInterface> topScoreList, List<RankingHistoryListInterface> lowScoreList,
+			List<RankingHistoryListInterface> allScoreList) {
+		if (topScoreList.isEmpty() || lowScoreList.isEmpty() || allScoreList.isEmpty()) {
+			throw new HistoryNotFoundException(player);
+		}
+		return new RankingHistory(playerAndAvgScore.getPlayer(), topScoreList, lowScoreList,
+				playerAndAvgScore.getAvgScore(), allScoreList);
+	}
+
+	/**
+	 * Interface-based projection for the player name and average score
+	 */
+	interface PlayerAverage {
+		String getPlayer();
+
+		double getAvgScore();
+	}
+}
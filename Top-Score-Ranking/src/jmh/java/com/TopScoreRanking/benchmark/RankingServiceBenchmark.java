@@ -0,0 +1,217 @@
+package com.TopScoreRanking.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.EntityModel;
+
+import com.TopScoreRanking.assembler.RankingRepresentation;
+import com.TopScoreRanking.cache.BoundedCache;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingBatchResult;
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.service.PlayerDictionary;
+import com.TopScoreRanking.service.RankingHistoryService;
+import com.TopScoreRanking.service.RankingService;
+
+/**
+ * RankingService and RankingHistoryService hot paths against a seeded H2
+ * database (repository, service and HAL representation cost together)
+ * 
+ * @author Marc Mendez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RankingServiceBenchmark {
+
+	// Records per saveRankings call
+	private static final int BATCH = 100;
+
+	@Param({ "10000", "1000000", "10000000" })
+	private int rows;
+
+	private ConfigurableApplicationContext context;
+	private RankingService rankService;
+	private RankingHistoryService historyService;
+	private RankingRepresentation representation;
+	private BoundedCache<String, RankingHistory> historyCache;
+	private LegacyHistoryRepository legacyHistory;
+	private PlayerDictionary dictionary;
+
+	private int players;
+	private LocalDateTime onafter;
+	private LocalDateTime onbefore;
+
+	/**
+	 * Starts the application on a database seeded with the given number of rows
+	 */
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		context = BenchmarkDatabase.start(rows);
+		rankService = context.getBean(RankingService.class);
+		historyService = context.getBean(RankingHistoryService.class);
+		representation = context.getBean(RankingRepresentation.class);
+		historyCache = context.getBean("rankingHistoryCache", BoundedCache.class);
+		legacyHistory = context.getBean(LegacyHistoryRepository.class);
+		dictionary = context.getBean(PlayerDictionary.class);
+		players = BenchmarkDatabase.players(rows);
+
+		// Middle half of the seeded time range
+		LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+		onafter = start.plusSeconds(rows / 4);
+		onbefore = start.plusSeconds(rows / 4 * 3);
+	}
+
+	/**
+	 * Closes the application context
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Register a single record (the table grows by one row per call)
+	 * 
+	 * @return EntityModel<Ranking>
+	 */
+	@Benchmark
+	public EntityModel<Ranking> saveRanking() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return rankService.saveRanking(new Ranking(BenchmarkDatabase.player(random.nextInt(players)),
+				random.nextInt(1, 100000), LocalDateTime.now()));
+	}
+
+	/**
+	 * Register a batch of records in one group commit (time per record)
+	 * 
+	 * @return List<RankingBatchResult>
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public List<RankingBatchResult> saveRankings() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		List<Ranking> batch = new ArrayList<Ranking>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			batch.add(new Ranking(BenchmarkDatabase.player(random.nextInt(players)), random.nextInt(1, 100000),
+					LocalDateTime.now()));
+		}
+		return rankService.saveRankings(batch);
+	}
+
+	/**
+	 * First page of two players' scores
+	 * 
+	 * @return Object - CollectionModel<EntityModel<Ranking>>
+	 */
+	@Benchmark
+	public Object filterByPlayers() {
+		return representation.list(rankService.filterByPlayers(randomPlayers(), 0, 10), false);
+	}
+
+	/**
+	 * First page of two players' scores within a time range
+	 * 
+	 * @return Object - CollectionModel<EntityModel<Ranking>>
+	 */
+	@Benchmark
+	public Object filterByPlayersAndDate() {
+		return representation.list(rankService.filterByPlayersAndDate(randomPlayers(), 0, 10, onbefore, onafter), false);
+	}
+
+	/**
+	 * Top score, low score and average of one player, served from the history
+	 * cache once the player was read
+	 * 
+	 * @return Object - EntityModel<RankingHistory>
+	 */
+	@Benchmark
+	public Object getPlayerScoreHistory() {
+		RankingHistory history = historyService
+				.getPlayerScoreHistory(BenchmarkDatabase.player(ThreadLocalRandom.current().nextInt(players)));
+		return representation.history(history, false);
+	}
+
+	/**
+	 * Top score, low score and average of one player, read from the database (the
+	 * player's cached history is evicted first)
+	 * 
+	 * @return Object - EntityModel<RankingHistory>
+	 */
+	@Benchmark
+	public Object getPlayerScoreHistoryUncached() {
+		String player = BenchmarkDatabase.player(ThreadLocalRandom.current().nextInt(players));
+		historyCache.invalidate(Ranking.toPlayerKey(player));
+		return representation.history(historyService.getPlayerScoreHistory(player), false);
+	}
+
+	/**
+	 * Player's history read with the four queries used before the single query
+	 * pass, by upper-cased name (no cache, compare with
+	 * getPlayerScoreHistoryUncached)
+	 * 
+	 * @return Object - EntityModel<RankingHistory>
+	 */
+	@Benchmark
+	public Object getPlayerScoreHistoryLegacy() {
+		String player = BenchmarkDatabase.player(ThreadLocalRandom.current().nextInt(players));
+		return representation.history(legacyHistory.getPlayerScoreHistory(player), false);
+	}
+
+	/**
+	 * Player's history read with the same four queries on the player ID index,
+	 * the difference with getPlayerScoreHistoryUncached is the number of passes
+	 * 
+	 * @return Object - EntityModel<RankingHistory>
+	 */
+	@Benchmark
+	public Object getPlayerScoreHistoryLegacyById() {
+		String player = BenchmarkDatabase.player(ThreadLocalRandom.current().nextInt(players));
+		return representation.history(legacyHistory.getPlayerScoreHistory(player, dictionary.idOf(player)), false);
+	}
+
+	/**
+	 * First page of the whole table (keyset pagination)
+	 * 
+	 * @return Object - CollectionModel<EntityModel<Ranking>>
+	 */
+	@Benchmark
+	public Object getAll() {
+		return representation.list(rankService.getAll(null, null), false);
+	}
+
+	/**
+	 * Page of the whole table after a random seeded ID, the keyset seek costs the
+	 * same at any depth
+	 * 
+	 * @return Object - CollectionModel<EntityModel<Ranking>>
+	 */
+	@Benchmark
+	public Object getAllPage() {
+		return representation.list(rankService.getAll((long) ThreadLocalRandom.current().nextInt(rows), null), false);
+	}
+
+	// Two distinct seeded players
+	private List<String> randomPlayers() {
+		int first = ThreadLocalRandom.current().nextInt(players);
+		return Arrays.asList(BenchmarkDatabase.player(first), BenchmarkDatabase.player((first + 1) % players));
+	}
+}
@@ -0,0 +1,85 @@
+package com.TopScoreRanking.assembler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Link built once from a sample URI whose variable parts are placeholder
+ * values. Expanding only concatenates the literal parts with the given values.
+ * 
+ * @author Marc Mendez
+ */
+final class LinkTemplate {
+
+	// Literal parts, one more than the number of variables
+	private final String[] literals;
+
+	// Sizes of the literal parts, used to presize the expanded link
+	private final int length;
+
+	private LinkTemplate(String[] literals) {
+		this.literals = literals;
+		int length = 0;
+		for (String literal : literals) {
+			length += literal.length();
+		}
+		this.length = length;
+	}
+
+	/**
+	 * Splits a sample URI around its placeholder values
+	 * 
+	 * @param sample       - String : URI built with the placeholder values
+	 * @param placeholders - String... : Placeholder values, in the order they appear in the URI
+	 * @return LinkTemplate
+	 */
+	static LinkTemplate of(String sample, String... placeholders) {
+		List<String> literals = new ArrayList<String>(placeholders.length + 1);
+		int from = 0;
+		for (String placeholder : placeholders) {
+			int at = sample.indexOf(placeholder, from);
+			if (at < 0) {
+				throw new IllegalStateException("Placeholder " + placeholder + " not found in link " + sample);
+			}
+			literals.add(sample.substring(from, at));
+			from = at + placeholder.length();
+		}
+		literals.add(sample.substring(from));
+		return new LinkTemplate(literals.toArray(new String[0]));
+	}
+
+	/**
+	 * Link with the given values in place of the placeholders
+	 * 
+	 * @param prefix - String : Base URI
+	 * @param values - String... : Encoded values, in placeholder order
+	 * @return String
+	 */
+	String expand(String prefix, String... values) {
+		int size = prefix.length() + length;
+		for (String value : values) {
+			size += value.length();
+		}
+
+		StringBuilder link = new StringBuilder(size).append(prefix).append(literals[0]);
+		for (int i = 0; i < values.length; i++) {
+			link.append(values[i]).append(literals[i + 1]);
+		}
+		return link.toString();
+	}
+
+	/**
+	 * Link with the given names in place of the placeholders (e.g. {id})
+	 * 
+	 * @param prefix - String : Base URI
+	 * @param names  - String... : Variable names, in placeholder order
+	 * @return String
+	 */
+	String template(String prefix, String... names) {
+		String[] variables = new String[names.length];
+		for (int i = 0; i < names.length; i++) {
+			variables[i] = "{" + names[i] + "}";
+		}
+		return expand(prefix, variables);
+	}
+}
@@ -0,0 +1,35 @@
+package com.TopScoreRanking.assembler;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.controller.RankingController;
+import com.TopScoreRanking.controller.RankingRecordController;
+import com.TopScoreRanking.entities.PlayerRank;
+
+/**
+ * Assembler for PlayerRank RESTful output
+ * 
+ * @author Marc Mendez
+ */
+@Component
+public class PlayerRankModelAssembler implements RepresentationModelAssembler<PlayerRank, EntityModel<PlayerRank>> {
+
+	/**
+	 * Assembler for player's global position
+	 * 
+	 * @param playerRank - PlayerRank
+	 * @return EntityModel<PlayerRank>
+	 */
+	@Override
+	public EntityModel<PlayerRank> toModel(PlayerRank playerRank) {
+
+		return EntityModel.of(playerRank, 
+				linkTo(methodOn(RankingController.class).getRank(playerRank.getPlayer())).withSelfRel(),
+				linkTo(methodOn(RankingRecordController.class).getHistory(playerRank.getPlayer())).withRel("history"),
+				linkTo(methodOn(RankingController.class).top(10)).withRel("top"));
+	}
+}
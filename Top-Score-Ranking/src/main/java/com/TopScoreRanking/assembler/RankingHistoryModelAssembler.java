@@ -1,14 +1,12 @@
 package com.TopScoreRanking.assembler;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
-
 import java.util.Arrays;
 
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
-import com.TopScoreRanking.controller.RankingController;
 import com.TopScoreRanking.entities.RankingHistory;
 
 /**
@@ -20,6 +18,17 @@ import com.TopScoreRanking.entities.RankingHistory;
 public class RankingHistoryModelAssembler
 		implements RepresentationModelAssembler<RankingHistory, EntityModel<RankingHistory>> {
 
+	private final RankingLinks links;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param links - RankingLinks : Precomputed link templates
+	 */
+	public RankingHistoryModelAssembler(RankingLinks links) {
+		this.links = links;
+	}
+
 	/**
 	 * Assembler for player history
 	 * 
@@ -30,9 +39,8 @@ public class RankingHistoryModelAssembler
 	public EntityModel<RankingHistory> toModel(RankingHistory rankHistory) {
 
 		return EntityModel.of(rankHistory, 
-				linkTo(methodOn(RankingController.class).getHistory(rankHistory.getPlayer())).withSelfRel(),
-				linkTo(methodOn(RankingController.class).searchByPlayers(Arrays.asList(rankHistory.getPlayer()), 0, 3))
-						.withSelfRel(),
-				linkTo(methodOn(RankingController.class).all()).withRel("all"));
+				Link.of(links.history(rankHistory.getPlayer())).withSelfRel(),
+				Link.of(links.searchList(Arrays.asList(rankHistory.getPlayer()), 0, 3)).withSelfRel(),
+				Link.of(links.all()).withRel("all"));
 	}
 }
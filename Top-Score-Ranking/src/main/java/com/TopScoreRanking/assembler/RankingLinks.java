@@ -0,0 +1,307 @@
+package com.TopScoreRanking.assembler;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.util.UriUtils;
+
+import com.TopScoreRanking.controller.RankingController;
+import com.TopScoreRanking.controller.RankingRecordController;
+
+/**
+ * Ranking link templates, built once on startup from the controller mappings
+ * and expanded by string concatenation. Only the base URI of the current
+ * request is resolved, once per request. Work handed off to another thread
+ * gets the base URI resolved beforehand (see withPrefix), it cannot read the
+ * request.
+ * 
+ * @author Marc Mendez
+ */
+@Component
+public class RankingLinks {
+
+	// Placeholder values, replaced by the actual values when expanding
+	private static final Long ID = Long.MIN_VALUE;
+	private static final String PLAYER = "__player__";
+	private static final String PLAYER_FIRST = "__player0__";
+	private static final String PLAYER_SECOND = "__player1__";
+	private static final String PLAYERS = "__players__";
+	private static final int PAGE = Integer.MAX_VALUE;
+	private static final int SIZE = Integer.MAX_VALUE - 1;
+	private static final LocalDateTime ONBEFORE = LocalDateTime.of(1901, 2, 3, 4, 5, 6);
+	private static final LocalDateTime ONAFTER = LocalDateTime.of(1902, 3, 4, 5, 6, 7);
+
+	// Date format of the onbefore and onafter request parameters
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+	// Request attribute holding the base URI of the current request
+	private static final String PREFIX_ATTRIBUTE = RankingLinks.class.getName() + ".prefix";
+
+	// Base URI given to work running off the request thread
+	private static final ThreadLocal<String> HANDED_OFF_PREFIX = new ThreadLocal<String>();
+
+	private final LinkTemplate record;
+	private final LinkTemplate history;
+	private final String allPath;
+	private final LinkTemplate allPage;
+
+	// Separator between the values of the player list parameter
+	private final String playerSeparator;
+	private final LinkTemplate searchList;
+
+	// Date filtered search list, by filter presence (none, onafter, onbefore, both)
+	private final LinkTemplate[] timeSearchList = new LinkTemplate[4];
+
+	/**
+	 * Constructor. Builds the templates from the controller mappings.
+	 */
+	public RankingLinks() {
+		this.record = LinkTemplate.of(path(linkTo(methodOn(RankingRecordController.class).searchById(ID))),
+				String.valueOf(ID));
+		this.history = LinkTemplate.of(path(linkTo(methodOn(RankingRecordController.class).getHistory(PLAYER))), PLAYER);
+		// Optional parameters render as template variables, left out of the plain link
+		String all = path(linkTo(methodOn(RankingController.class).all(null, null)));
+		this.allPath = all.contains("{") ? all.substring(0, all.indexOf('{')) : all;
+		this.allPage = LinkTemplate.of(path(linkTo(methodOn(RankingController.class).all(ID, SIZE))),
+				String.valueOf(ID), String.valueOf(SIZE));
+
+		List<String> players = Arrays.asList(PLAYER_FIRST, PLAYER_SECOND);
+		String sample = path(linkTo(methodOn(RankingRecordController.class).searchByPlayers(players, PAGE, SIZE)));
+		this.playerSeparator = sample.substring(sample.indexOf(PLAYER_FIRST) + PLAYER_FIRST.length(),
+				sample.indexOf(PLAYER_SECOND));
+		this.searchList = playersTemplate(sample);
+
+		for (int filter = 0; filter < timeSearchList.length; filter++) {
+			LocalDateTime onbefore = (filter & 2) == 0 ? null : ONBEFORE;
+			LocalDateTime onafter = (filter & 1) == 0 ? null : ONAFTER;
+			timeSearchList[filter] = playersTemplate(path(linkTo(
+					methodOn(RankingRecordController.class).searchByPlayers(players, PAGE, SIZE, onbefore, onafter))));
+		}
+	}
+
+	/**
+	 * Base URI of the current request (scheme, host, port and context path)
+	 * 
+	 * @return String - Base URI without trailing slash
+	 */
+	public String prefix() {
+		String handedOff = HANDED_OFF_PREFIX.get();
+		if (handedOff != null) {
+			return handedOff;
+		}
+
+		RequestAttributes request = RequestContextHolder.getRequestAttributes();
+		if (request == null) {
+			return resolvePrefix();
+		}
+
+		// Resolved once per request
+		String prefix = (String) request.getAttribute(PREFIX_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (prefix == null) {
+			prefix = resolvePrefix();
+			request.setAttribute(PREFIX_ATTRIBUTE, prefix, RequestAttributes.SCOPE_REQUEST);
+		}
+		return prefix;
+	}
+
+	/**
+	 * Runs work off the request thread with the given base URI, resolved by
+	 * prefix() on the request thread before the hand-off
+	 * 
+	 * @param prefix - String : Base URI of the request
+	 * @param work   - Supplier<T> : Work building links
+	 * @return T - Result of the work
+	 */
+	public <T> T withPrefix(String prefix, Supplier<T> work) {
+		String previous = HANDED_OFF_PREFIX.get();
+		HANDED_OFF_PREFIX.set(prefix);
+		try {
+			return work.get();
+		} finally {
+			if (previous == null) {
+				HANDED_OFF_PREFIX.remove();
+			} else {
+				HANDED_OFF_PREFIX.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Link built by the link builder, with the base URI of prefix() (the link
+	 * builder only sees the request on the request thread)
+	 * 
+	 * @param link - WebMvcLinkBuilder : Link to a controller method
+	 * @return String
+	 */
+	public String href(WebMvcLinkBuilder link) {
+		String href = link.withSelfRel().getHref();
+		return href.startsWith("/") ? prefix() + href : href;
+	}
+
+	/**
+	 * Collection-level URI templates of a ranking list
+	 * 
+	 * @return Map<String, String> - record ({id}), history ({player}) and all
+	 */
+	public Map<String, String> templates() {
+		String prefix = prefix();
+
+		Map<String, String> links = new LinkedHashMap<String, String>();
+		links.put("record", record.template(prefix, "id"));
+		links.put("history", history.template(prefix, "player"));
+		links.put("all", prefix + allPath);
+		return links;
+	}
+
+	/**
+	 * Link of RankingController.searchById
+	 * 
+	 * @param id - Long : Unique ranking ID
+	 * @return String
+	 */
+	public String record(Long id) {
+		if (id == null) {
+			return href(linkTo(methodOn(RankingRecordController.class).searchById(id)));
+		}
+		return record.expand(prefix(), String.valueOf(id));
+	}
+
+	/**
+	 * Link of RankingController.getHistory
+	 * 
+	 * @param player - String : Player's name
+	 * @return String
+	 */
+	public String history(String player) {
+		if (player == null) {
+			return href(linkTo(methodOn(RankingRecordController.class).getHistory(player)));
+		}
+		return history.expand(prefix(), encode(player));
+	}
+
+	/**
+	 * Link of RankingController.all
+	 * 
+	 * @return String
+	 */
+	public String all() {
+		return prefix() + allPath;
+	}
+
+	/**
+	 * Link of RankingController.all (with keyset pagination)
+	 * 
+	 * @param after - Long : ID of the last record of the previous page (null for the first page)
+	 * @param size  - Integer : Page size
+	 * @return String
+	 */
+	public String all(Long after, int size) {
+		if (after == null) {
+			return href(linkTo(methodOn(RankingController.class).all(after, size)));
+		}
+		return allPage.expand(prefix(), String.valueOf(after), String.valueOf(size));
+	}
+
+	/**
+	 * Link of RankingController.searchByPlayers (with Pagination)
+	 * 
+	 * @param player - List<String> : List of players to search
+	 * @param page   - Integer : Page no. (Zero base)
+	 * @param size   - Integer : Page size
+	 * @return String
+	 */
+	public String searchList(List<String> player, int page, int size) {
+		return searchList.expand(prefix(), encode(player), String.valueOf(page), String.valueOf(size));
+	}
+
+	/**
+	 * Link of RankingController.searchByPlayers filtered by date (with Pagination)
+	 * 
+	 * @param player   - List<String> : List of players to search
+	 * @param page     - Integer : Page no. (Zero base)
+	 * @param size     - Integer : Page size
+	 * @param onbefore - LocalDateTime : Filter by on or before the given date and time
+	 * @param onafter  - LocalDateTime : Filter by on or after the given date and time
+	 * @return String
+	 */
+	public String searchList(List<String> player, int page, int size, LocalDateTime onbefore,
+			LocalDateTime onafter) {
+		String prefix = prefix();
+		String players = encode(player);
+		String pageValue = String.valueOf(page);
+		String sizeValue = String.valueOf(size);
+
+		if (onbefore == null && onafter == null) {
+			return timeSearchList[0].expand(prefix, players, pageValue, sizeValue);
+		} else if (onbefore == null) {
+			return timeSearchList[1].expand(prefix, players, pageValue, sizeValue, DATE_FORMAT.format(onafter));
+		} else if (onafter == null) {
+			return timeSearchList[2].expand(prefix, players, pageValue, sizeValue, DATE_FORMAT.format(onbefore));
+		}
+		return timeSearchList[3].expand(prefix, players, pageValue, sizeValue, DATE_FORMAT.format(onbefore),
+				DATE_FORMAT.format(onafter));
+	}
+
+	// Player list placeholders merged into a single one, followed by the other parameters
+	private static LinkTemplate playersTemplate(String sample) {
+		int first = sample.indexOf(PLAYER_FIRST);
+		int second = sample.indexOf(PLAYER_SECOND);
+		String merged = sample.substring(0, first) + PLAYERS + sample.substring(second + PLAYER_SECOND.length());
+
+		String onbefore = DATE_FORMAT.format(ONBEFORE);
+		String onafter = DATE_FORMAT.format(ONAFTER);
+		boolean hasOnbefore = merged.contains(onbefore);
+		boolean hasOnafter = merged.contains(onafter);
+
+		if (hasOnbefore && hasOnafter) {
+			return LinkTemplate.of(merged, PLAYERS, String.valueOf(PAGE), String.valueOf(SIZE), onbefore, onafter);
+		} else if (hasOnbefore) {
+			return LinkTemplate.of(merged, PLAYERS, String.valueOf(PAGE), String.valueOf(SIZE), onbefore);
+		} else if (hasOnafter) {
+			return LinkTemplate.of(merged, PLAYERS, String.valueOf(PAGE), String.valueOf(SIZE), onafter);
+		}
+		return LinkTemplate.of(merged, PLAYERS, String.valueOf(PAGE), String.valueOf(SIZE));
+	}
+
+	// Encoded player list, joined the way the controller mapping renders it
+	private String encode(List<String> player) {
+		StringBuilder players = new StringBuilder();
+		for (String name : player) {
+			if (players.length() > 0) {
+				players.append(playerSeparator);
+			}
+			players.append(encode(name));
+		}
+		return players.toString();
+	}
+
+	// Request parameter encoding used by the link builder
+	private static String encode(String value) {
+		return UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8);
+	}
+
+	// Base URI, resolved through the link builder (honours forwarded headers)
+	private static String resolvePrefix() {
+		String base = linkTo(RankingController.class).toUri().toString();
+		return base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+	}
+
+	// Link without the base URI (kept as a string, optional parameters may render as template variables)
+	private static String path(WebMvcLinkBuilder link) {
+		String href = link.withSelfRel().getHref();
+		String prefix = resolvePrefix();
+		return href.startsWith(prefix) ? href.substring(prefix.length()) : href;
+	}
+}
@@ -1,12 +1,10 @@
 package com.TopScoreRanking.assembler;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
-
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
-import com.TopScoreRanking.controller.RankingController;
 import com.TopScoreRanking.entities.Ranking;
 
 /**
@@ -17,6 +15,17 @@ import com.TopScoreRanking.entities.Ranking;
 @Component
 public class RankingModelAssembler implements RepresentationModelAssembler<Ranking, EntityModel<Ranking>> {
 
+	private final RankingLinks links;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param links - RankingLinks : Precomputed link templates
+	 */
+	public RankingModelAssembler(RankingLinks links) {
+		this.links = links;
+	}
+
 	/**
 	 * Assembler for ranking score list by player
 	 * 
@@ -27,8 +36,8 @@ public class RankingModelAssembler implements RepresentationModelAssembler<Ranki
 	public EntityModel<Ranking> toModel(Ranking rank) {
 
 		return EntityModel.of(rank, 
-				linkTo(methodOn(RankingController.class).getHistory(rank.getPlayer())).withSelfRel(),
-				linkTo(methodOn(RankingController.class).searchById(rank.getId())).withRel("record"),
-				linkTo(methodOn(RankingController.class).all()).withRel("all"));
+				Link.of(links.history(rank.getPlayer())).withSelfRel(),
+				Link.of(links.record(rank.getId())).withRel("record"),
+				Link.of(links.all()).withRel("all"));
 	}
 }
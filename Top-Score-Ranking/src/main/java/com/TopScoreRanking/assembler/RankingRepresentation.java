@@ -0,0 +1,115 @@
+package com.TopScoreRanking.assembler;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.TopScoreRanking.controller.RankingController;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.entities.RankingList;
+
+/**
+ * Representation of the ranking lists and histories, chosen from the
+ * negotiated media type. Services return the records with their
+ * collection-level links, the links of each record are only built for the
+ * default (HAL) representation. The compact one gives them once as URI
+ * templates (Accept application/vnd.ranking.compact+json or ?format=compact).
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class RankingRepresentation {
+
+	private static final MediaType COMPACT = MediaType.parseMediaType(RankingController.COMPACT_JSON);
+
+	private final ContentNegotiationManager contentNegotiation;
+	private final RankingModelAssembler assembler;
+	private final RankingHistoryModelAssembler assemblerhs;
+	private final RankingLinks links;
+
+	/**
+	 * Constructor
+	 *
+	 * @param contentNegotiation - ContentNegotiationManager : Media types accepted by the request
+	 * @param assembler          - RankingModelAssembler : Links of each record
+	 * @param assemblerhs        - RankingHistoryModelAssembler : Links of a history
+	 * @param links              - RankingLinks : Collection-level link templates
+	 */
+	public RankingRepresentation(@Qualifier("mvcContentNegotiationManager") ContentNegotiationManager contentNegotiation,
+			RankingModelAssembler assembler, RankingHistoryModelAssembler assemblerhs, RankingLinks links) {
+		this.contentNegotiation = contentNegotiation;
+		this.assembler = assembler;
+		this.assemblerhs = assemblerhs;
+		this.links = links;
+	}
+
+	/**
+	 * Checks if the current request asks for the compact representation. Called
+	 * on the request thread, before any hand-off.
+	 *
+	 * @return boolean
+	 */
+	public boolean isCompact() {
+		RequestAttributes request = RequestContextHolder.getRequestAttributes();
+		if (!(request instanceof ServletRequestAttributes)) {
+			return false;
+		}
+		try {
+			List<MediaType> accepted = contentNegotiation
+					.resolveMediaTypes(new ServletWebRequest(((ServletRequestAttributes) request).getRequest()));
+			return accepted.stream().anyMatch(COMPACT::equalsTypeAndSubtype);
+		} catch (HttpMediaTypeNotAcceptableException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Ranking list in the chosen representation
+	 *
+	 * @param list    - RankingList : Records with the collection-level links
+	 * @param compact - Boolean : Compact representation
+	 * @return Object - RankingList with the link templates, or CollectionModel<EntityModel<Ranking>>
+	 */
+	public Object list(RankingList list, boolean compact) {
+		if (compact) {
+			Map<String, String> compactLinks = new LinkedHashMap<String, String>(list.getLinks());
+			compactLinks.putAll(links.templates());
+			return new RankingList(list.getItems(), compactLinks);
+		}
+
+		// Records not stored yet (write-behind queue) have no ID, hence no links
+		List<EntityModel<Ranking>> rank = list.getItems().stream()
+				.map(record -> record.getId() == null ? EntityModel.of(record) : assembler.toModel(record))
+				.collect(Collectors.toList());
+		List<Link> collectionLinks = list.getLinks().entrySet().stream()
+				.map(link -> Link.of(link.getValue()).withRel(link.getKey())).collect(Collectors.toList());
+
+		return CollectionModel.of(rank, collectionLinks);
+	}
+
+	/**
+	 * Player's history in the chosen representation
+	 *
+	 * @param history - RankingHistory : Player's history
+	 * @param compact - Boolean : Compact representation
+	 * @return Object - RankingHistory without links, or EntityModel<RankingHistory>
+	 */
+	public Object history(RankingHistory history, boolean compact) {
+		return compact ? history : assemblerhs.toModel(history);
+	}
+}
@@ -0,0 +1,237 @@
+package com.TopScoreRanking.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-process cache bounded by total weight (least recently used entries are
+ * evicted first) and by time to live. Thread safe.
+ *
+ * @author Marc Mendez
+ * @param <K> - Key type
+ * @param <V> - Value type
+ */
+public class BoundedCache<K, V> {
+
+	private final long maxWeight;
+	private final long ttlNanos;
+	private final ToIntFunction<? super V> weigher;
+
+	// Access ordered : the eldest entry is the least recently used
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+
+	private long weight;
+
+	// Invalidation counters by key hash, loads of a key started before an
+	// invalidation of its stripe are not cached
+	private final long[] generations = new long[64];
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructor (every entry weighs 1, maxWeight is the maximum number of
+	 * entries)
+	 *
+	 * @param maxWeight  - Long : Maximum number of entries
+	 * @param ttlSeconds - Long : Time to live of an entry (seconds)
+	 */
+	public BoundedCache(long maxWeight, long ttlSeconds) {
+		this(maxWeight, ttlSeconds, value -> 1);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxWeight  - Long : Maximum total weight of the entries
+	 * @param ttlSeconds - Long : Time to live of an entry (seconds)
+	 * @param weigher    - ToIntFunction : Weight of a value
+	 */
+	public BoundedCache(long maxWeight, long ttlSeconds, ToIntFunction<? super V> weigher) {
+		this.maxWeight = maxWeight;
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Cached value
+	 *
+	 * @param key - K
+	 * @return V - null if absent or expired
+	 */
+	public synchronized V get(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry != null && entry.isExpired(System.nanoTime())) {
+			remove(key, entry);
+			evictions++;
+			entry = null;
+		}
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Cached value, loaded and cached when absent. The loader runs outside the
+	 * lock. Its result is not cached when the key was invalidated meanwhile, so a
+	 * load racing a write cannot bring back a stale value.
+	 *
+	 * @param key    - K
+	 * @param loader - Function : Loads the value (may throw, nothing is cached then)
+	 * @return V
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		long stamp;
+		synchronized (this) {
+			V value = get(key);
+			if (value != null) {
+				return value;
+			}
+			stamp = stamp(key);
+		}
+
+		V value = loader.apply(key);
+
+		put(key, value, stamp);
+		return value;
+	}
+
+	/**
+	 * Stamp to take before loading a value outside of the cache, see
+	 * put(key, value, stamp)
+	 *
+	 * @param key - K
+	 * @return long - Changes every time the key may have been invalidated
+	 */
+	public synchronized long stamp(K key) {
+		return generations[stripe(key)];
+	}
+
+	/**
+	 * Adds a loaded value unless the key was invalidated since the stamp was taken
+	 *
+	 * @param key   - K
+	 * @param value - V (not cached if null)
+	 * @param stamp - Long : Stamp taken before the load
+	 */
+	public synchronized void put(K key, V value, long stamp) {
+		if (value != null && stamp == generations[stripe(key)]) {
+			put(key, value);
+		}
+	}
+
+	/**
+	 * Adds (or replaces) a value
+	 *
+	 * @param key   - K
+	 * @param value - V
+	 */
+	public synchronized void put(K key, V value) {
+		int valueWeight = weigher.applyAsInt(value);
+		if (valueWeight > maxWeight) {
+			return;
+		}
+
+		Entry<V> previous = entries.put(key, new Entry<V>(value, valueWeight, System.nanoTime() + ttlNanos));
+		if (previous != null) {
+			weight -= previous.weight;
+		}
+		weight += valueWeight;
+
+		// Evict least recently used entries over the weight limit
+		Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+		while (weight > maxWeight && eldest.hasNext()) {
+			Map.Entry<K, Entry<V>> entry = eldest.next();
+			weight -= entry.getValue().weight;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Number of cached values
+	 *
+	 * @return int
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Removes a value
+	 *
+	 * @param key - K
+	 */
+	public synchronized void invalidate(K key) {
+		generations[stripe(key)]++;
+		Entry<V> entry = entries.get(key);
+		if (entry != null) {
+			remove(key, entry);
+		}
+	}
+
+	/**
+	 * Removes every value
+	 */
+	public synchronized void clear() {
+		for (int i = 0; i < generations.length; i++) {
+			generations[i]++;
+		}
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Cache counters
+	 *
+	 * @return Map<String, Object> - size, weight, hits, misses and evictions
+	 */
+	public synchronized Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("size", entries.size());
+		stats.put("weight", weight);
+		stats.put("maxWeight", maxWeight);
+		stats.put("hits", hits);
+		stats.put("misses", misses);
+		stats.put("evictions", evictions);
+		return stats;
+	}
+
+	// Invalidation counter of the key
+	private int stripe(K key) {
+		return (key.hashCode() & Integer.MAX_VALUE) % generations.length;
+	}
+
+	// Called with the lock held
+	private void remove(K key, Entry<V> entry) {
+		entries.remove(key);
+		weight -= entry.weight;
+	}
+
+	/**
+	 * Cached value with its weight and expiry
+	 */
+	private static final class Entry<V> {
+		private final V value;
+		private final int weight;
+		private final long expiresAt;
+
+		private Entry(V value, int weight, long expiresAt) {
+			this.value = value;
+			this.weight = weight;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired(long now) {
+			return now - expiresAt >= 0;
+		}
+	}
+}
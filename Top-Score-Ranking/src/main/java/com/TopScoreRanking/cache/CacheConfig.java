@@ -0,0 +1,54 @@
+package com.TopScoreRanking.cache;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingHistory;
+
+/**
+ * In-process caches of the ranking service
+ *
+ * @author Marc Mendez
+ */
+@Configuration
+public class CacheConfig {
+
+	/**
+	 * Ranking records by ID, served by /ranking/searchscore. Records never change
+	 * after insert, entries are only evicted on delete, on size or on age.
+	 *
+	 * @param maxSize    - Long : Maximum number of records
+	 * @param ttlSeconds - Long : Time to live of a record (seconds)
+	 * @return BoundedCache<Long, Ranking>
+	 */
+	@Bean
+	public BoundedCache<Long, Ranking> rankingRecordCache(@Value("${ranking.cache.record.max-size:10000}") long maxSize,
+			@Value("${ranking.cache.record.ttl-seconds:3600}") long ttlSeconds) {
+		return new BoundedCache<Long, Ranking>(maxSize, ttlSeconds);
+	}
+
+	/**
+	 * Player histories by player key, served by /ranking/history. Entries weigh
+	 * the number of scores they hold, writes for a player evict its entry.
+	 *
+	 * @param maxWeight  - Long : Maximum number of scores held
+	 * @param ttlSeconds - Long : Time to live of a history (seconds)
+	 * @return BoundedCache<String, RankingHistory>
+	 */
+	@Bean
+	public BoundedCache<String, RankingHistory> rankingHistoryCache(
+			@Value("${ranking.cache.history.max-weight:100000}") long maxWeight,
+			@Value("${ranking.cache.history.ttl-seconds:600}") long ttlSeconds) {
+		return new BoundedCache<String, RankingHistory>(maxWeight, ttlSeconds,
+				history -> 1 + size(history.getTopScore()) + size(history.getLowScore()) + size(history.getAllScore()));
+	}
+
+	// Number of scores of a list (null when not loaded)
+	private static int size(List<?> list) {
+		return list == null ? 0 : list.size();
+	}
+}
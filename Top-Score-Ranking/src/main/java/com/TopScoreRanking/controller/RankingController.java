@@ -1,162 +1,274 @@
 package com.TopScoreRanking.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
-import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.TopScoreRanking.assembler.RankingRepresentation;
+import com.TopScoreRanking.entities.PlayerRank;
 import com.TopScoreRanking.entities.Ranking;
-import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.entities.RankingList;
+import com.TopScoreRanking.entities.ScoreDistribution;
+import com.TopScoreRanking.entities.ScorePercentile;
+import com.TopScoreRanking.service.LeaderboardService;
 import com.TopScoreRanking.service.RankingService;
+import com.TopScoreRanking.service.RequestBulkheads;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.hateoas.CollectionModel;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 
 /**
- * Controller for converting responses to Json.
+ * Controller for converting responses to Json. The endpoints waiting on the
+ * database (registrations, searches, histories and deletes) are in
+ * RankingRecordController.
  * 
  * @author Marc Louis Mendez
  */
 @RestController
 public class RankingController {
 
+	// Newline delimited JSON
+	public static final String NDJSON = "application/x-ndjson";
+
+	// Compact lists without per-record links (also selected with ?format=compact)
+	public static final String COMPACT_JSON = "application/vnd.ranking.compact+json";
+
 	@Autowired
 	public RankingService rankService;
 
+	@Autowired
+	private LeaderboardService leaderboardService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	// Bulkheads of the asynchronous mode (ranking.async.enabled), for the status endpoint
+	@Autowired
+	private RequestBulkheads bulkheads;
+
+	// HAL or compact lists, from the negotiated media type
+	@Autowired
+	private RankingRepresentation representation;
+
 	/**
-	 * Get all records from the database
+	 * Get all records from the database, one page at a time in ID order (follow
+	 * the "next" link, or use /ranking/all/stream for the whole table)
 	 * 
-	 * @return CollectionModel<EntityModel<Ranking>> Creates a CollectionModel
-	 *         instance with the given links and returns it
+	 * @param after - Long : ID of the last record of the previous page (optional)
+	 * @param size  - Integer : Page size (optional, at most ranking.all.page-size)
+	 * @return ResponseEntity<?> - Returns the page of ranking records (HAL or compact representation)
 	 */
 	@GetMapping("/ranking/all")
-	public CollectionModel<EntityModel<Ranking>> all() {
-		// Gets all record
-		List<EntityModel<Ranking>> rank = rankService.getAll();
+	public ResponseEntity<?> all(@RequestParam(required = false) Long after,
+			@RequestParam(required = false) Integer size) {
+		// Gets a page of records
+		return list(rankService.getAll(after, size));
+	}
 
-		return CollectionModel.of(rank, linkTo(methodOn(RankingController.class).all()).withSelfRel());
+	/**
+	 * Stream all records from the database as newline delimited JSON. Records are
+	 * written as they are read, so memory use does not grow with the table size.
+	 * 
+	 * @return ResponseEntity<StreamingResponseBody> - One JSON ranking record per line
+	 */
+	@GetMapping(value = "/ranking/all/stream", produces = NDJSON)
+	public ResponseEntity<StreamingResponseBody> allStream() {
+		StreamingResponseBody body = (OutputStream out) -> rankService.forEachRanking(rank -> {
+			try {
+				out.write(objectMapper.writeValueAsBytes(rank));
+				out.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
 	}
 
 	/**
-	 * Register new record to database
+	 * Get the best scores (served from the in-memory leaderboard)
 	 * 
-	 * @param newRanking - Ranking : New ranking record to be registered (JSON Payload)
-	 * @return ResponseEntity<?> - Returns a Response entity 
+	 * @param n - Integer : Number of records
+	 * @return ResponseEntity<?> - Returns the n best ranking records (HAL or compact representation)
 	 */
-	@PostMapping("/ranking/register")
-	public ResponseEntity<?> newRanking(@RequestBody Ranking newRanking) {
-		// Saves new ranking record
-		EntityModel<Ranking> entityModel = rankService.saveRanking(newRanking);
+	@GetMapping("/ranking/top")
+	public ResponseEntity<?> top(@RequestParam(defaultValue = "10") int n) {
+		// Gets best records
+		return list(leaderboardService.getTop(n));
+	}
 
-		return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).body(entityModel);
+	/**
+	 * Get the best scores of the last hours (sliding window, served from memory)
+	 * 
+	 * @param n - Integer : Number of records
+	 * @return ResponseEntity<?> - Returns the n best recent ranking records (HAL or compact representation)
+	 */
+	@GetMapping("/ranking/top/recent")
+	public ResponseEntity<?> topRecent(@RequestParam(defaultValue = "10") int n) {
+		// Gets best recent records
+		return list(leaderboardService.getTopRecent(n));
 	}
 
 	/**
-	 * Search player's score using ID
+	 * Get the best scores of any time range (served from the in-memory score store)
 	 * 
-	 * @param id - Long : Unique ranking ID
-	 * @return ResponseEntity<?> - Returns a Response entity with the list of scores
+	 * @param onafter  - LocalDateTime : On or after the given date and time (optional)
+	 * @param onbefore - LocalDateTime : On or before the given date and time (optional)
+	 * @param n        - Integer : Number of records
+	 * @return ResponseEntity<?> - Returns the n best ranking records of the range (HAL or compact representation)
 	 */
-	@GetMapping("/ranking/searchscore")
-	public ResponseEntity<?> searchById(@RequestParam(required = true) Long id) {
-		
-		// Gets record based on unique ID
-		EntityModel<Ranking> entityModel = rankService.filterById(id);
+	@GetMapping("/ranking/top/between")
+	public ResponseEntity<?> topBetween(
+			@RequestParam(defaultValue = "") @DateTimeFormat(pattern = "yyyyMMddHHmmss") LocalDateTime onafter,
+			@RequestParam(defaultValue = "") @DateTimeFormat(pattern = "yyyyMMddHHmmss") LocalDateTime onbefore,
+			@RequestParam(defaultValue = "10") int n) {
+		// Gets best records of the range
+		return list(leaderboardService.getTopBetween(onafter, onbefore, n));
+	}
 
-		return ResponseEntity
-				.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
-				.body(entityModel);
+	/**
+	 * Get the best scores of the current day, week or month (served from the
+	 * in-memory time-bucketed leaderboards)
+	 * 
+	 * @param window - String : daily, weekly, monthly or alltime
+	 * @param n      - Integer : Number of records
+	 * @return ResponseEntity<?> - Returns the n best ranking records of the window (HAL or compact representation)
+	 */
+	@GetMapping("/ranking/top/{window}")
+	public ResponseEntity<?> topByWindow(@PathVariable String window, @RequestParam(defaultValue = "10") int n) {
+		// Gets best records of the window
+		return list(leaderboardService.getTopByWindow(window, n));
 	}
 
 	/**
-	 * Search player's score list (with Pagination)
+	 * Get player's global position by best score, with the players just above and below
 	 * 
-	 * @param player - List<String> : List of players to search
-	 * @param page   - Integer : Current Page no. (Zero base)
-	 * @param size   - Integer : Page size
-	 * @return ResponseEntity<?> - Returns a Response entity with the list of scores
+	 * @param player - String : Player's name
+	 * @return ResponseEntity<?> - Returns a Response entity with the player's position
 	 */
-	@GetMapping("/ranking/searchlist")
-	public ResponseEntity<?> searchByPlayers(@RequestParam(required = true) List<String> player,
-			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "3") int size) {
+	@GetMapping("/ranking/rank")
+	public ResponseEntity<?> getRank(@RequestParam(required = true) String player) {
 
-		// gets player's score list
-		CollectionModel<EntityModel<Ranking>> collectionModel = rankService.filterByPlayers(player, page, size);
+		// Get player's position
+		EntityModel<PlayerRank> entityModel = leaderboardService.getPlayerRank(player);
 
-		return ResponseEntity
-				.created(collectionModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
-				.body(collectionModel);
+		return ResponseEntity.ok(entityModel);
 	}
 
 	/**
-	 * Search player's score list filtered by date (with Pagination)
+	 * Get the approximate share of the stored scores beaten by a score
 	 * 
-	 * @param player   - List<String> : List of players to search
-	 * @param page     - Integer : Current Page no. (Zero base)
-	 * @param size     - Integer : Page size
-	 * @param onbefore - LocalDateTime : Filter by on or before the given date and time
-	 * @param onafter  - LocalDateTime : Filter by on or after the given date and time
-	 * @return ResponseEntity<?> Returns a Response entity with the list of scores
+	 * @param score - Integer : Score to rank
+	 * @return EntityModel<ScorePercentile> - Returns the percentile (0 to 100) and its error bound
 	 */
-	@GetMapping("/ranking/timefilter/searchlist")
-	public ResponseEntity<?> searchByPlayers(@RequestParam(required = true) List<String> player,
-			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "3") int size,
-			@RequestParam(defaultValue = "") @DateTimeFormat(pattern = "yyyyMMddHHmmss") LocalDateTime onbefore,
-			@RequestParam(defaultValue = "") @DateTimeFormat(pattern = "yyyyMMddHHmmss") LocalDateTime onafter) {
+	@GetMapping("/ranking/percentile")
+	public EntityModel<ScorePercentile> percentile(@RequestParam(required = true) int score) {
+		// Get score's percentile
+		return leaderboardService.getPercentile(score);
+	}
 
-		// Get player's score list filtered by date
-		CollectionModel<EntityModel<Ranking>> collectionModel = rankService.filterByPlayersAndDate(player, page, size,
-				onbefore, onafter);
+	/**
+	 * Get the score histogram of every record, of a player, or of the current day,
+	 * week or month (ranges set by ranking.distribution.bounds)
+	 * 
+	 * @param player - String : Player's name (optional)
+	 * @param window - String : daily, weekly, monthly or alltime (optional)
+	 * @return EntityModel<ScoreDistribution> - Returns the count of each score range
+	 */
+	@GetMapping("/ranking/distribution")
+	public EntityModel<ScoreDistribution> distribution(@RequestParam(required = false) String player,
+			@RequestParam(required = false) String window) {
+		// Player histograms are kept for all time only
+		if (player != null && window != null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "player and window cannot be combined");
+		}
+		return leaderboardService.getDistribution(player, window);
+	}
 
-		return ResponseEntity
-				.created(collectionModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
-				.body(collectionModel);
+	/**
+	 * Write-behind queue status
+	 * 
+	 * @return Map<String, Object> - Queue depth and counters
+	 */
+	@GetMapping("/ranking/ingest/status")
+	public Map<String, Object> ingestStatus() {
+		return rankService.getIngestionStatus();
 	}
 
 	/**
-	 * Search player's history. Result contains: 
-	 * <p>Top score (time and score) which the best ever score of the player.</p>
-	 * <p>Low score (time and score) worst score of the player.</p>
-	 * <p>Average score value for player</p>
-	 * <p>List of all the scores (time and score) of this player.</p>
+	 * Subscribe to the leaderboard changes (Server-Sent Events), instead of
+	 * polling the searches
 	 * 
-	 * @param player - String : Player's name
-	 * @return ResponseEntity<?> - Returns a Response entity with the list of player's score history
+	 * @param player - List<String> : Watched players (optional)
+	 * @param top    - Boolean : Watch the top N (true by default)
+	 * @return SseEmitter - Stream of "delta" events
+	 */
+	@GetMapping(path = "/ranking/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter subscribe(@RequestParam(required = false) List<String> player,
+			@RequestParam(defaultValue = "true") boolean top) {
+		// Opens the change stream
+		return leaderboardService.subscribeChanges(player, top);
+	}
+
+	/**
+	 * Change stream status
+	 * 
+	 * @return Map<String, Object> - Subscribers and delivery counters
 	 */
-	@GetMapping("/ranking/history")
-	public ResponseEntity<?> getHistory(@RequestParam(required = true) String player) {
+	@GetMapping("/ranking/subscribe/status")
+	public Map<String, Object> subscribeStatus() {
+		return leaderboardService.getPushStatus();
+	}
 
-		// Get player's score history
-		EntityModel<RankingHistory> entityModel = rankService.getPlayerScoreHistory(player);
+	/**
+	 * In-process cache counters
+	 * 
+	 * @return Map<String, Object> - Size, hits, misses and evictions by cache name
+	 */
+	@GetMapping("/ranking/cache/stats")
+	public Map<String, Object> cacheStats() {
+		return rankService.getCacheStats();
+	}
 
-		return ResponseEntity
-				.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
-				.body(entityModel);
+	/**
+	 * In-memory score store counters
+	 * 
+	 * @return Map<String, Object> - Rows, players and bytes used per score
+	 */
+	@GetMapping("/ranking/store/stats")
+	public Map<String, Object> storeStats() {
+		return leaderboardService.getStoreStats();
 	}
 
 	/**
-	 * Delete a record using player's ID
+	 * Request bulkhead counters (asynchronous mode)
 	 * 
-	 * @param id - Long : Ranking record ID to be deleted
-	 * @return ResponseEntity<?>
+	 * @return Map<String, Object> - Threads, active, queued and rejected requests by bulkhead
 	 */
-	@DeleteMapping("/ranking/delete")
-	public ResponseEntity<?> deleteRanking(@RequestParam(required = true) Long id) {
-		
-		// Deletes score
-		rankService.deleteRanking(id);
+	@GetMapping("/ranking/async/status")
+	public Map<String, Object> asyncStatus() {
+		return bulkheads.status();
+	}
 
-		return ResponseEntity.noContent().build();
+	// Ranking list in the representation asked by the request
+	private ResponseEntity<?> list(RankingList list) {
+		return ResponseEntity.ok(representation.list(list, representation.isCompact()));
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,332 @@
+package com.TopScoreRanking.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.TopScoreRanking.assembler.RankingLinks;
+import com.TopScoreRanking.assembler.RankingRepresentation;
+import com.TopScoreRanking.entities.PlayerHistoryResult;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingBatchResult;
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.entities.RankingList;
+import com.TopScoreRanking.service.RankingHistoryService;
+import com.TopScoreRanking.service.RankingService;
+import com.TopScoreRanking.service.RequestBulkheads;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Endpoints waiting on the database (registrations, searches, histories and
+ * deletes). In asynchronous mode (ranking.async.enabled) the work runs on the
+ * bulkhead of its endpoint and the Tomcat thread is released as soon as it is
+ * queued, otherwise it runs on the Tomcat thread and the returned future is
+ * already completed.
+ * <p>
+ * The work never sees the request: the container recycles the request
+ * attributes once the handler returns. The base URI of the links is resolved
+ * before the hand-off and given to the work, like the representation (HAL or
+ * compact) asked by the request.
+ * </p>
+ * 
+ * @author Marc Mendez
+ */
+@RestController
+public class RankingRecordController {
+
+	private final RankingService rankService;
+	private final RankingHistoryService historyService;
+	private final RankingLinks links;
+	private final RequestBulkheads bulkheads;
+	private final ObjectMapper objectMapper;
+	private final RankingRepresentation representation;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param rankService
+	 * @param historyService
+	 * @param links
+	 * @param bulkheads
+	 * @param objectMapper
+	 * @param representation
+	 */
+	public RankingRecordController(RankingService rankService, RankingHistoryService historyService,
+			RankingLinks links, RequestBulkheads bulkheads, ObjectMapper objectMapper,
+			RankingRepresentation representation) {
+		this.rankService = rankService;
+		this.historyService = historyService;
+		this.links = links;
+		this.bulkheads = bulkheads;
+		this.objectMapper = objectMapper;
+		this.representation = representation;
+	}
+
+	/**
+	 * Register new record to database
+	 * 
+	 * @param newRanking - Ranking : New ranking record to be registered (JSON Payload)
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity (202 Accepted in write-behind mode)
+	 */
+	@PostMapping("/ranking/register")
+	public CompletableFuture<ResponseEntity<?>> newRanking(@RequestBody Ranking newRanking) {
+		return supply(RequestBulkheads.REGISTER, () -> {
+			// Queues new ranking record, stored later by the write-behind queue
+			if (rankService.isWriteBehind()) {
+				return ResponseEntity.accepted().body(rankService.acceptRanking(newRanking));
+			}
+
+			// Saves new ranking record
+			EntityModel<Ranking> entityModel = rankService.saveRanking(newRanking);
+
+			return ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()).body(entityModel);
+		});
+	}
+
+	/**
+	 * Register a batch of new records to database (JSON array payload)
+	 * 
+	 * @param newRankings - List<Ranking> : New ranking records to be registered
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity with the result of each record
+	 */
+	@PostMapping(value = "/ranking/register/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public CompletableFuture<ResponseEntity<?>> newRankings(@RequestBody List<Ranking> newRankings) {
+		return supply(RequestBulkheads.REGISTER_BATCH, () -> {
+			// Saves new ranking records
+			List<RankingBatchResult> results = rankService.saveRankings(newRankings);
+
+			return ResponseEntity.ok(results);
+		});
+	}
+
+	/**
+	 * Register a batch of new records to database (newline delimited JSON payload,
+	 * one ranking record per line)
+	 * 
+	 * @param body - InputStream : New ranking records to be registered
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity with the result of each record
+	 */
+	@PostMapping(value = "/ranking/register/batch", consumes = RankingController.NDJSON)
+	public CompletableFuture<ResponseEntity<?>> newRankingsNdjson(InputStream body) {
+		// Payload read on the calling thread, like the JSON array one
+		List<Ranking> newRankings;
+		try (MappingIterator<Ranking> lines = objectMapper.readerFor(Ranking.class).readValues(body)) {
+			newRankings = lines.readAll();
+		} catch (IOException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid NDJSON payload", e);
+		}
+
+		return supply(RequestBulkheads.REGISTER_BATCH, () -> {
+			// Saves new ranking records
+			List<RankingBatchResult> results = rankService.saveRankings(newRankings);
+
+			return ResponseEntity.ok(results);
+		});
+	}
+
+	/**
+	 * Search player's score using ID
+	 * 
+	 * @param id - Long : Unique ranking ID
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity with the list of scores
+	 */
+	@GetMapping("/ranking/searchscore")
+	public CompletableFuture<ResponseEntity<?>> searchById(@RequestParam(required = true) Long id) {
+		return supply(RequestBulkheads.SEARCH_BY_ID, () -> {
+			// Gets record based on unique ID
+			EntityModel<Ranking> entityModel = rankService.filterById(id);
+
+			return ResponseEntity
+					.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+					.body(entityModel);
+		});
+	}
+
+	/**
+	 * Search player's score list (with Pagination)
+	 * 
+	 * @param player - List<String> : List of players to search
+	 * @param page   - Integer : Current Page no. (Zero base)
+	 * @param size   - Integer : Page size
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity with the list of scores
+	 */
+	@GetMapping("/ranking/searchlist")
+	public CompletableFuture<ResponseEntity<?>> searchByPlayers(@RequestParam(required = true) List<String> player,
+			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "3") int size) {
+		boolean compact = representation.isCompact();
+		return supply(RequestBulkheads.SEARCH_LIST, () -> {
+			// gets player's score list
+			RankingList list = rankService.filterByPlayers(player, page, size);
+
+			return ResponseEntity.created(URI.create(list.getLinks().get("self")))
+					.body(representation.list(list, compact));
+		});
+	}
+
+	/**
+	 * Search player's score list filtered by date (with Pagination)
+	 * 
+	 * @param player   - List<String> : List of players to search
+	 * @param page     - Integer : Current Page no. (Zero base)
+	 * @param size     - Integer : Page size
+	 * @param onbefore - LocalDateTime : Filter by on or before the given date and time
+	 * @param onafter  - LocalDateTime : Filter by on or after the given date and time
+	 * @return CompletableFuture<ResponseEntity<?>> Returns a Response entity with the list of scores
+	 */
+	@GetMapping("/ranking/timefilter/searchlist")
+	public CompletableFuture<ResponseEntity<?>> searchByPlayers(@RequestParam(required = true) List<String> player,
+			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "3") int size,
+			@RequestParam(defaultValue = "") @DateTimeFormat(pattern = "yyyyMMddHHmmss") LocalDateTime onbefore,
+			@RequestParam(defaultValue = "") @DateTimeFormat(pattern = "yyyyMMddHHmmss") LocalDateTime onafter) {
+		boolean compact = representation.isCompact();
+		return supply(RequestBulkheads.TIME_SEARCH_LIST, () -> {
+			// Get player's score list filtered by date
+			RankingList list = rankService.filterByPlayersAndDate(player, page, size, onbefore, onafter);
+
+			return ResponseEntity.created(URI.create(list.getLinks().get("self")))
+					.body(representation.list(list, compact));
+		});
+	}
+
+	/**
+	 * Search player's score list (with keyset pagination)
+	 * 
+	 * @param player - List<String> : List of players to search
+	 * @param size   - Integer : Page size
+	 * @param after  - String : Cursor from the previous page's "next" link (omit for the first page)
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity with the list of scores
+	 */
+	@GetMapping("/ranking/seek/searchlist")
+	public CompletableFuture<ResponseEntity<?>> seekByPlayers(@RequestParam(required = true) List<String> player,
+			@RequestParam(defaultValue = "3") int size, @RequestParam(required = false) String after) {
+		boolean compact = representation.isCompact();
+		return supply(RequestBulkheads.SEEK_LIST, () -> {
+			// gets player's score list after the cursor
+			RankingList list = rankService.seekByPlayersAndDate(player, size, after, null, null);
+
+			return ResponseEntity.ok(representation.list(list, compact));
+		});
+	}
+
+	/**
+	 * Search player's score list filtered by date (with keyset pagination)
+	 * 
+	 * @param player   - List<String> : List of players to search
+	 * @param size     - Integer : Page size
+	 * @param after    - String : Cursor from the previous page's "next" link (omit for the first page)
+	 * @param onbefore - LocalDateTime : Filter by on or before the given date and time
+	 * @param onafter  - LocalDateTime : Filter by on or after the given date and time
+	 * @return CompletableFuture<ResponseEntity<?>> Returns a Response entity with the list of scores
+	 */
+	@GetMapping("/ranking/seek/timefilter/searchlist")
+	public CompletableFuture<ResponseEntity<?>> seekByPlayers(@RequestParam(required = true) List<String> player,
+			@RequestParam(defaultValue = "3") int size, @RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "") @DateTimeFormat(pattern = "yyyyMMddHHmmss") LocalDateTime onbefore,
+			@RequestParam(defaultValue = "") @DateTimeFormat(pattern = "yyyyMMddHHmmss") LocalDateTime onafter) {
+		boolean compact = representation.isCompact();
+		return supply(RequestBulkheads.SEEK_TIME_LIST, () -> {
+			// Get player's score list filtered by date after the cursor
+			RankingList list = rankService.seekByPlayersAndDate(player, size, after, onbefore, onafter);
+
+			return ResponseEntity.ok(representation.list(list, compact));
+		});
+	}
+
+	/**
+	 * Search player's history. Result contains: 
+	 * <p>Top score (time and score) which the best ever score of the player.</p>
+	 * <p>Low score (time and score) worst score of the player.</p>
+	 * <p>Average score value for player</p>
+	 * <p>List of all the scores (time and score) of this player.</p>
+	 * 
+	 * @param player - String : Player's name
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity with the list of player's score history
+	 */
+	@GetMapping("/ranking/history")
+	public CompletableFuture<ResponseEntity<?>> getHistory(@RequestParam(required = true) String player) {
+		boolean compact = representation.isCompact();
+		return supply(RequestBulkheads.HISTORY, () -> {
+			// Get player's score history
+			RankingHistory history = historyService.getPlayerScoreHistory(player);
+
+			return ResponseEntity.created(URI.create(links.history(history.getPlayer())))
+					.body(representation.history(history, compact));
+		});
+	}
+
+	/**
+	 * Search player's history summary (top score, low score and average) from the
+	 * player statistics, without the list of all scores.
+	 * 
+	 * @param player - String : Player's name
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity with the player's history summary
+	 */
+	@GetMapping("/ranking/history/summary")
+	public CompletableFuture<ResponseEntity<?>> getHistorySummary(@RequestParam(required = true) String player) {
+		return supply(RequestBulkheads.HISTORY_SUMMARY, () -> {
+			// Get player's score history summary
+			EntityModel<RankingHistory> entityModel = historyService.getPlayerScoreSummary(player);
+
+			return ResponseEntity.ok(entityModel);
+		});
+	}
+
+	/**
+	 * Search the histories of several players in one call (e.g.
+	 * player=a,b,c). Each player has its own result, a player without score
+	 * does not fail the others.
+	 * 
+	 * @param player - List<String> : Players' names (ranking.history.batch.max-players at most)
+	 * @return CompletableFuture<ResponseEntity<?>> - Returns a Response entity with the result of each player
+	 */
+	@GetMapping("/ranking/history/batch")
+	public CompletableFuture<ResponseEntity<?>> getHistories(@RequestParam(required = true) List<String> player) {
+		return supply(RequestBulkheads.HISTORY_BATCH, () -> {
+			// Get players' score histories
+			List<PlayerHistoryResult> results = historyService.getPlayerScoreHistories(player);
+
+			return ResponseEntity.ok(results);
+		});
+	}
+
+	/**
+	 * Delete a record using player's ID
+	 * 
+	 * @param id - Long : Ranking record ID to be deleted
+	 * @return CompletableFuture<ResponseEntity<?>>
+	 */
+	@DeleteMapping("/ranking/delete")
+	public CompletableFuture<ResponseEntity<?>> deleteRanking(@RequestParam(required = true) Long id) {
+		return supply(RequestBulkheads.DELETE, () -> {
+			// Deletes score
+			rankService.deleteRanking(id);
+
+			return ResponseEntity.noContent().build();
+		});
+	}
+
+	// Runs the work on the bulkhead, with the links' base URI resolved on the calling thread
+	private <T> CompletableFuture<T> supply(String bulkhead, Supplier<T> work) {
+		String prefix = links.prefix();
+		return bulkheads.supply(bulkhead, () -> links.withPrefix(prefix, work));
+	}
+}
@@ -0,0 +1,66 @@
+package com.TopScoreRanking.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.service.ReactiveRankingService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive read path (ranking.reactive.enabled), next to the blocking
+ * endpoints of RankingController. Lists are streamed as newline delimited
+ * JSON, one record at a time as the client reads them.
+ * 
+ * @author Marc Mendez
+ */
+@RestController
+@ConditionalOnProperty(name = "ranking.reactive.enabled", havingValue = "true")
+public class ReactiveRankingController {
+
+	@Autowired
+	private ReactiveRankingService reactiveService;
+
+	/**
+	 * Stream all records from the database
+	 * 
+	 * @return Flux<Ranking> - One JSON ranking record per line
+	 */
+	@GetMapping(value = "/reactive/ranking/all", produces = RankingController.NDJSON)
+	public Flux<Ranking> all() {
+		return reactiveService.getAll();
+	}
+
+	/**
+	 * Stream player's score list (with Pagination)
+	 * 
+	 * @param player - List<String> : List of players to search
+	 * @param page   - Integer : Current Page no. (Zero base)
+	 * @param size   - Integer : Page size
+	 * @return Flux<Ranking> - One JSON ranking record per line (no line when not found)
+	 */
+	@GetMapping(value = "/reactive/ranking/searchlist", produces = RankingController.NDJSON)
+	public Flux<Ranking> searchByPlayers(@RequestParam(required = true) List<String> player,
+			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "3") int size) {
+		return reactiveService.filterByPlayers(player, page, size);
+	}
+
+	/**
+	 * Search player's history
+	 * 
+	 * @param player - String : Player's name
+	 * @return Mono<RankingHistory> - Player's score history
+	 */
+	@GetMapping("/reactive/ranking/history")
+	public Mono<RankingHistory> getHistory(@RequestParam(required = true) String player) {
+		return reactiveService.getPlayerScoreHistory(player);
+	}
+}
@@ -0,0 +1,121 @@
+package com.TopScoreRanking.entities;
+
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+
+/**
+ * Entity Player. Dictionary of the players, a Ranking record references its
+ * player by ID instead of repeating the normalized name.
+ * 
+ * @author Marc Mendez
+ */
+@Entity
+public class Player {
+
+	// ID (Primary key)
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_seq")
+	@SequenceGenerator(name = "player_seq", sequenceName = "player_seq", allocationSize = 50)
+	private Integer id;
+
+	// Normalized player name (unique)
+	@Column(nullable = false, unique = true)
+	private String playerKey;
+
+	// Player's name as first registered
+	private String name;
+
+	/**
+	 * Constructor
+	 */
+	public Player() {
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param name - String : Player's name
+	 */
+	public Player(String name) {
+		this.playerKey = Ranking.toPlayerKey(name);
+		this.name = name;
+	}
+
+	// Get player ID
+	public Integer getId() {
+		return this.id;
+	}
+
+	// Get normalized player name
+	public String getPlayerKey() {
+		return this.playerKey;
+	}
+
+	// Get player name
+	public String getName() {
+		return this.name;
+	}
+
+	// Set player ID
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	// Set normalized player name
+	public void setPlayerKey(String playerKey) {
+		this.playerKey = playerKey;
+	}
+
+	// Set player name
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of Player
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of Player, return true,
+	 *         Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof Player))
+			return false;
+		Player player = (Player) o;
+		return Objects.equals(this.id, player.id) && Objects.equals(this.playerKey, player.playerKey)
+				&& Objects.equals(this.name, player.name);
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.id, this.playerKey, this.name);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "Player{" + "id=" + this.id + ", playerKey='" + this.playerKey + '\'' + ", name='" + this.name + '\''
+				+ '}';
+	}
+}
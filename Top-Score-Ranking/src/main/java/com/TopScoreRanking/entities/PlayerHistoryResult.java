@@ -0,0 +1,157 @@
+package com.TopScoreRanking.entities;
+
+import java.util.Objects;
+
+/**
+ * Result of a single player of a batch history search
+ * 
+ * @author Marc Mendez
+ */
+public class PlayerHistoryResult {
+
+	// History was found
+	public static final String FOUND = "FOUND";
+	// Player has no score
+	public static final String NOT_FOUND = "NOT_FOUND";
+	// History could not be read
+	public static final String FAILED = "FAILED";
+
+	// Player name as requested
+	private String player;
+	// FOUND, NOT_FOUND or FAILED
+	private String status;
+	// Player's history (null if not found or failed)
+	private RankingHistory history;
+	// Reason of the failure
+	private String message;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param player  - String
+	 * @param status  - String
+	 * @param history - RankingHistory
+	 * @param message - String
+	 */
+	public PlayerHistoryResult(String player, String status, RankingHistory history, String message) {
+		this.player = player;
+		this.status = status;
+		this.history = history;
+		this.message = message;
+	}
+
+	/**
+	 * Result of a found history
+	 * 
+	 * @param player  - String : Player name as requested
+	 * @param history - RankingHistory : Player's history
+	 * @return PlayerHistoryResult
+	 */
+	public static PlayerHistoryResult found(String player, RankingHistory history) {
+		return new PlayerHistoryResult(player, FOUND, history, null);
+	}
+
+	/**
+	 * Result of a player without score
+	 * 
+	 * @param player  - String : Player name as requested
+	 * @param message - String : Reason
+	 * @return PlayerHistoryResult
+	 */
+	public static PlayerHistoryResult notFound(String player, String message) {
+		return new PlayerHistoryResult(player, NOT_FOUND, null, message);
+	}
+
+	/**
+	 * Result of a history that could not be read
+	 * 
+	 * @param player  - String : Player name as requested
+	 * @param message - String : Reason of the failure
+	 * @return PlayerHistoryResult
+	 */
+	public static PlayerHistoryResult failed(String player, String message) {
+		return new PlayerHistoryResult(player, FAILED, null, message);
+	}
+
+	// Get player name as requested
+	public String getPlayer() {
+		return this.player;
+	}
+
+	// Get status
+	public String getStatus() {
+		return this.status;
+	}
+
+	// Get player's history
+	public RankingHistory getHistory() {
+		return this.history;
+	}
+
+	// Get reason of the failure
+	public String getMessage() {
+		return this.message;
+	}
+
+	// Set player name as requested
+	public void setPlayer(String player) {
+		this.player = player;
+	}
+
+	// Set status
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	// Set player's history
+	public void setHistory(RankingHistory history) {
+		this.history = history;
+	}
+
+	// Set reason of the failure
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of PlayerHistoryResult
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of PlayerHistoryResult,
+	 *         return true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof PlayerHistoryResult))
+			return false;
+		PlayerHistoryResult result = (PlayerHistoryResult) o;
+		return Objects.equals(this.player, result.player) && Objects.equals(this.status, result.status)
+				&& Objects.equals(this.history, result.history) && Objects.equals(this.message, result.message);
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.player, this.status, this.history, this.message);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "PlayerHistoryResult{" + "player='" + this.player + '\'' + ", status='" + this.status + '\''
+				+ ", history=" + this.history + ", message='" + this.message + '\'' + '}';
+	}
+}
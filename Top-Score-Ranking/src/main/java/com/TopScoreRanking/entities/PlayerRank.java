@@ -0,0 +1,143 @@
+package com.TopScoreRanking.entities;
+
+import java.util.Objects;
+
+/**
+ * Class base projection for player's global position by best score.
+ * 
+ * @author Marc Mendez
+ */
+public class PlayerRank {
+
+	// Player name
+	private String player;
+	// Global position (1 is the best player)
+	private int rank;
+	// Player's best score
+	private int bestScore;
+	// Number of ranked players
+	private int totalPlayers;
+	// Player just above (null if first)
+	private PlayerRank above;
+	// Player just below (null if last)
+	private PlayerRank below;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param player       - String
+	 * @param rank         - Integer
+	 * @param bestScore    - Integer
+	 * @param totalPlayers - Integer
+	 */
+	public PlayerRank(String player, int rank, int bestScore, int totalPlayers) {
+		this.player = player;
+		this.rank = rank;
+		this.bestScore = bestScore;
+		this.totalPlayers = totalPlayers;
+	}
+
+	// Get player name
+	public String getPlayer() {
+		return this.player;
+	}
+
+	// Get player's position
+	public int getRank() {
+		return this.rank;
+	}
+
+	// Get player's best score
+	public int getBestScore() {
+		return this.bestScore;
+	}
+
+	// Get number of ranked players
+	public int getTotalPlayers() {
+		return this.totalPlayers;
+	}
+
+	// Get player just above
+	public PlayerRank getAbove() {
+		return this.above;
+	}
+
+	// Get player just below
+	public PlayerRank getBelow() {
+		return this.below;
+	}
+
+	// Set player name
+	public void setPlayer(String player) {
+		this.player = player;
+	}
+
+	// Set player's position
+	public void setRank(int rank) {
+		this.rank = rank;
+	}
+
+	// Set player's best score
+	public void setBestScore(int bestScore) {
+		this.bestScore = bestScore;
+	}
+
+	// Set number of ranked players
+	public void setTotalPlayers(int totalPlayers) {
+		this.totalPlayers = totalPlayers;
+	}
+
+	// Set player just above
+	public void setAbove(PlayerRank above) {
+		this.above = above;
+	}
+
+	// Set player just below
+	public void setBelow(PlayerRank below) {
+		this.below = below;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of PlayerRank
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of PlayerRank, return
+	 *         true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof PlayerRank))
+			return false;
+		PlayerRank rank = (PlayerRank) o;
+		return Objects.equals(this.player, rank.player) && this.rank == rank.rank
+				&& this.bestScore == rank.bestScore && this.totalPlayers == rank.totalPlayers
+				&& Objects.equals(this.above, rank.above) && Objects.equals(this.below, rank.below);
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.player, this.rank, this.bestScore, this.totalPlayers, this.above, this.below);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "PlayerRank{" + "player=" + this.player + ", rank='" + this.rank + '\'' + ", bestScore='"
+				+ this.bestScore + '\'' + ", totalPlayers='" + this.totalPlayers + '\'' + ", above='" + this.above
+				+ '\'' + ", below='" + this.below + '\'' + '}';
+	}
+}
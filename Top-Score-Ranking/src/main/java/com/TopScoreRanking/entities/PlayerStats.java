@@ -0,0 +1,226 @@
+package com.TopScoreRanking.entities;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Entity PlayerStats. Per player aggregate maintained on every ranking write so
+ * history summaries are read in O(1).
+ * 
+ * @author Marc Mendez
+ */
+@Entity
+public class PlayerStats {
+
+	// Normalized player name (Primary key)
+	private @Id String playerKey;
+
+	// Player's name
+	private String player;
+
+	// Number of scores
+	private long scoreCount;
+
+	// Sum of scores
+	private long scoreSum;
+
+	// Worst score and its time
+	private int minScore;
+	private LocalDateTime minTime;
+
+	// Best score and its time
+	private int maxScore;
+	private LocalDateTime maxTime;
+
+	// Latest score time
+	private LocalDateTime lastPlayed;
+
+	/**
+	 * Constructor
+	 */
+	public PlayerStats() {
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param player - String : Player's name
+	 */
+	public PlayerStats(String player) {
+		this.playerKey = Ranking.toPlayerKey(player);
+		this.player = player;
+	}
+
+	/**
+	 * Adds a score to the aggregate
+	 * 
+	 * @param score - Integer
+	 * @param time  - LocalDateTime
+	 */
+	public void add(int score, LocalDateTime time) {
+		if (this.scoreCount == 0 || score > this.maxScore) {
+			this.maxScore = score;
+			this.maxTime = time;
+		}
+		if (this.scoreCount == 0 || score < this.minScore) {
+			this.minScore = score;
+			this.minTime = time;
+		}
+		if (this.lastPlayed == null || (time != null && time.isAfter(this.lastPlayed))) {
+			this.lastPlayed = time;
+		}
+		this.scoreCount++;
+		this.scoreSum += score;
+	}
+
+	/**
+	 * Removes a score from the count and sum. Extremes are left to the caller,
+	 * they only need recomputing when the removed score was one of them.
+	 * 
+	 * @param score - Integer
+	 */
+	public void remove(int score) {
+		this.scoreCount--;
+		this.scoreSum -= score;
+	}
+
+	// Get normalized player name
+	public String getPlayerKey() {
+		return this.playerKey;
+	}
+
+	// Get player name
+	public String getPlayer() {
+		return this.player;
+	}
+
+	// Get number of scores
+	public long getScoreCount() {
+		return this.scoreCount;
+	}
+
+	// Get sum of scores
+	public long getScoreSum() {
+		return this.scoreSum;
+	}
+
+	// Get worst score
+	public int getMinScore() {
+		return this.minScore;
+	}
+
+	// Get worst score time
+	public LocalDateTime getMinTime() {
+		return this.minTime;
+	}
+
+	// Get best score
+	public int getMaxScore() {
+		return this.maxScore;
+	}
+
+	// Get best score time
+	public LocalDateTime getMaxTime() {
+		return this.maxTime;
+	}
+
+	// Get latest score time
+	public LocalDateTime getLastPlayed() {
+		return this.lastPlayed;
+	}
+
+	// Set normalized player name
+	public void setPlayerKey(String playerKey) {
+		this.playerKey = playerKey;
+	}
+
+	// Set player name
+	public void setPlayer(String player) {
+		this.player = player;
+	}
+
+	// Set number of scores
+	public void setScoreCount(long scoreCount) {
+		this.scoreCount = scoreCount;
+	}
+
+	// Set sum of scores
+	public void setScoreSum(long scoreSum) {
+		this.scoreSum = scoreSum;
+	}
+
+	// Set worst score
+	public void setMinScore(int minScore) {
+		this.minScore = minScore;
+	}
+
+	// Set worst score time
+	public void setMinTime(LocalDateTime minTime) {
+		this.minTime = minTime;
+	}
+
+	// Set best score
+	public void setMaxScore(int maxScore) {
+		this.maxScore = maxScore;
+	}
+
+	// Set best score time
+	public void setMaxTime(LocalDateTime maxTime) {
+		this.maxTime = maxTime;
+	}
+
+	// Set latest score time
+	public void setLastPlayed(LocalDateTime lastPlayed) {
+		this.lastPlayed = lastPlayed;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of PlayerStats
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of PlayerStats, return
+	 *         true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof PlayerStats))
+			return false;
+		PlayerStats stats = (PlayerStats) o;
+		return Objects.equals(this.playerKey, stats.playerKey) && Objects.equals(this.player, stats.player)
+				&& this.scoreCount == stats.scoreCount && this.scoreSum == stats.scoreSum
+				&& this.minScore == stats.minScore && Objects.equals(this.minTime, stats.minTime)
+				&& this.maxScore == stats.maxScore && Objects.equals(this.maxTime, stats.maxTime)
+				&& Objects.equals(this.lastPlayed, stats.lastPlayed);
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.playerKey, this.player, this.scoreCount, this.scoreSum, this.minScore, this.minTime,
+				this.maxScore, this.maxTime, this.lastPlayed);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "PlayerStats{" + "playerKey=" + this.playerKey + ", player='" + this.player + '\'' + ", scoreCount='"
+				+ this.scoreCount + '\'' + ", scoreSum='" + this.scoreSum + '\'' + ", minScore='" + this.minScore
+				+ '\'' + ", maxScore='" + this.maxScore + '\'' + ", lastPlayed='" + this.lastPlayed + '\'' + '}';
+	}
+}
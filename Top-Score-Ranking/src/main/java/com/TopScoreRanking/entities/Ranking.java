@@ -1,13 +1,19 @@
 package com.TopScoreRanking.entities;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.Objects;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Entity Ranking
@@ -15,14 +21,28 @@ import com.fasterxml.jackson.annotation.JsonFormat;
  * @author Marc Mendez
  */
 @Entity
+@Table(indexes = { @Index(name = "idx_ranking_player_id_time", columnList = "playerId, time"),
+		@Index(name = "idx_ranking_player_id_score", columnList = "playerId, score"),
+		@Index(name = "idx_ranking_score_time", columnList = "score DESC, time, id") })
 public class Ranking {
 
-	// ID (Primary key)
-	private @Id @GeneratedValue Long id;
+	// ID sequence and IDs allocated per sequence call (seeded on startup, see RankingIdSequence)
+	public static final String ID_SEQUENCE = "ranking_seq";
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	// ID (Primary key), allocated from a pooled sequence so inserts do not fetch one ID per row
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+	@SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
+	private Long id;
 
 	// Player's name
 	private String player;
 
+	// Player ID in the Player dictionary (indexed, used by every player search)
+	@JsonIgnore
+	private Integer playerId;
+
 	// Player's score
 	private int score;
 
@@ -59,6 +79,12 @@ public class Ranking {
 		return this.player;
 	}
 
+	// Get player ID in the Player dictionary
+	@JsonIgnore
+	public Integer getPlayerId() {
+		return this.playerId;
+	}
+
 	// Get player score
 	public Integer getScore() {
 		return this.score;
@@ -79,6 +105,12 @@ public class Ranking {
 		this.player = player;
 	}
 
+	// Set player ID in the Player dictionary
+	@JsonIgnore
+	public void setPlayerId(Integer playerId) {
+		this.playerId = playerId;
+	}
+
 	// Set player score
 	public void setScore(Integer score) {
 		this.score = score;
@@ -89,6 +121,16 @@ public class Ranking {
 		this.time = time;
 	}
 
+	/**
+	 * Normalized player name. "Edo", "edo" and "EDO" are the same player.
+	 * 
+	 * @param player - String : Player's name
+	 * @return String - Case folded player name
+	 */
+	public static String toPlayerKey(String player) {
+		return player == null ? null : player.toUpperCase(Locale.ROOT);
+	}
+
 	/**
 	 * Override for custom equals method. Checks if the passed object is equal to
 	 * the instance of Ranking
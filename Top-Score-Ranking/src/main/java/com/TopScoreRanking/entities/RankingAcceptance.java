@@ -0,0 +1,104 @@
+package com.TopScoreRanking.entities;
+
+import java.util.Objects;
+
+/**
+ * Acknowledgement of a ranking record accepted by the write-behind ingestion
+ * queue (not yet stored)
+ * 
+ * @author Marc Mendez
+ */
+public class RankingAcceptance {
+
+	// Accepted ID (ticket), unique for the lifetime of the application
+	private long ticket;
+	// Accepted ranking record
+	private Ranking ranking;
+	// Records waiting to be written, including this one
+	private int queueDepth;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param ticket     - Long
+	 * @param ranking    - Ranking
+	 * @param queueDepth - Integer
+	 */
+	public RankingAcceptance(long ticket, Ranking ranking, int queueDepth) {
+		this.ticket = ticket;
+		this.ranking = ranking;
+		this.queueDepth = queueDepth;
+	}
+
+	// Get accepted ID
+	public long getTicket() {
+		return this.ticket;
+	}
+
+	// Get accepted ranking record
+	public Ranking getRanking() {
+		return this.ranking;
+	}
+
+	// Get records waiting to be written
+	public int getQueueDepth() {
+		return this.queueDepth;
+	}
+
+	// Set accepted ID
+	public void setTicket(long ticket) {
+		this.ticket = ticket;
+	}
+
+	// Set accepted ranking record
+	public void setRanking(Ranking ranking) {
+		this.ranking = ranking;
+	}
+
+	// Set records waiting to be written
+	public void setQueueDepth(int queueDepth) {
+		this.queueDepth = queueDepth;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of RankingAcceptance
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of RankingAcceptance,
+	 *         return true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof RankingAcceptance))
+			return false;
+		RankingAcceptance acceptance = (RankingAcceptance) o;
+		return this.ticket == acceptance.ticket && Objects.equals(this.ranking, acceptance.ranking)
+				&& this.queueDepth == acceptance.queueDepth;
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.ticket, this.ranking, this.queueDepth);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "RankingAcceptance{" + "ticket=" + this.ticket + ", ranking='" + this.ranking + '\''
+				+ ", queueDepth='" + this.queueDepth + '\'' + '}';
+	}
+}
@@ -0,0 +1,144 @@
+package com.TopScoreRanking.entities;
+
+import java.util.Objects;
+
+/**
+ * Result of a single ranking record of a batch registration
+ * 
+ * @author Marc Mendez
+ */
+public class RankingBatchResult {
+
+	// Record was stored
+	public static final String CREATED = "CREATED";
+	// Record was not stored
+	public static final String REJECTED = "REJECTED";
+
+	// Position of the record in the request (zero base)
+	private int index;
+	// Generated ranking ID (null if rejected)
+	private Long id;
+	// CREATED or REJECTED
+	private String status;
+	// Reason of the rejection
+	private String message;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param index   - Integer
+	 * @param id      - Long
+	 * @param status  - String
+	 * @param message - String
+	 */
+	public RankingBatchResult(int index, Long id, String status, String message) {
+		this.index = index;
+		this.id = id;
+		this.status = status;
+		this.message = message;
+	}
+
+	/**
+	 * Result of a stored record
+	 * 
+	 * @param index - Integer : Position of the record in the request
+	 * @param id    - Long : Generated ranking ID
+	 * @return RankingBatchResult
+	 */
+	public static RankingBatchResult created(int index, Long id) {
+		return new RankingBatchResult(index, id, CREATED, null);
+	}
+
+	/**
+	 * Result of a rejected record
+	 * 
+	 * @param index   - Integer : Position of the record in the request
+	 * @param message - String : Reason of the rejection
+	 * @return RankingBatchResult
+	 */
+	public static RankingBatchResult rejected(int index, String message) {
+		return new RankingBatchResult(index, null, REJECTED, message);
+	}
+
+	// Get position of the record in the request
+	public int getIndex() {
+		return this.index;
+	}
+
+	// Get generated ranking ID
+	public Long getId() {
+		return this.id;
+	}
+
+	// Get status
+	public String getStatus() {
+		return this.status;
+	}
+
+	// Get reason of the rejection
+	public String getMessage() {
+		return this.message;
+	}
+
+	// Set position of the record in the request
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	// Set generated ranking ID
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	// Set status
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	// Set reason of the rejection
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of RankingBatchResult
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of RankingBatchResult,
+	 *         return true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof RankingBatchResult))
+			return false;
+		RankingBatchResult result = (RankingBatchResult) o;
+		return this.index == result.index && Objects.equals(this.id, result.id)
+				&& Objects.equals(this.status, result.status) && Objects.equals(this.message, result.message);
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.index, this.id, this.status, this.message);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "RankingBatchResult{" + "index=" + this.index + ", id='" + this.id + '\'' + ", status='" + this.status
+				+ '\'' + ", message='" + this.message + '\'' + '}';
+	}
+}
@@ -0,0 +1,135 @@
+package com.TopScoreRanking.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Leaderboard changes pushed to a subscriber, coalesced over one or more ticks
+ * 
+ * @author Marc Mendez
+ */
+public class RankingDelta {
+
+	// Tick that produced the delta (increasing, gaps when ticks were coalesced)
+	private long sequence;
+	// Saved ranking records of the watched players
+	private List<Ranking> saved = new ArrayList<Ranking>();
+	// Deleted ranking IDs of the watched players
+	private List<Long> deleted = new ArrayList<Long>();
+	// Current top N, null when unchanged (or not subscribed)
+	private List<Ranking> top;
+	// Changes were dropped because the subscriber fell behind, data must be reloaded
+	private boolean resync;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param sequence - Long
+	 */
+	public RankingDelta(long sequence) {
+		this.sequence = sequence;
+	}
+
+	/**
+	 * Checks if the delta carries nothing
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.saved.isEmpty() && this.deleted.isEmpty() && this.top == null && !this.resync;
+	}
+
+	// Get tick sequence
+	public long getSequence() {
+		return this.sequence;
+	}
+
+	// Get saved ranking records
+	public List<Ranking> getSaved() {
+		return this.saved;
+	}
+
+	// Get deleted ranking IDs
+	public List<Long> getDeleted() {
+		return this.deleted;
+	}
+
+	// Get current top N
+	public List<Ranking> getTop() {
+		return this.top;
+	}
+
+	// Get resync flag
+	public boolean isResync() {
+		return this.resync;
+	}
+
+	// Set tick sequence
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	// Set saved ranking records
+	public void setSaved(List<Ranking> saved) {
+		this.saved = saved;
+	}
+
+	// Set deleted ranking IDs
+	public void setDeleted(List<Long> deleted) {
+		this.deleted = deleted;
+	}
+
+	// Set current top N
+	public void setTop(List<Ranking> top) {
+		this.top = top;
+	}
+
+	// Set resync flag
+	public void setResync(boolean resync) {
+		this.resync = resync;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of RankingDelta
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of RankingDelta, return
+	 *         true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof RankingDelta))
+			return false;
+		RankingDelta delta = (RankingDelta) o;
+		return this.sequence == delta.sequence && Objects.equals(this.saved, delta.saved)
+				&& Objects.equals(this.deleted, delta.deleted) && Objects.equals(this.top, delta.top)
+				&& this.resync == delta.resync;
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.sequence, this.saved, this.deleted, this.top, this.resync);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "RankingDelta{" + "sequence=" + this.sequence + ", saved='" + this.saved + '\'' + ", deleted='"
+				+ this.deleted + '\'' + ", top='" + this.top + '\'' + ", resync='" + this.resync + '\'' + '}';
+	}
+}
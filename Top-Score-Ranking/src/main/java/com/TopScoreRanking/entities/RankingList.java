@@ -0,0 +1,90 @@
+package com.TopScoreRanking.entities;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact list of ranking records, without per-record links. Links are given
+ * once for the whole list as URI templates (e.g. {id}, {player}).
+ * 
+ * @author Marc Mendez
+ */
+public class RankingList {
+
+	// Ranking records
+	private List<Ranking> items;
+	// Collection-level links and URI templates by relation
+	private Map<String, String> links;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param items - List<Ranking>
+	 * @param links - Map<String, String>
+	 */
+	public RankingList(List<Ranking> items, Map<String, String> links) {
+		this.items = items;
+		this.links = links;
+	}
+
+	// Get ranking records
+	public List<Ranking> getItems() {
+		return this.items;
+	}
+
+	// Get links
+	public Map<String, String> getLinks() {
+		return this.links;
+	}
+
+	// Set ranking records
+	public void setItems(List<Ranking> items) {
+		this.items = items;
+	}
+
+	// Set links
+	public void setLinks(Map<String, String> links) {
+		this.links = links;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of RankingList
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of RankingList, return
+	 *         true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof RankingList))
+			return false;
+		RankingList list = (RankingList) o;
+		return Objects.equals(this.items, list.items) && Objects.equals(this.links, list.links);
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.items, this.links);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "RankingList{" + "items=" + this.items + ", links=" + this.links + '}';
+	}
+}
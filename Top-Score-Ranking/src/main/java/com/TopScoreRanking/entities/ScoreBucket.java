@@ -0,0 +1,103 @@
+package com.TopScoreRanking.entities;
+
+import java.util.Objects;
+
+/**
+ * Number of scores in a range [from, to) of a score distribution
+ * 
+ * @author Marc Mendez
+ */
+public class ScoreBucket {
+
+	// Lowest score of the range, null for the first range
+	private Integer from;
+	// Score above the range (excluded), null for the last range
+	private Integer to;
+	// Number of scores in the range
+	private long count;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param from  - Integer
+	 * @param to    - Integer
+	 * @param count - Long
+	 */
+	public ScoreBucket(Integer from, Integer to, long count) {
+		this.from = from;
+		this.to = to;
+		this.count = count;
+	}
+
+	// Get lowest score of the range
+	public Integer getFrom() {
+		return this.from;
+	}
+
+	// Get score above the range
+	public Integer getTo() {
+		return this.to;
+	}
+
+	// Get number of scores
+	public long getCount() {
+		return this.count;
+	}
+
+	// Set lowest score of the range
+	public void setFrom(Integer from) {
+		this.from = from;
+	}
+
+	// Set score above the range
+	public void setTo(Integer to) {
+		this.to = to;
+	}
+
+	// Set number of scores
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of ScoreBucket
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of ScoreBucket, return
+	 *         true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof ScoreBucket))
+			return false;
+		ScoreBucket bucket = (ScoreBucket) o;
+		return Objects.equals(this.from, bucket.from) && Objects.equals(this.to, bucket.to)
+				&& this.count == bucket.count;
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.from, this.to, this.count);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "ScoreBucket{" + "from=" + this.from + ", to='" + this.to + '\'' + ", count='" + this.count + '\''
+				+ '}';
+	}
+}
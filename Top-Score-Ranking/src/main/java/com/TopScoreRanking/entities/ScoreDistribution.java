@@ -0,0 +1,119 @@
+package com.TopScoreRanking.entities;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Score histogram of every record, of a player or of the current day, week or
+ * month
+ * 
+ * @author Marc Mendez
+ */
+public class ScoreDistribution {
+
+	// Player's name, null for every player
+	private String player;
+	// Leaderboard window (daily, weekly, monthly or alltime)
+	private String window;
+	// Number of scores
+	private long count;
+	// Score ranges in ascending order
+	private List<ScoreBucket> buckets;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param player  - String
+	 * @param window  - String
+	 * @param count   - Long
+	 * @param buckets - List<ScoreBucket>
+	 */
+	public ScoreDistribution(String player, String window, long count, List<ScoreBucket> buckets) {
+		this.player = player;
+		this.window = window;
+		this.count = count;
+		this.buckets = buckets;
+	}
+
+	// Get player's name
+	public String getPlayer() {
+		return this.player;
+	}
+
+	// Get leaderboard window
+	public String getWindow() {
+		return this.window;
+	}
+
+	// Get number of scores
+	public long getCount() {
+		return this.count;
+	}
+
+	// Get score ranges
+	public List<ScoreBucket> getBuckets() {
+		return this.buckets;
+	}
+
+	// Set player's name
+	public void setPlayer(String player) {
+		this.player = player;
+	}
+
+	// Set leaderboard window
+	public void setWindow(String window) {
+		this.window = window;
+	}
+
+	// Set number of scores
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	// Set score ranges
+	public void setBuckets(List<ScoreBucket> buckets) {
+		this.buckets = buckets;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of ScoreDistribution
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of ScoreDistribution,
+	 *         return true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof ScoreDistribution))
+			return false;
+		ScoreDistribution distribution = (ScoreDistribution) o;
+		return Objects.equals(this.player, distribution.player) && Objects.equals(this.window, distribution.window)
+				&& this.count == distribution.count && Objects.equals(this.buckets, distribution.buckets);
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.player, this.window, this.count, this.buckets);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "ScoreDistribution{" + "player=" + this.player + ", window='" + this.window + '\'' + ", count='"
+				+ this.count + '\'' + ", buckets='" + this.buckets + '\'' + '}';
+	}
+}
@@ -0,0 +1,117 @@
+package com.TopScoreRanking.entities;
+
+import java.util.Objects;
+
+/**
+ * Approximate percentile rank of a score ("you beat 87% of the scores")
+ * 
+ * @author Marc Mendez
+ */
+public class ScorePercentile {
+
+	// Requested score
+	private int score;
+	// Share of the stored scores strictly lower than the score (0 to 100)
+	private double percentile;
+	// Error bound of the percentile (+/- percentage points)
+	private double error;
+	// Number of stored scores
+	private long count;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param score      - Integer
+	 * @param percentile - Double
+	 * @param error      - Double
+	 * @param count      - Long
+	 */
+	public ScorePercentile(int score, double percentile, double error, long count) {
+		this.score = score;
+		this.percentile = percentile;
+		this.error = error;
+		this.count = count;
+	}
+
+	// Get requested score
+	public int getScore() {
+		return this.score;
+	}
+
+	// Get percentile
+	public double getPercentile() {
+		return this.percentile;
+	}
+
+	// Get error bound
+	public double getError() {
+		return this.error;
+	}
+
+	// Get number of stored scores
+	public long getCount() {
+		return this.count;
+	}
+
+	// Set requested score
+	public void setScore(int score) {
+		this.score = score;
+	}
+
+	// Set percentile
+	public void setPercentile(double percentile) {
+		this.percentile = percentile;
+	}
+
+	// Set error bound
+	public void setError(double error) {
+		this.error = error;
+	}
+
+	// Set number of stored scores
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	/**
+	 * Override for custom equals method. Checks if the passed object is equal to
+	 * the instance of ScorePercentile
+	 * 
+	 * @param object
+	 * @return boolean - if object is equal to the instance of ScorePercentile,
+	 *         return true, Else false
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o)
+			return true;
+		if (!(o instanceof ScorePercentile))
+			return false;
+		ScorePercentile percentile = (ScorePercentile) o;
+		return this.score == percentile.score && Double.compare(this.percentile, percentile.percentile) == 0
+				&& Double.compare(this.error, percentile.error) == 0 && this.count == percentile.count;
+	}
+
+	/**
+	 * Override for custom hashCode method. Returns a hash code value.
+	 * 
+	 * @return integer
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.score, this.percentile, this.error, this.count);
+	}
+
+	/**
+	 * Override for custom toString method. Returns a string representation of the
+	 * object.
+	 * 
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "ScorePercentile{" + "score=" + this.score + ", percentile='" + this.percentile + '\'' + ", error='"
+				+ this.error + '\'' + ", count='" + this.count + '\'' + '}';
+	}
+}
@@ -0,0 +1,21 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when a request bulkhead has no room for another request
+ * 
+ * @author Marc Mendez
+ */
+public class BulkheadFullException extends RuntimeException {
+
+	private static final long serialVersionUID = 8146302957731684029L;
+
+	/**
+	 * If the bulkhead's queue is at capacity
+	 * 
+	 * @param bulkhead - bulkhead name
+	 * @param capacity - queue capacity
+	 */
+	public BulkheadFullException(String bulkhead, int capacity) {
+		super("Too many " + bulkhead + " requests (" + capacity + " waiting), retry later");
+	}
+}
@@ -0,0 +1,20 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when too many batch history searches are running
+ * 
+ * @author Marc Mendez
+ */
+public class HistoryBatchLimitException extends RuntimeException {
+
+	private static final long serialVersionUID = 3871620945126390584L;
+
+	/**
+	 * If the number of running batch history searches is at its maximum
+	 * 
+	 * @param maxConcurrent - maximum number of running searches
+	 */
+	public HistoryBatchLimitException(int maxConcurrent) {
+		super("Too many batch history searches (" + maxConcurrent + "), retry later");
+	}
+}
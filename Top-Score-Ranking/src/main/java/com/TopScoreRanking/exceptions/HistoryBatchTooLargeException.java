@@ -0,0 +1,20 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when a batch history search asks for too many players
+ * 
+ * @author Marc Mendez
+ */
+public class HistoryBatchTooLargeException extends RuntimeException {
+
+	private static final long serialVersionUID = -2284937650198234716L;
+
+	/**
+	 * If the number of players is over the maximum of a batch
+	 * 
+	 * @param maxPlayers - maximum number of players
+	 */
+	public HistoryBatchTooLargeException(int maxPlayers) {
+		super("Too many players, a batch history search is limited to " + maxPlayers + " players");
+	}
+}
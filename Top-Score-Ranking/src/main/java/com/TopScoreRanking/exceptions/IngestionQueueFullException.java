@@ -0,0 +1,20 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when the write-behind ingestion queue cannot accept more records
+ * 
+ * @author Marc Mendez
+ */
+public class IngestionQueueFullException extends RuntimeException {
+
+	private static final long serialVersionUID = -2470962129845627915L;
+
+	/**
+	 * If the queue is at capacity
+	 * 
+	 * @param capacity - queue capacity
+	 */
+	public IngestionQueueFullException(int capacity) {
+		super("Ingestion queue is full (" + capacity + " pending records), retry later");
+	}
+}
@@ -0,0 +1,20 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when a pagination cursor cannot be decoded
+ * 
+ * @author Marc Mendez
+ */
+public class InvalidCursorException extends RuntimeException {
+
+	private static final long serialVersionUID = 3158730612946409752L;
+
+	/**
+	 * If the "after" token was not issued by this API
+	 * 
+	 * @param cursor - pagination cursor
+	 */
+	public InvalidCursorException(String cursor) {
+		super("Invalid pagination cursor: " + cursor);
+	}
+}
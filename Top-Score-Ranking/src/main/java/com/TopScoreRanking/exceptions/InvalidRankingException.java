@@ -0,0 +1,20 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when a ranking record cannot be registered
+ * 
+ * @author Marc Mendez
+ */
+public class InvalidRankingException extends RuntimeException {
+
+	private static final long serialVersionUID = -6083317946027445617L;
+
+	/**
+	 * If the ranking record is missing a player or has a score lower than 1
+	 * 
+	 * @param reason - reason of the rejection
+	 */
+	public InvalidRankingException(String reason) {
+		super("Invalid ranking record: " + reason);
+	}
+}
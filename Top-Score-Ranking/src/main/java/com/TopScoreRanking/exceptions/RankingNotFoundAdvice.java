@@ -1,6 +1,8 @@
 package com.TopScoreRanking.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -52,4 +54,117 @@ class RankingNotFoundAdvice {
 	String historyNotFoundHandler(HistoryNotFoundException ex) {
 		return ex.getMessage();
 	}
+
+	/**
+	 * InvalidCursorException Handler
+	 * 
+	 * @param ex - InvalidCursorException : Pagination cursor could not be decoded
+	 * @return String - Error message
+	 */
+	@ResponseBody
+	@ExceptionHandler(InvalidCursorException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String invalidCursorHandler(InvalidCursorException ex) {
+		return ex.getMessage();
+	}
+
+	/**
+	 * IngestionQueueFullException Handler
+	 * 
+	 * @param ex - IngestionQueueFullException : Write-behind queue is at capacity
+	 * @return ResponseEntity<String> - Error message with a Retry-After header
+	 */
+	@ExceptionHandler(IngestionQueueFullException.class)
+	ResponseEntity<String> ingestionQueueFullHandler(IngestionQueueFullException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ex.getMessage());
+	}
+
+	/**
+	 * InvalidRankingException Handler
+	 * 
+	 * @param ex - InvalidRankingException : Ranking record cannot be registered
+	 * @return String - Error message
+	 */
+	@ResponseBody
+	@ExceptionHandler(InvalidRankingException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String invalidRankingHandler(InvalidRankingException ex) {
+		return ex.getMessage();
+	}
+
+	/**
+	 * WindowNotFoundException Handler
+	 * 
+	 * @param ex - WindowNotFoundException : Leaderboard window does not exist
+	 * @return String - Error message
+	 */
+	@ResponseBody
+	@ExceptionHandler(WindowNotFoundException.class)
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	String windowNotFoundHandler(WindowNotFoundException ex) {
+		return ex.getMessage();
+	}
+
+	/**
+	 * TopLimitException Handler
+	 * 
+	 * @param ex - TopLimitException : More records asked than the leaderboard keeps
+	 * @return String - Error message
+	 */
+	@ResponseBody
+	@ExceptionHandler(TopLimitException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String topLimitHandler(TopLimitException ex) {
+		return ex.getMessage();
+	}
+
+	/**
+	 * SubscriptionLimitException Handler
+	 * 
+	 * @param ex - SubscriptionLimitException : Change stream is at its subscriber limit
+	 * @return ResponseEntity<String> - Error message with a Retry-After header
+	 */
+	@ExceptionHandler(SubscriptionLimitException.class)
+	ResponseEntity<String> subscriptionLimitHandler(SubscriptionLimitException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+				.body(ex.getMessage());
+	}
+
+	/**
+	 * HistoryBatchTooLargeException Handler
+	 * 
+	 * @param ex - HistoryBatchTooLargeException : Batch history search asks for too many players
+	 * @return String - Error message
+	 */
+	@ResponseBody
+	@ExceptionHandler(HistoryBatchTooLargeException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String historyBatchTooLargeHandler(HistoryBatchTooLargeException ex) {
+		return ex.getMessage();
+	}
+
+	/**
+	 * HistoryBatchLimitException Handler
+	 * 
+	 * @param ex - HistoryBatchLimitException : Batch history searches are at their limit
+	 * @return ResponseEntity<String> - Error message with a Retry-After header
+	 */
+	@ExceptionHandler(HistoryBatchLimitException.class)
+	ResponseEntity<String> historyBatchLimitHandler(HistoryBatchLimitException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ex.getMessage());
+	}
+
+	/**
+	 * BulkheadFullException Handler
+	 * 
+	 * @param ex - BulkheadFullException : Request bulkhead is at capacity
+	 * @return ResponseEntity<String> - Error message with a Retry-After header
+	 */
+	@ExceptionHandler(BulkheadFullException.class)
+	ResponseEntity<String> bulkheadFullHandler(BulkheadFullException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ex.getMessage());
+	}
 }
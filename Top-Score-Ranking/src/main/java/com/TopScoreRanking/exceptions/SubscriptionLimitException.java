@@ -0,0 +1,21 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when the leaderboard change stream has no room for another
+ * subscriber
+ * 
+ * @author Marc Mendez
+ */
+public class SubscriptionLimitException extends RuntimeException {
+
+	private static final long serialVersionUID = 6094587320519436218L;
+
+	/**
+	 * If the number of subscribers is at its maximum
+	 * 
+	 * @param maxSubscribers - maximum number of subscribers
+	 */
+	public SubscriptionLimitException(int maxSubscribers) {
+		super("Too many subscribers (" + maxSubscribers + "), retry later");
+	}
+}
@@ -0,0 +1,20 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when a leaderboard read asks for more records than are kept
+ * 
+ * @author Marc Mendez
+ */
+public class TopLimitException extends RuntimeException {
+
+	private static final long serialVersionUID = -6107245983314579023L;
+
+	/**
+	 * If n is over the records kept by the leaderboard
+	 * 
+	 * @param limit - largest n served
+	 */
+	public TopLimitException(int limit) {
+		super("Too many records, n is limited to " + limit);
+	}
+}
@@ -0,0 +1,20 @@
+package com.TopScoreRanking.exceptions;
+
+/**
+ * Exception when a leaderboard window does not exist
+ * 
+ * @author Marc Mendez
+ */
+public class WindowNotFoundException extends RuntimeException {
+
+	private static final long serialVersionUID = -2290534106872961407L;
+
+	/**
+	 * If the window is not daily, weekly, monthly or alltime
+	 * 
+	 * @param window - window name
+	 */
+	public WindowNotFoundException(String window) {
+		super("Could not find leaderboard window: " + window + " (daily, weekly, monthly or alltime)");
+	}
+}
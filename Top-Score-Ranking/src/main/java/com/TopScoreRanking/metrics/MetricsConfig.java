@@ -0,0 +1,111 @@
+package com.TopScoreRanking.metrics;
+
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.Repository;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.util.ClassUtils;
+
+import com.TopScoreRanking.cache.BoundedCache;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.service.PlayerDictionary;
+import com.TopScoreRanking.service.RankingIngestionQueue;
+import com.TopScoreRanking.service.RequestBulkheads;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Application metrics, exported with the JVM, HTTP and connection pool ones
+ * at /actuator/prometheus. Repository queries and assemblers are timed per
+ * method on a sample of the calls (ranking.metrics.sample-rate, 0 leaves the
+ * beans unwrapped).
+ *
+ * @author Marc Mendez
+ */
+@Configuration
+public class MetricsConfig {
+
+	/**
+	 * Times the Spring Data repositories (with the number of rows returned) and
+	 * the RESTful assemblers
+	 *
+	 * @param registry   - ObjectProvider<MeterRegistry> : Resolved on the first sampled call
+	 * @param sampleRate - Double : Fraction of the calls measured (0 to 1)
+	 * @return BeanPostProcessor
+	 */
+	@Bean
+	public static BeanPostProcessor timingPostProcessor(ObjectProvider<MeterRegistry> registry,
+			@Value("${ranking.metrics.sample-rate:1.0}") double sampleRate) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (sampleRate <= 0) {
+					return bean;
+				}
+				if (bean instanceof Repository && bean instanceof Advised && !((Advised) bean).isFrozen()) {
+					// Spring Data proxy, the timing wraps the transaction and the query
+					((Advised) bean).addAdvice(0, new TimingInterceptor(registry, "ranking.repository.query",
+							"repository", repositoryName((Advised) bean), "ranking.repository.rows", sampleRate));
+					return bean;
+				}
+				if (bean instanceof RepresentationModelAssembler) {
+					ProxyFactory proxy = new ProxyFactory(bean);
+					proxy.setProxyTargetClass(true);
+					proxy.addAdvice(new TimingInterceptor(registry, "ranking.assembler", "assembler",
+							ClassUtils.getUserClass(bean).getSimpleName(), null, sampleRate));
+					return proxy.getProxy(ClassUtils.getUserClass(bean).getClassLoader());
+				}
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * Depth of the write-behind queue and of the request bulkheads, size of the
+	 * caches and of the player dictionary
+	 *
+	 * @param ingestionQueue - RankingIngestionQueue
+	 * @param bulkheads      - RequestBulkheads
+	 * @param recordCache    - BoundedCache<Long, Ranking>
+	 * @param historyCache   - BoundedCache<String, RankingHistory>
+	 * @param players        - PlayerDictionary
+	 * @return MeterBinder
+	 */
+	@Bean
+	public MeterBinder rankingGauges(RankingIngestionQueue ingestionQueue, RequestBulkheads bulkheads,
+			BoundedCache<Long, Ranking> recordCache, BoundedCache<String, RankingHistory> historyCache,
+			PlayerDictionary players) {
+		return registry -> {
+			Gauge.builder("ranking.ingest.queue.depth", ingestionQueue, RankingIngestionQueue::depth)
+					.register(registry);
+			for (String bulkhead : new String[] { RequestBulkheads.READ, RequestBulkheads.HISTORY,
+					RequestBulkheads.WRITE }) {
+				Gauge.builder("ranking.async.queued", bulkheads, target -> target.queued(bulkhead))
+						.tag("bulkhead", bulkhead).register(registry);
+			}
+			Gauge.builder("ranking.cache.size", recordCache, cache -> cache.size()).tag("cache", "record")
+					.register(registry);
+			Gauge.builder("ranking.cache.size", historyCache, cache -> cache.size()).tag("cache", "history")
+					.register(registry);
+			Gauge.builder("ranking.players", players, PlayerDictionary::size).register(registry);
+		};
+	}
+
+	// Repository interface of a Spring Data proxy (RankingRepository, ...)
+	private static String repositoryName(Advised repository) {
+		for (Class<?> type : repository.getProxiedInterfaces()) {
+			if (Repository.class.isAssignableFrom(type) && type.getName().startsWith("com.TopScoreRanking")) {
+				return type.getSimpleName();
+			}
+		}
+		return "Repository";
+	}
+}
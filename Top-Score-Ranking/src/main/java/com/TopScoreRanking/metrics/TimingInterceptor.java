@@ -0,0 +1,137 @@
+package com.TopScoreRanking.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Slice;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the calls of one bean, per method, and optionally counts the rows
+ * they return. Only a sample of the calls is measured (ranking.metrics.sample-rate),
+ * the others cost one random draw.
+ *
+ * @author Marc Mendez
+ */
+class TimingInterceptor implements MethodInterceptor {
+
+	private final ObjectProvider<MeterRegistry> registry;
+
+	// Timer name, tag of the bean and its value
+	private final String timerName;
+	private final String beanTag;
+	private final String beanName;
+
+	// Row count name (null when rows are not counted)
+	private final String rowsName;
+
+	private final double sampleRate;
+
+	// Meters per method, built on the first sampled call
+	private final Map<Method, Meters> meters = new ConcurrentHashMap<Method, Meters>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param registry   - ObjectProvider<MeterRegistry> : Resolved on the first sampled call
+	 * @param timerName  - String : Timer name
+	 * @param beanTag    - String : Tag holding the bean name (repository, assembler)
+	 * @param beanName   - String : Simple name of the timed bean
+	 * @param rowsName   - String : Row count name (null to skip)
+	 * @param sampleRate - Double : Fraction of the calls measured (0 to 1)
+	 */
+	TimingInterceptor(ObjectProvider<MeterRegistry> registry, String timerName, String beanTag, String beanName,
+			String rowsName, double sampleRate) {
+		this.registry = registry;
+		this.timerName = timerName;
+		this.beanTag = beanTag;
+		this.beanName = beanName;
+		this.rowsName = rowsName;
+		this.sampleRate = sampleRate;
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Method method = invocation.getMethod();
+		if (method.getDeclaringClass() == Object.class || !sampled()) {
+			return invocation.proceed();
+		}
+
+		Meters methodMeters = meters.computeIfAbsent(method, this::register);
+		long start = System.nanoTime();
+		try {
+			Object result = invocation.proceed();
+			methodMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			if (methodMeters.rows != null) {
+				long rows = rows(result);
+				if (rows >= 0) {
+					methodMeters.rows.record(rows);
+				}
+			}
+			return result;
+		} catch (Throwable e) {
+			methodMeters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			throw e;
+		}
+	}
+
+	private boolean sampled() {
+		return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+	}
+
+	private Meters register(Method method) {
+		MeterRegistry meterRegistry = registry.getObject();
+		Timer success = Timer.builder(timerName).tag(beanTag, beanName).tag("method", method.getName())
+				.tag("outcome", "SUCCESS").register(meterRegistry);
+		Timer error = Timer.builder(timerName).tag(beanTag, beanName).tag("method", method.getName())
+				.tag("outcome", "ERROR").register(meterRegistry);
+		DistributionSummary rows = rowsName == null || method.getReturnType() == void.class ? null
+				: DistributionSummary.builder(rowsName).baseUnit("rows").tag(beanTag, beanName)
+						.tag("method", method.getName()).register(meterRegistry);
+		return new Meters(success, error, rows);
+	}
+
+	// Rows of a query result, -1 when the result is not a set of rows (streams are consumed later)
+	private static long rows(Object result) {
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).size();
+		}
+		if (result instanceof Slice) {
+			return ((Slice<?>) result).getNumberOfElements();
+		}
+		if (result instanceof Optional) {
+			return ((Optional<?>) result).isPresent() ? 1 : 0;
+		}
+		if (result instanceof Iterable || result instanceof Stream) {
+			return -1;
+		}
+		return result == null ? 0 : 1;
+	}
+
+	/**
+	 * Meters of one method
+	 */
+	private static final class Meters {
+		private final Timer success;
+		private final Timer error;
+		private final DistributionSummary rows;
+
+		private Meters(Timer success, Timer error, DistributionSummary rows) {
+			this.success = success;
+			this.error = error;
+			this.rows = rows;
+		}
+	}
+}
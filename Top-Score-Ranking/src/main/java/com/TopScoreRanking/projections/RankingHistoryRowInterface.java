@@ -0,0 +1,16 @@
+package com.TopScoreRanking.projections;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Interface-based projection for RankingHistory(List) carrying the player
+ * name, so history can be aggregated from a single query
+ * 
+ * @author Marc Mendez
+ */
+public interface RankingHistoryRowInterface extends RankingHistoryListInterface {
+	@JsonIgnore
+	String getPlayer();
+
+	void setPlayer(String player);
+}
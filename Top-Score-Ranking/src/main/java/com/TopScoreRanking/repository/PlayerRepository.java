@@ -0,0 +1,18 @@
+package com.TopScoreRanking.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.TopScoreRanking.entities.Player;
+
+/**
+ * JPA Repository for the player dictionary
+ * 
+ * @author Marc Mendez
+ */
+public interface PlayerRepository extends JpaRepository<Player, Integer> {
+
+	// select player by player key (normalized player name)
+	Optional<Player> findByPlayerKey(String playerKey);
+}
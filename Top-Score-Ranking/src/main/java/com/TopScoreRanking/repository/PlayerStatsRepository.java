@@ -0,0 +1,25 @@
+package com.TopScoreRanking.repository;
+
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.TopScoreRanking.entities.PlayerStats;
+
+/**
+ * JPA Repository for per player statistics
+ * 
+ * @author Marc Mendez
+ */
+public interface PlayerStatsRepository extends JpaRepository<PlayerStats, String> {
+
+	// select player statistics by player key, locked until the end of the transaction
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT ps FROM PlayerStats ps WHERE ps.playerKey = :playerKey")
+	Optional<PlayerStats> findForUpdate(@Param(value = "playerKey") String playerKey);
+}
@@ -0,0 +1,45 @@
+package com.TopScoreRanking.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * R2DBC connection pool of the reactive read path (ranking.reactive.enabled).
+ * It opens the same database as the JPA data source. Spring Boot's own R2DBC
+ * configuration is excluded, its transaction manager would compete with the
+ * JPA one.
+ *
+ * @author Marc Mendez
+ */
+@Configuration
+@ConditionalOnProperty(name = "ranking.reactive.enabled", havingValue = "true")
+public class R2dbcConfig {
+
+	/**
+	 * Pooled connections to the ranking database
+	 *
+	 * @param url - String : R2DBC URL (r2dbc:pool:h2:mem:///ranking...)
+	 * @return ConnectionFactory
+	 */
+	@Bean
+	public ConnectionFactory rankingConnectionFactory(@Value("${ranking.reactive.url}") String url) {
+		return ConnectionFactories.get(url);
+	}
+
+	/**
+	 * Non-blocking SQL client
+	 *
+	 * @param connectionFactory - ConnectionFactory
+	 * @return DatabaseClient
+	 */
+	@Bean
+	public DatabaseClient rankingDatabaseClient(ConnectionFactory connectionFactory) {
+		return DatabaseClient.create(connectionFactory);
+	}
+}
@@ -0,0 +1,52 @@
+package com.TopScoreRanking.repository;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+
+/**
+ * Seeds the ranking ID sequence from the stored records on startup. The schema
+ * is not always created empty (kept database, rows loaded with explicit IDs):
+ * the sequence is moved past the highest stored ID so the pooled allocation
+ * never hands out an ID already in use. The sequence only moves forward, IDs
+ * allocated by another instance are never handed out twice.
+ *
+ * @author Marc Mendez
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class RankingIdSequence {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Constructor
+	 *
+	 * @param jdbcTemplate
+	 */
+	public RankingIdSequence(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Restarts the sequence after the highest stored ID when it is behind
+	 */
+	@PostConstruct
+	public void seed() {
+		Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM ranking", Long.class);
+		if (maxId == null) {
+			return;
+		}
+
+		// Each sequence value is the last ID of a block of ID_ALLOCATION_SIZE IDs
+		Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + Ranking.ID_SEQUENCE, Long.class);
+		long seeded = maxId + Ranking.ID_ALLOCATION_SIZE;
+		if (next != null && next - Ranking.ID_ALLOCATION_SIZE < maxId) {
+			jdbcTemplate.execute("ALTER SEQUENCE " + Ranking.ID_SEQUENCE + " RESTART WITH " + seeded);
+		}
+	}
+}
@@ -7,12 +7,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.TopScoreRanking.entities.Ranking;
-import com.TopScoreRanking.projections.RankingHistoryDataInterface;
-import com.TopScoreRanking.projections.RankingHistoryListInterface;
+import com.TopScoreRanking.projections.RankingHistoryRowInterface;
 
 /**
  * JPA Repository for Top Score Ranking
@@ -21,28 +22,79 @@ import com.TopScoreRanking.projections.RankingHistoryListInterface;
  */
 public interface RankingRepository extends JpaRepository<Ranking, Long> {
 	
-	// select player by player name
-	Page<Ranking> findByPlayerInIgnoreCase(List<String> player, Pageable pageable);
+	// select next batch of records after the given ID (keyset scan, no count query)
+	List<Ranking> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 
-	// select player by player name and dateTime
-	@Query("SELECT rk FROM Ranking rk WHERE UPPER(rk.player) IN(UPPER(:player)) AND (:onbefore is null OR rk.time <= :onbefore) AND (:onafter is null OR rk.time >= :onafter)")
-	Page<Ranking> findByPlayerWithBeforeAndAfterTime(@Param(value = "player") List<String> player,
+	// select the best records, records without time last (refill of the all-time leaderboard, score index range)
+	@Query("SELECT rk FROM Ranking rk ORDER BY rk.score DESC, rk.time ASC NULLS LAST, rk.id ASC")
+	List<Ranking> findTopScores(Pageable pageable);
+
+	// select the best records of a time range, [from, to) (refill of the time-bucketed leaderboards)
+	@Query("SELECT rk FROM Ranking rk WHERE rk.time >= :from AND rk.time < :to ORDER BY rk.score DESC, rk.time ASC, rk.id ASC")
+	List<Ranking> findTopBetween(@Param(value = "from") LocalDateTime from, @Param(value = "to") LocalDateTime to,
+			Pageable pageable);
+
+	// select player by player ID (Player dictionary)
+	Page<Ranking> findByPlayerIdIn(List<Integer> playerId, Pageable pageable);
+
+	// select player by player ID and dateTime
+	@Query("SELECT rk FROM Ranking rk WHERE rk.playerId IN (:playerId) AND (:onbefore is null OR rk.time <= :onbefore) AND (:onafter is null OR rk.time >= :onafter)")
+	Page<Ranking> findByPlayerWithBeforeAndAfterTime(@Param(value = "playerId") List<Integer> playerId,
 			@Param(value = "onbefore") LocalDateTime onbefore, @Param(value = "onafter") LocalDateTime onafter,
 			Pageable pageable);
 
-	// select player average score by player
-	@Query("SELECT rk.player as player, ROUND(avg(rk.score), 2) as avgScore FROM Ranking rk WHERE UPPER(rk.player) = UPPER(:player) Group by rk.player ")
-	RankingHistoryDataInterface findAvgByPlayer(@Param(value = "player") String player);
+	// select player by player ID and dateTime, first page of the keyset pagination on (time, id)
+	@Query("SELECT rk FROM Ranking rk WHERE rk.playerId IN (:playerId) AND (:onbefore is null OR rk.time <= :onbefore) AND (:onafter is null OR rk.time >= :onafter) "
+			+ "ORDER BY rk.time ASC NULLS FIRST, rk.id ASC")
+	List<Ranking> findByPlayerFirstPage(@Param(value = "playerId") List<Integer> playerId,
+			@Param(value = "onbefore") LocalDateTime onbefore, @Param(value = "onafter") LocalDateTime onafter,
+			Pageable pageable);
+
+	// select player by player ID and dateTime, next page after the given (time, id) cursor (range on the player ID and time index)
+	@Query("SELECT rk FROM Ranking rk WHERE rk.playerId IN (:playerId) AND (:onbefore is null OR rk.time <= :onbefore) AND (:onafter is null OR rk.time >= :onafter) "
+			+ "AND rk.time >= :afterTime AND (rk.time > :afterTime OR rk.id > :afterId) ORDER BY rk.time ASC, rk.id ASC")
+	List<Ranking> findByPlayerAfterCursor(@Param(value = "playerId") List<Integer> playerId,
+			@Param(value = "onbefore") LocalDateTime onbefore, @Param(value = "onafter") LocalDateTime onafter,
+			@Param(value = "afterTime") LocalDateTime afterTime, @Param(value = "afterId") Long afterId,
+			Pageable pageable);
+
+	// select player by player ID, records without time after the given ID (they sort before the others)
+	@Query("SELECT rk FROM Ranking rk WHERE rk.playerId IN (:playerId) AND rk.time is null AND rk.id > :afterId ORDER BY rk.id ASC")
+	List<Ranking> findByPlayerWithoutTimeAfterId(@Param(value = "playerId") List<Integer> playerId,
+			@Param(value = "afterId") Long afterId, Pageable pageable);
+
+	// select player all score (with player name) by player ID, history is aggregated from this single query
+	@Query("SELECT rk.player as player, rk.score as score, rk.time as time FROM Ranking rk WHERE rk.playerId = :playerId ")
+	List<RankingHistoryRowInterface> findScoreRowsByPlayer(@Param(value = "playerId") Integer playerId);
+
+	// select all score rows (with player name) of several players by player ID, histories are grouped in memory
+	@Query("SELECT rk.player as player, rk.score as score, rk.time as time FROM Ranking rk WHERE rk.playerId IN :playerId ")
+	List<RankingHistoryRowInterface> findScoreRowsByPlayerIdIn(@Param(value = "playerId") List<Integer> playerId);
+
+	// select player score records with the given score (top or low score list from player statistics)
+	@Query("SELECT rk.player as player, rk.score as score, rk.time as time FROM Ranking rk WHERE rk.playerId = :playerId AND rk.score = :score ")
+	List<RankingHistoryRowInterface> findScoreRowsByPlayerAndScore(@Param(value = "playerId") Integer playerId,
+			@Param(value = "score") int score);
+
+	// select player records from best to worst score (recompute top score after a delete)
+	@Query("SELECT rk FROM Ranking rk WHERE rk.playerId = :playerId ORDER BY rk.score DESC, rk.time ASC")
+	List<Ranking> findByPlayerOrderByScoreDesc(@Param(value = "playerId") Integer playerId, Pageable pageable);
+
+	// select player records from worst to best score (recompute low score after a delete)
+	@Query("SELECT rk FROM Ranking rk WHERE rk.playerId = :playerId ORDER BY rk.score ASC, rk.time ASC")
+	List<Ranking> findByPlayerOrderByScoreAsc(@Param(value = "playerId") Integer playerId, Pageable pageable);
 
-	// select player top score by player
-	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE UPPER(rk.player) = UPPER(:player) AND rk.score = (SELECT max(rkmx.score) FROM Ranking rkmx WHERE UPPER(rkmx.player) = UPPER(:player)) ")
-	List<RankingHistoryListInterface> findMaxScoreListByPlayer(@Param(value = "player") String player);
+	// select player latest score time (recompute last played after a delete)
+	@Query("SELECT MAX(rk.time) FROM Ranking rk WHERE rk.playerId = :playerId")
+	LocalDateTime findLastTimeByPlayer(@Param(value = "playerId") Integer playerId);
 
-	// select player low score by player
-	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE UPPER(rk.player) = UPPER(:player) AND rk.score = (SELECT min(rkmn.score) FROM Ranking rkmn WHERE UPPER(rkmn.player) = UPPER(:player)) ")
-	List<RankingHistoryListInterface> findMinScoreListByPlayer(@Param(value = "player") String player);
+	// select player names of records inserted before the player ID column existed
+	@Query("SELECT DISTINCT rk.player FROM Ranking rk WHERE rk.playerId IS NULL AND rk.player IS NOT NULL")
+	List<String> findPlayersWithoutId();
 
-	// select player all score by player
-	@Query("SELECT rk.score as score, rk.time as time FROM Ranking rk WHERE UPPER(rk.player) = UPPER(:player) ")
-	List<RankingHistoryListInterface> findAllScoreListByPlayer(@Param(value = "player") String player);
+	// fill player ID of records inserted before the column existed
+	@Transactional
+	@Modifying
+	@Query("UPDATE Ranking rk SET rk.playerId = :playerId WHERE rk.playerId IS NULL AND UPPER(rk.player) = :playerKey")
+	int backfillPlayerId(@Param(value = "playerKey") String playerKey, @Param(value = "playerId") Integer playerId);
 }
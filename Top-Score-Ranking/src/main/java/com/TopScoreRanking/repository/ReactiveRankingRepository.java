@@ -0,0 +1,75 @@
+package com.TopScoreRanking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.projections.RankingHistoryRowInterface;
+
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+
+/**
+ * R2DBC Repository for the reactive read path. Rows are emitted as they are
+ * read, following the subscriber's demand.
+ * 
+ * @author Marc Mendez
+ */
+@Repository
+@ConditionalOnProperty(name = "ranking.reactive.enabled", havingValue = "true")
+public class ReactiveRankingRepository {
+
+	// Same projections as the JPA queries
+	private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+	private final DatabaseClient client;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param client - DatabaseClient : Non-blocking SQL client
+	 */
+	public ReactiveRankingRepository(DatabaseClient client) {
+		this.client = client;
+	}
+
+	// select all records by ID
+	public Flux<Ranking> findAll() {
+		return client.sql("SELECT id, player, score, time FROM ranking ORDER BY id")
+				.map(ReactiveRankingRepository::toRanking).all();
+	}
+
+	// select a page of player records by player ID
+	public Flux<Ranking> findByPlayerIdIn(List<Integer> playerId, int page, int size) {
+		return client
+				.sql("SELECT id, player, score, time FROM ranking WHERE player_id IN (:playerId) ORDER BY id "
+						+ "LIMIT :size OFFSET :offset")
+				.bind("playerId", playerId).bind("size", size).bind("offset", (long) page * size)
+				.map(ReactiveRankingRepository::toRanking).all();
+	}
+
+	// select player all score (with player name) by player ID
+	public Flux<RankingHistoryRowInterface> findScoreRowsByPlayer(Integer playerId) {
+		return client.sql("SELECT player, score, time FROM ranking WHERE player_id = :playerId")
+				.bind("playerId", playerId).map(row -> {
+					RankingHistoryRowInterface scoreRow = PROJECTIONS.createProjection(RankingHistoryRowInterface.class);
+					scoreRow.setPlayer(row.get("player", String.class));
+					scoreRow.setScore(row.get("score", Integer.class));
+					scoreRow.setTime(row.get("time", LocalDateTime.class));
+					return scoreRow;
+				}).all();
+	}
+
+	private static Ranking toRanking(Row row) {
+		Ranking rank = new Ranking(row.get("player", String.class), row.get("score", Integer.class),
+				row.get("time", LocalDateTime.class));
+		rank.setId(row.get("id", Long.class));
+		return rank;
+	}
+}
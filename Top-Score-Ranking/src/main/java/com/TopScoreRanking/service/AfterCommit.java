@@ -0,0 +1,35 @@
+package com.TopScoreRanking.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actions deferred until the current transaction commits, used to keep the
+ * caches and the in-memory indexes in sync with committed rows only.
+ *
+ * @author Marc Mendez
+ */
+final class AfterCommit {
+
+	private AfterCommit() {
+	}
+
+	/**
+	 * Runs the action once the current transaction commits (right away when there
+	 * is none)
+	 *
+	 * @param action - Runnable : Action to run
+	 */
+	static void run(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package com.TopScoreRanking.service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+
+/**
+ * Score histograms kept up to date on every write: one for every record, one
+ * per player and one per current day, week and month bucket. Each histogram is
+ * an array of counters, one per score range, updated atomically without a
+ * lock. Only the current and the previous bucket of each window are kept.
+ * Player histograms are keyed by player ID.
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class DistributionIndex implements RankingIndex {
+
+	// Windows maintained per bucket (ALLTIME is the global histogram)
+	private static final LeaderboardWindow[] WINDOWS = { LeaderboardWindow.DAILY, LeaderboardWindow.WEEKLY,
+			LeaderboardWindow.MONTHLY };
+
+	// Lower bounds of the ranges after the first one, ascending
+	private final int[] bounds;
+
+	private volatile AtomicLongArray total;
+
+	private final PlayerDictionary dictionary;
+
+	// Histogram per player ID
+	private final Map<Integer, AtomicLongArray> players = new ConcurrentHashMap<Integer, AtomicLongArray>();
+
+	// Histogram per window and bucket start
+	private final Map<LeaderboardWindow, Map<LocalDateTime, AtomicLongArray>> windows = new EnumMap<LeaderboardWindow,
+			Map<LocalDateTime, AtomicLongArray>>(LeaderboardWindow.class);
+
+	/**
+	 * Constructor
+	 *
+	 * @param dictionary - PlayerDictionary : Player IDs
+	 * @param bounds     - Integer[] : Range boundaries (n boundaries give n + 1 ranges)
+	 */
+	public DistributionIndex(PlayerDictionary dictionary,
+			@Value("${ranking.distribution.bounds:0,100,500,1000,5000,10000,50000,100000}") int[] bounds) {
+		this.dictionary = dictionary;
+		this.bounds = Arrays.stream(bounds).sorted().distinct().toArray();
+		this.total = new AtomicLongArray(this.bounds.length + 1);
+		for (LeaderboardWindow window : WINDOWS) {
+			windows.put(window, new ConcurrentHashMap<LocalDateTime, AtomicLongArray>());
+		}
+	}
+
+	/**
+	 * Removes every score
+	 */
+	@Override
+	public void clear() {
+		total = new AtomicLongArray(bounds.length + 1);
+		players.clear();
+		windows.values().forEach(Map::clear);
+	}
+
+	/**
+	 * Counts the score of a ranking record
+	 *
+	 * @param rank - Ranking : Persisted ranking record
+	 */
+	@Override
+	public void add(Ranking rank) {
+		if (rank == null || rank.getId() == null) {
+			return;
+		}
+		int range = rangeOf(rank.getScore());
+
+		total.incrementAndGet(range);
+		Integer playerId = dictionary.idOfRecord(rank);
+		if (playerId != null) {
+			players.computeIfAbsent(playerId, key -> new AtomicLongArray(bounds.length + 1)).incrementAndGet(range);
+		}
+		if (rank.getTime() != null) {
+			LocalDateTime now = LocalDateTime.now();
+			for (LeaderboardWindow window : WINDOWS) {
+				Map<LocalDateTime, AtomicLongArray> buckets = retire(window, now);
+				LocalDateTime start = window.bucketStart(rank.getTime());
+				// Records of retired buckets are ignored
+				if (!start.isBefore(window.previousBucket(window.bucketStart(now)))) {
+					buckets.computeIfAbsent(start, key -> new AtomicLongArray(bounds.length + 1))
+							.incrementAndGet(range);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Uncounts the score of a ranking record
+	 *
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Override
+	public void remove(Ranking rank) {
+		if (rank == null || rank.getId() == null) {
+			return;
+		}
+		int range = rangeOf(rank.getScore());
+
+		total.decrementAndGet(range);
+		Integer playerId = dictionary.idOfRecord(rank);
+		if (playerId != null) {
+			AtomicLongArray counts = players.get(playerId);
+			if (counts != null) {
+				counts.decrementAndGet(range);
+			}
+		}
+		if (rank.getTime() != null) {
+			for (LeaderboardWindow window : WINDOWS) {
+				AtomicLongArray counts = windows.get(window).get(window.bucketStart(rank.getTime()));
+				if (counts != null) {
+					counts.decrementAndGet(range);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Range boundaries
+	 *
+	 * @return int[] - Ascending, n boundaries give n + 1 ranges
+	 */
+	public int[] bounds() {
+		return bounds.clone();
+	}
+
+	/**
+	 * Score counts per range of a player, or of the current bucket of a window
+	 *
+	 * @param player - String : Player's name (null for every player)
+	 * @param window - LeaderboardWindow : Window (ignored for a player)
+	 * @param now    - LocalDateTime : Time of the current bucket
+	 * @return long[] - Count per range, null if the player has no score
+	 */
+	public long[] counts(String player, LeaderboardWindow window, LocalDateTime now) {
+		AtomicLongArray counts;
+		if (player != null) {
+			Integer playerId = dictionary.idOf(player);
+			counts = playerId == null ? null : players.get(playerId);
+		} else if (window == LeaderboardWindow.ALLTIME) {
+			counts = total;
+		} else {
+			counts = retire(window, now).get(window.bucketStart(now));
+		}
+
+		long[] snapshot = new long[bounds.length + 1];
+		if (counts == null) {
+			return player != null ? null : snapshot;
+		}
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = counts.get(i);
+		}
+		return snapshot;
+	}
+
+	// Range of a score : number of boundaries lower or equal to it
+	private int rangeOf(int score) {
+		int position = Arrays.binarySearch(bounds, score);
+		return position >= 0 ? position + 1 : -position - 1;
+	}
+
+	// Drops the buckets older than the previous one
+	private Map<LocalDateTime, AtomicLongArray> retire(LeaderboardWindow window, LocalDateTime now) {
+		Map<LocalDateTime, AtomicLongArray> buckets = windows.get(window);
+		LocalDateTime previous = window.previousBucket(window.bucketStart(now));
+		buckets.keySet().removeIf(start -> start.isBefore(previous));
+		return buckets;
+	}
+}
@@ -0,0 +1,225 @@
+package com.TopScoreRanking.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.exceptions.TopLimitException;
+import com.TopScoreRanking.repository.RankingRepository;
+
+/**
+ * In-memory all-time leaderboard ordered by (score desc, time, id). Only the
+ * top K records are kept, top n reads are served in O(k) without touching the
+ * database and n above K is refused.
+ * <p>
+ * When deletes bring a leaderboard that dropped records below K, it is
+ * refilled on its next read from the score index of the Ranking table (K rows
+ * of an ordered index range, no scan).
+ * </p>
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class LeaderboardIndex implements RankingIndex {
+
+	// Best score first, then earliest time, then lowest ID
+	public static final Comparator<Ranking> ORDER = Comparator
+			.comparing(Ranking::getScore, Comparator.<Integer>reverseOrder())
+			.thenComparing(Ranking::getTime, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+			.thenComparing(Ranking::getId, Comparator.nullsLast(Comparator.<Long>naturalOrder()));
+
+	private final RankingRepository repository;
+
+	private final int capacity;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final TreeSet<Ranking> records = new TreeSet<Ranking>(ORDER);
+
+	// Kept records by ID, used for removal
+	private final Map<Long, Ranking> byId = new HashMap<Long, Ranking>();
+
+	// Records beyond K were dropped, the table may hold more than the leaderboard
+	private boolean truncated;
+
+	// Fell below K after dropping records, refilled on the next read
+	private boolean stale;
+
+	// Incremented on each removal, a refill read before a removal is not applied
+	private long version;
+
+	/**
+	 * Constructor
+	 *
+	 * @param repository - RankingRepository : Refills the leaderboard when it fell below K
+	 * @param capacity   - Integer : Records kept (largest top n served)
+	 */
+	public LeaderboardIndex(RankingRepository repository, @Value("${ranking.leaderboard.capacity:100}") int capacity) {
+		this.repository = repository;
+		this.capacity = Math.max(1, capacity);
+	}
+
+	/**
+	 * Largest top n served
+	 *
+	 * @return int
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Removes every record
+	 */
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			records.clear();
+			byId.clear();
+			truncated = false;
+			stale = false;
+			version++;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds (or replaces) a ranking record
+	 *
+	 * @param rank - Ranking : Persisted ranking record
+	 */
+	@Override
+	public void add(Ranking rank) {
+		if (rank == null || rank.getId() == null) {
+			return;
+		}
+		// Keep a detached copy so later changes to the entity do not corrupt the order
+		Ranking copy = new Ranking(rank.getPlayer(), rank.getScore(), rank.getTime());
+		copy.setId(rank.getId());
+
+		lock.writeLock().lock();
+		try {
+			put(copy);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a ranking record
+	 *
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Override
+	public void remove(Ranking rank) {
+		lock.writeLock().lock();
+		try {
+			Ranking previous = byId.remove(rank.getId());
+			if (previous == null) {
+				return;
+			}
+			records.remove(previous);
+			version++;
+			if (truncated && records.size() < capacity) {
+				stale = true;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Best n ranking records
+	 *
+	 * @param n - Integer : Number of records (at most the capacity)
+	 * @return List<Ranking> - Ordered by score desc, time and id
+	 */
+	public List<Ranking> top(int n) {
+		// Throws exception when more records are asked than kept
+		if (n > capacity) {
+			throw new TopLimitException(capacity);
+		}
+
+		long seen;
+		lock.readLock().lock();
+		try {
+			if (!stale) {
+				return top(records, n);
+			}
+			seen = version;
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		// Refill out of the lock, the best records are read again from the database
+		List<Ranking> rows = repository.findTopScores(PageRequest.of(0, capacity));
+
+		lock.writeLock().lock();
+		try {
+			// Applied only if nothing was deleted meanwhile, the next read retries otherwise
+			if (stale && version == seen) {
+				for (Ranking rank : rows) {
+					Ranking copy = new Ranking(rank.getPlayer(), rank.getScore(), rank.getTime());
+					copy.setId(rank.getId());
+					put(copy);
+				}
+				stale = false;
+				truncated = rows.size() >= capacity;
+			}
+			return top(records, n);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Number of records kept
+	 *
+	 * @return int - At most K
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return records.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Called with the write lock held
+	private void put(Ranking rank) {
+		Ranking previous = byId.remove(rank.getId());
+		if (previous != null) {
+			records.remove(previous);
+		}
+		records.add(rank);
+		byId.put(rank.getId(), rank);
+		if (records.size() > capacity) {
+			byId.remove(records.pollLast().getId());
+			truncated = true;
+		}
+	}
+
+	// Best n records, called with the lock held
+	private static List<Ranking> top(TreeSet<Ranking> records, int n) {
+		List<Ranking> top = new ArrayList<Ranking>(Math.max(0, n));
+		for (Iterator<Ranking> it = records.iterator(); it.hasNext() && top.size() < n;) {
+			top.add(it.next());
+		}
+		return top;
+	}
+}
@@ -0,0 +1,325 @@
+package com.TopScoreRanking.service;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.TopScoreRanking.assembler.PlayerRankModelAssembler;
+import com.TopScoreRanking.assembler.RankingLinks;
+import com.TopScoreRanking.controller.RankingController;
+import com.TopScoreRanking.entities.PlayerRank;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingDelta;
+import com.TopScoreRanking.entities.RankingList;
+import com.TopScoreRanking.entities.ScoreBucket;
+import com.TopScoreRanking.entities.ScoreDistribution;
+import com.TopScoreRanking.entities.ScorePercentile;
+import com.TopScoreRanking.exceptions.PlayerNotFoundException;
+
+/**
+ * Leaderboard reads served from the in-memory indexes (best scores, player
+ * positions, percentiles and distributions) and the change stream. Records
+ * accepted by the write-behind queue and not stored yet are merged in the best
+ * scores.
+ *
+ * @author Marc Mendez
+ */
+@Service
+public class LeaderboardService {
+
+	private final LeaderboardIndex leaderboard;
+	private final PlayerRankIndex playerRanks;
+	private final TimeBucketIndex timeBuckets;
+	private final SlidingWindowIndex recentScores;
+	private final PercentileIndex percentiles;
+	private final DistributionIndex distributions;
+	private final ScoreStore scoreStore;
+
+	private final RankingIngestionQueue ingestionQueue;
+	private final RankingChangePublisher changes;
+
+	private final PlayerRankModelAssembler assemblerrk;
+
+	// Precomputed collection-level links
+	private final RankingLinks links;
+
+	// Lifetime of a change stream connection, the client reconnects after it
+	@Value("${ranking.push.timeout-ms:1800000}")
+	private long pushTimeoutMs = 1800000;
+
+	/**
+	 * Constructor
+	 *
+	 * @param leaderboard
+	 * @param playerRanks
+	 * @param timeBuckets
+	 * @param recentScores
+	 * @param percentiles
+	 * @param distributions
+	 * @param scoreStore
+	 * @param ingestionQueue
+	 * @param changes
+	 * @param assemblerrk
+	 * @param links
+	 */
+	public LeaderboardService(LeaderboardIndex leaderboard, PlayerRankIndex playerRanks, TimeBucketIndex timeBuckets,
+			SlidingWindowIndex recentScores, PercentileIndex percentiles, DistributionIndex distributions,
+			ScoreStore scoreStore, RankingIngestionQueue ingestionQueue, RankingChangePublisher changes,
+			PlayerRankModelAssembler assemblerrk, RankingLinks links) {
+		this.leaderboard = leaderboard;
+		this.playerRanks = playerRanks;
+		this.timeBuckets = timeBuckets;
+		this.recentScores = recentScores;
+		this.percentiles = percentiles;
+		this.distributions = distributions;
+		this.scoreStore = scoreStore;
+		this.ingestionQueue = ingestionQueue;
+		this.changes = changes;
+		this.assemblerrk = assemblerrk;
+		this.links = links;
+	}
+
+	/**
+	 * Get the best scores from the in-memory leaderboard. Records accepted by the
+	 * write-behind queue and not stored yet are merged in (without ID).
+	 *
+	 * @param n - Integer : Number of records
+	 * @return RankingList - Returns the n best ranking records with the self and all links
+	 */
+	public RankingList getTop(int n) {
+		return topList(topRecords(n), linkTo(methodOn(RankingController.class).top(n)));
+	}
+
+	/**
+	 * Get the best scores of the current day, week or month (or all-time) from the
+	 * in-memory time-bucketed leaderboards
+	 *
+	 * @param window - String : daily, weekly, monthly or alltime
+	 * @param n      - Integer : Number of records
+	 * @return RankingList - Returns the n best ranking records of the window with the self and all links
+	 */
+	public RankingList getTopByWindow(String window, int n) {
+		// Throws exception when the window does not exist
+		LeaderboardWindow leaderboardWindow = LeaderboardWindow.of(window);
+
+		List<Ranking> top;
+		if (leaderboardWindow == LeaderboardWindow.ALLTIME) {
+			top = topRecords(n);
+		} else {
+			LocalDateTime bucket = leaderboardWindow.bucketStart(LocalDateTime.now());
+			Predicate<Ranking> inBucket = record -> record.getTime() != null
+					&& bucket.equals(leaderboardWindow.bucketStart(record.getTime()));
+			top = withPending(() -> timeBuckets.top(leaderboardWindow, n, bucket), inBucket, n);
+		}
+
+		return topList(top, linkTo(methodOn(RankingController.class).topByWindow(window, n)));
+	}
+
+	/**
+	 * Get the best scores of the last hours (sliding window, ranking.recent.*)
+	 * from the in-memory segment ring
+	 *
+	 * @param n - Integer : Number of records
+	 * @return RankingList - Returns the n best recent ranking records with the self and all links
+	 */
+	public RankingList getTopRecent(int n) {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime cutoff = now.minusMinutes(recentScores.getWindowMinutes());
+
+		Predicate<Ranking> inWindow = record -> record.getTime() != null && !record.getTime().isBefore(cutoff)
+				&& !record.getTime().isAfter(now);
+		return topList(withPending(() -> recentScores.top(n, now), inWindow, n),
+				linkTo(methodOn(RankingController.class).topRecent(n)));
+	}
+
+	/**
+	 * Get the best scores of any time range, from one pass over the in-memory
+	 * columnar score store (times are compared to the second)
+	 *
+	 * @param onafter  - LocalDateTime : On or after the given date and time (optional)
+	 * @param onbefore - LocalDateTime : On or before the given date and time (optional)
+	 * @param n        - Integer : Number of records
+	 * @return RankingList - Returns the n best ranking records of the range with the self and all links
+	 */
+	public RankingList getTopBetween(LocalDateTime onafter, LocalDateTime onbefore, int n) {
+		Predicate<Ranking> inRange = record -> record.getTime() != null
+				&& (onafter == null || !record.getTime().isBefore(onafter))
+				&& (onbefore == null || !record.getTime().isAfter(onbefore));
+		return topList(withPending(() -> scoreStore.top(n, onafter, onbefore), inRange, n),
+				linkTo(methodOn(RankingController.class).topBetween(onafter, onbefore, n)));
+	}
+
+	/**
+	 * Columnar score store counters
+	 *
+	 * @return Map<String, Object> - rows, deleted rows, players, capacity and bytes used per score
+	 */
+	public Map<String, Object> getStoreStats() {
+		return scoreStore.stats();
+	}
+
+	// Best records with the self and all links
+	private RankingList topList(List<Ranking> top, WebMvcLinkBuilder self) {
+		Map<String, String> topLinks = new LinkedHashMap<String, String>();
+		topLinks.put("self", links.href(self));
+		topLinks.put("all", links.all());
+		return new RankingList(top, topLinks);
+	}
+
+	// Best n records of the leaderboard, merged with the records waiting in the write-behind queue
+	private List<Ranking> topRecords(int n) {
+		return withPending(() -> leaderboard.top(n), rank -> true, n);
+	}
+
+	// Read your writes : merges the matching pending records (a record is either pending or indexed, never both)
+	private List<Ranking> withPending(Supplier<List<Ranking>> top, Predicate<Ranking> filter, int n) {
+		return ingestionQueue.read(pending -> {
+			List<Ranking> indexed = top.get();
+			if (pending.isEmpty()) {
+				return indexed;
+			}
+			return Stream.concat(indexed.stream(), pending.stream().filter(filter)).sorted(LeaderboardIndex.ORDER)
+					.limit(n).collect(Collectors.toList());
+		});
+	}
+
+	/**
+	 * Get player's global position by best score with the players just above and below
+	 *
+	 * @param player - String : Player's name
+	 * @return EntityModel<PlayerRank> - Returns RESTful output with player's position
+	 */
+	public EntityModel<PlayerRank> getPlayerRank(String player) {
+		PlayerRank playerRank = playerRanks.rankOf(player);
+
+		// Throws exception when player has no score
+		if (playerRank == null) {
+			throw new PlayerNotFoundException(Arrays.asList(player));
+		}
+
+		return assemblerrk.toModel(playerRank);
+	}
+
+	/**
+	 * Get the approximate share of the stored scores beaten by a score (from an
+	 * in-memory quantile sketch, no table scan)
+	 *
+	 * @param score - Integer : Score to rank
+	 * @return EntityModel<ScorePercentile> - Returns RESTful output with the percentile and its error bound
+	 */
+	public EntityModel<ScorePercentile> getPercentile(int score) {
+		return EntityModel.of(percentiles.percentile(score),
+				linkTo(methodOn(RankingController.class).percentile(score)).withSelfRel(),
+				Link.of(links.all()).withRel("all"));
+	}
+
+	/**
+	 * Get the score histogram of every record, of a player, or of the current
+	 * day, week or month (from in-memory counters, no query)
+	 *
+	 * @param player - String : Player's name (optional)
+	 * @param window - String : daily, weekly, monthly or alltime (optional, alltime by default)
+	 * @return EntityModel<ScoreDistribution> - Returns RESTful output with the count of each score range
+	 */
+	public EntityModel<ScoreDistribution> getDistribution(String player, String window) {
+		LeaderboardWindow scope = window == null ? LeaderboardWindow.ALLTIME : LeaderboardWindow.of(window);
+		long[] counts = distributions.counts(player, scope, LocalDateTime.now());
+
+		// Throws exception when player has no score
+		if (counts == null) {
+			throw new PlayerNotFoundException(Arrays.asList(player));
+		}
+
+		// Range i goes from bound i - 1 (included) to bound i (excluded)
+		int[] bounds = distributions.bounds();
+		List<ScoreBucket> buckets = new ArrayList<ScoreBucket>(counts.length);
+		long count = 0;
+		for (int i = 0; i < counts.length; i++) {
+			buckets.add(new ScoreBucket(i == 0 ? null : bounds[i - 1], i == bounds.length ? null : bounds[i],
+					counts[i]));
+			count += counts[i];
+		}
+		ScoreDistribution distribution = new ScoreDistribution(player, scope.name().toLowerCase(Locale.ROOT), count,
+				buckets);
+
+		return EntityModel.of(distribution,
+				linkTo(methodOn(RankingController.class).distribution(player, window)).withSelfRel(),
+				Link.of(links.all()).withRel("all"));
+	}
+
+	/**
+	 * Open a Server-Sent Events stream of the leaderboard changes. A "delta" event
+	 * is sent at most once per tick with the changes of the watched players and
+	 * the new top N when it moved.
+	 *
+	 * @param player - List<String> : Watched players (optional)
+	 * @param top    - Boolean : Watch the top N
+	 * @return SseEmitter - Event stream, closed by the client or after ranking.push.timeout-ms
+	 */
+	public SseEmitter subscribeChanges(List<String> player, boolean top) {
+		SseEmitter emitter = new SseEmitter(pushTimeoutMs);
+
+		// Throws exception when the subscriber limit is reached
+		RankingChangePublisher.Subscription subscription = subscribeChanges(player, top, delta -> {
+			try {
+				emitter.send(SseEmitter.event().id(Long.toString(delta.getSequence())).name("delta").data(delta,
+						MediaType.APPLICATION_JSON));
+			} catch (IOException e) {
+				// Client gone, the publisher closes the subscription
+				throw new UncheckedIOException(e);
+			}
+		});
+		emitter.onCompletion(subscription::close);
+		emitter.onTimeout(subscription::close);
+		emitter.onError(error -> subscription.close());
+
+		// Too slow a client is disconnected, it reconnects and starts from a fresh top N
+		subscription.onEvicted(emitter::complete);
+		return emitter;
+	}
+
+	/**
+	 * Subscribe to the leaderboard changes with a custom consumer (embedded
+	 * clients)
+	 *
+	 * @param player - List<String> : Watched players (optional)
+	 * @param top    - Boolean : Watch the top N
+	 * @param sink   - Consumer<RankingDelta> : Receives the deltas, one at a time
+	 * @return RankingChangePublisher.Subscription - To be closed by the caller
+	 */
+	public RankingChangePublisher.Subscription subscribeChanges(List<String> player, boolean top,
+			Consumer<RankingDelta> sink) {
+		return changes.subscribe(player, top, sink);
+	}
+
+	/**
+	 * Change stream counters
+	 *
+	 * @return Map<String, Object> - subscribers, ticks, delivered, coalesced, resync and failed counts
+	 */
+	public Map<String, Object> getPushStatus() {
+		return changes.status();
+	}
+}
@@ -0,0 +1,96 @@
+package com.TopScoreRanking.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+import com.TopScoreRanking.exceptions.WindowNotFoundException;
+
+/**
+ * Time windows of the bucketed leaderboards, based on Ranking.time
+ *
+ * @author Marc Mendez
+ */
+public enum LeaderboardWindow {
+
+	// Current day
+	DAILY,
+	// Current ISO week (starts on Monday)
+	WEEKLY,
+	// Current month
+	MONTHLY,
+	// Every record (served by LeaderboardIndex)
+	ALLTIME;
+
+	/**
+	 * Window by name (case insensitive)
+	 *
+	 * @param name - String : daily, weekly, monthly or alltime
+	 * @return LeaderboardWindow
+	 */
+	public static LeaderboardWindow of(String name) {
+		try {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new WindowNotFoundException(name);
+		}
+	}
+
+	/**
+	 * Start of the bucket holding the given time
+	 *
+	 * @param time - LocalDateTime
+	 * @return LocalDateTime - null for ALLTIME
+	 */
+	public LocalDateTime bucketStart(LocalDateTime time) {
+		switch (this) {
+		case DAILY:
+			return time.toLocalDate().atStartOfDay();
+		case WEEKLY:
+			return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+		case MONTHLY:
+			return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Start of the bucket before the one starting at the given time
+	 *
+	 * @param bucketStart - LocalDateTime : Start of a bucket
+	 * @return LocalDateTime
+	 */
+	public LocalDateTime previousBucket(LocalDateTime bucketStart) {
+		switch (this) {
+		case DAILY:
+			return bucketStart.minusDays(1);
+		case WEEKLY:
+			return bucketStart.minusWeeks(1);
+		case MONTHLY:
+			return bucketStart.minusMonths(1);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Start of the bucket after the one starting at the given time
+	 *
+	 * @param bucketStart - LocalDateTime : Start of a bucket
+	 * @return LocalDateTime
+	 */
+	public LocalDateTime nextBucket(LocalDateTime bucketStart) {
+		switch (this) {
+		case DAILY:
+			return bucketStart.plusDays(1);
+		case WEEKLY:
+			return bucketStart.plusWeeks(1);
+		case MONTHLY:
+			return bucketStart.plusMonths(1);
+		default:
+			return null;
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package com.TopScoreRanking.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Order-statistic tree (size augmented treap). Supports insert, delete, rank
+ * of key and select by rank in O(log n), and ordered range reads in
+ * O(log n + k).
+ * <p>
+ * Not thread safe, callers are expected to guard access.
+ * </p>
+ *
+ * @author Marc Mendez
+ * @param <K> - Key type, ordered by the given comparator
+ */
+public class OrderStatisticTree<K> {
+
+	private final Comparator<? super K> comparator;
+
+	private Node<K> root;
+
+	/**
+	 * Constructor
+	 *
+	 * @param comparator - Comparator : Defines the key order (must be consistent with equals)
+	 */
+	public OrderStatisticTree(Comparator<? super K> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Number of keys in the tree
+	 *
+	 * @return int
+	 */
+	public int size() {
+		return size(root);
+	}
+
+	/**
+	 * Removes every key
+	 */
+	public void clear() {
+		root = null;
+	}
+
+	/**
+	 * Checks if the key is in the tree
+	 *
+	 * @param key - K
+	 * @return boolean - true if present
+	 */
+	public boolean contains(K key) {
+		Node<K> node = root;
+		while (node != null) {
+			int cmp = comparator.compare(key, node.key);
+			if (cmp == 0) {
+				return true;
+			}
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return false;
+	}
+
+	/**
+	 * Inserts a key
+	 *
+	 * @param key - K
+	 * @return boolean - false if the key was already present
+	 */
+	public boolean add(K key) {
+		if (contains(key)) {
+			return false;
+		}
+		Node<K>[] parts = split(root, key, false);
+		root = merge(merge(parts[0], new Node<K>(key)), parts[1]);
+		return true;
+	}
+
+	/**
+	 * Removes a key
+	 *
+	 * @param key - K
+	 * @return boolean - false if the key was not present
+	 */
+	public boolean remove(K key) {
+		if (!contains(key)) {
+			return false;
+		}
+		// lower : keys < key, upper : keys >= key
+		Node<K>[] lower = split(root, key, false);
+		// equal : keys == key, greater : keys > key
+		Node<K>[] upper = split(lower[1], key, true);
+		root = merge(lower[0], upper[1]);
+		return true;
+	}
+
+	/**
+	 * Number of keys strictly lower than the given key (zero based position of the
+	 * key when present)
+	 *
+	 * @param key - K
+	 * @return int
+	 */
+	public int rank(K key) {
+		int rank = 0;
+		Node<K> node = root;
+		while (node != null) {
+			if (comparator.compare(key, node.key) <= 0) {
+				node = node.left;
+			} else {
+				rank += size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Key at the given zero based position
+	 *
+	 * @param index - Integer : Position of the key
+	 * @return K - Key, null if out of range
+	 */
+	public K select(int index) {
+		if (index < 0 || index >= size()) {
+			return null;
+		}
+		Node<K> node = root;
+		while (node != null) {
+			int leftSize = size(node.left);
+			if (index < leftSize) {
+				node = node.left;
+			} else if (index == leftSize) {
+				return node.key;
+			} else {
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Ordered keys starting at the given position
+	 *
+	 * @param from  - Integer : Zero based position of the first key
+	 * @param count - Integer : Maximum number of keys to return
+	 * @return List<K> - At most count keys in order
+	 */
+	public List<K> range(int from, int count) {
+		List<K> keys = new ArrayList<K>(Math.max(0, Math.min(count, size() - from)));
+		if (from < 0 || count <= 0 || from >= size()) {
+			return keys;
+		}
+
+		// Descend to the starting key, stacking the nodes that follow it
+		Deque<Node<K>> stack = new ArrayDeque<Node<K>>();
+		Node<K> node = root;
+		int index = from;
+		while (node != null) {
+			int leftSize = size(node.left);
+			if (index < leftSize) {
+				stack.push(node);
+				node = node.left;
+			} else if (index == leftSize) {
+				stack.push(node);
+				break;
+			} else {
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+
+		// In-order walk from the starting key
+		while (!stack.isEmpty() && keys.size() < count) {
+			Node<K> next = stack.pop();
+			keys.add(next.key);
+			for (Node<K> child = next.right; child != null; child = child.left) {
+				stack.push(child);
+			}
+		}
+		return keys;
+	}
+
+	// Splits the tree in (keys < key, keys >= key), or (keys <= key, keys > key) when inclusive
+	@SuppressWarnings("unchecked")
+	private Node<K>[] split(Node<K> node, K key, boolean inclusive) {
+		if (node == null) {
+			return new Node[] { null, null };
+		}
+		int cmp = comparator.compare(node.key, key);
+		if (cmp < 0 || (inclusive && cmp == 0)) {
+			Node<K>[] parts = split(node.right, key, inclusive);
+			node.right = parts[0];
+			node.update();
+			parts[0] = node;
+			return parts;
+		} else {
+			Node<K>[] parts = split(node.left, key, inclusive);
+			node.left = parts[1];
+			node.update();
+			parts[1] = node;
+			return parts;
+		}
+	}
+
+	// Merges two trees where every key of left is lower than every key of right
+	private Node<K> merge(Node<K> left, Node<K> right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+		if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			left.update();
+			return left;
+		} else {
+			right.left = merge(left, right.left);
+			right.update();
+			return right;
+		}
+	}
+
+	private static int size(Node<?> node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * Tree node
+	 */
+	private static final class Node<K> {
+		private final K key;
+		private final int priority = ThreadLocalRandom.current().nextInt();
+		private int size = 1;
+		private Node<K> left;
+		private Node<K> right;
+
+		private Node(K key) {
+			this.key = key;
+		}
+
+		private void update() {
+			size = 1 + OrderStatisticTree.size(left) + OrderStatisticTree.size(right);
+		}
+	}
+}
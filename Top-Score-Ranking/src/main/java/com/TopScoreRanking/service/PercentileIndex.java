@@ -0,0 +1,86 @@
+package com.TopScoreRanking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.ScorePercentile;
+
+/**
+ * Approximate percentile rank of a score among every stored score, in constant
+ * memory. Saved scores feed one quantile sketch and deleted scores another,
+ * the rank of a score is the difference of both.
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class PercentileIndex implements RankingIndex {
+
+	private final int k;
+
+	private QuantileSketch scores;
+
+	private QuantileSketch deleted;
+
+	/**
+	 * Constructor
+	 *
+	 * @param k - Integer : Sketch accuracy (rank error of 2.3 / k^0.94, memory of about 3k scores)
+	 */
+	public PercentileIndex(@Value("${ranking.percentile.k:200}") int k) {
+		this.k = k;
+		this.scores = new QuantileSketch(k);
+		this.deleted = new QuantileSketch(k);
+	}
+
+	/**
+	 * Removes every score
+	 */
+	@Override
+	public synchronized void clear() {
+		scores = new QuantileSketch(k);
+		deleted = new QuantileSketch(k);
+	}
+
+	/**
+	 * Adds the score of a ranking record
+	 *
+	 * @param rank - Ranking : Persisted ranking record
+	 */
+	@Override
+	public synchronized void add(Ranking rank) {
+		if (rank != null && rank.getId() != null) {
+			scores.update(rank.getScore());
+		}
+	}
+
+	/**
+	 * Removes the score of a ranking record
+	 *
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Override
+	public synchronized void remove(Ranking rank) {
+		if (rank != null && rank.getId() != null) {
+			deleted.update(rank.getScore());
+		}
+	}
+
+	/**
+	 * Share of the stored scores strictly lower than the given one
+	 *
+	 * @param score - Integer
+	 * @return ScorePercentile - Percentile (0 to 100) with its error bound
+	 */
+	public synchronized ScorePercentile percentile(int score) {
+		long count = scores.count() - deleted.count();
+		if (count <= 0) {
+			return new ScorePercentile(score, 0, 0, 0);
+		}
+		long lower = Math.max(0, Math.min(count, scores.rank(score) - deleted.rank(score)));
+
+		// Both sketches err on their own count, the difference errs on the sum
+		double error = (scores.error() * scores.count() + deleted.error() * deleted.count()) / count;
+		return new ScorePercentile(score, 100.0 * lower / count, Math.min(100.0, 100.0 * error), count);
+	}
+}
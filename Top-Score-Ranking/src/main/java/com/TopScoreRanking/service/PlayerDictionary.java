@@ -0,0 +1,176 @@
+package com.TopScoreRanking.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.TopScoreRanking.entities.Player;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.repository.PlayerRepository;
+
+/**
+ * In-memory copy of the Player table, normalized name to ID and back. Loaded on
+ * startup, new players are stored in their own transaction so an ID is never
+ * handed out for a row that could roll back. The table only grows.
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class PlayerDictionary {
+
+	private final PlayerRepository repository;
+
+	// Runs the inserts outside of the caller's transaction
+	private final TransactionTemplate newTransaction;
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+	private final Map<Integer, String> keys = new ConcurrentHashMap<Integer, String>();
+
+	private final Map<Integer, String> names = new ConcurrentHashMap<Integer, String>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param repository
+	 * @param transactionManager
+	 */
+	public PlayerDictionary(PlayerRepository repository, PlatformTransactionManager transactionManager) {
+		this.repository = repository;
+		this.newTransaction = new TransactionTemplate(transactionManager);
+		this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * Loads every player on startup
+	 */
+	@PostConstruct
+	public void load() {
+		ids.clear();
+		keys.clear();
+		names.clear();
+		repository.findAll().forEach(this::put);
+	}
+
+	/**
+	 * ID of a player, the player is stored when new. A new player is stored in
+	 * its own transaction: call it before opening the caller's transaction.
+	 *
+	 * @param player - String : Player's name
+	 * @return Integer - Player ID, null for a null name
+	 */
+	public Integer intern(String player) {
+		String key = Ranking.toPlayerKey(player);
+		if (key == null) {
+			return null;
+		}
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+
+		// No lock : the unique player key settles concurrent first scores of the same player
+		Player stored;
+		try {
+			stored = newTransaction.execute(status -> repository.findByPlayerKey(key)
+					.orElseGet(() -> repository.save(new Player(player))));
+		} catch (DataIntegrityViolationException e) {
+			// Stored by another thread or instance in the meantime
+			stored = newTransaction.execute(status -> repository.findByPlayerKey(key).orElseThrow(() -> e));
+		}
+		put(stored);
+		return stored.getId();
+	}
+
+	/**
+	 * ID of a known player
+	 *
+	 * @param player - String : Player's name
+	 * @return Integer - Player ID, null if the player never registered a score
+	 */
+	public Integer idOf(String player) {
+		return idOfKey(Ranking.toPlayerKey(player));
+	}
+
+	/**
+	 * ID of a known player
+	 *
+	 * @param playerKey - String : Normalized player's name
+	 * @return Integer - Player ID, null if the player never registered a score
+	 */
+	public Integer idOfKey(String playerKey) {
+		return playerKey == null ? null : ids.get(playerKey);
+	}
+
+	/**
+	 * ID of the player of a ranking record, the record's own ID when it has one
+	 *
+	 * @param rank - Ranking : Ranking record
+	 * @return Integer - Player ID, null if the player never registered a score
+	 */
+	public Integer idOfRecord(Ranking rank) {
+		return rank.getPlayerId() != null ? rank.getPlayerId() : idOf(rank.getPlayer());
+	}
+
+	/**
+	 * IDs of the known players, unknown ones are left out
+	 *
+	 * @param players - Collection<String> : Players' names
+	 * @return List<Integer> - Player IDs
+	 */
+	public List<Integer> idsOf(Collection<String> players) {
+		List<Integer> found = new ArrayList<Integer>(players.size());
+		for (String player : players) {
+			Integer id = idOf(player);
+			if (id != null && !found.contains(id)) {
+				found.add(id);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Normalized name of a player
+	 *
+	 * @param id - Integer : Player ID
+	 * @return String - Normalized player's name, null if unknown
+	 */
+	public String keyOf(Integer id) {
+		return id == null ? null : keys.get(id);
+	}
+
+	/**
+	 * Name of a player, as registered with its first score
+	 *
+	 * @param id - Integer : Player ID
+	 * @return String - Player's name, null if unknown
+	 */
+	public String nameOf(Integer id) {
+		return id == null ? null : names.get(id);
+	}
+
+	/**
+	 * Number of known players
+	 *
+	 * @return int
+	 */
+	public int size() {
+		return ids.size();
+	}
+
+	private void put(Player player) {
+		ids.put(player.getPlayerKey(), player.getId());
+		keys.put(player.getId(), player.getPlayerKey());
+		names.put(player.getId(), player.getName());
+	}
+}
@@ -0,0 +1,266 @@
+package com.TopScoreRanking.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.PlayerRank;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.repository.RankingRepository;
+
+/**
+ * In-memory player standings ordered by best score. Answers rank-of-player and
+ * player-at-rank in O(log n).
+ * <p>
+ * Only the best score of each player is kept (one tree entry per player, no
+ * per record state). When a record holding a player's best score is deleted,
+ * the new best is read from the player ID and score index of the Ranking
+ * table, out of the lock. Reads in between still see the previous best.
+ * Standings are keyed by player ID, names are read from the player dictionary.
+ * </p>
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class PlayerRankIndex implements RankingIndex {
+
+	// Best score first, then player ID so every standing is unique
+	private static final Comparator<Standing> ORDER = Comparator
+			.comparingInt((Standing standing) -> standing.bestScore).reversed()
+			.thenComparingInt(standing -> standing.playerId);
+
+	private final RankingRepository repository;
+
+	private final PlayerDictionary dictionary;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final OrderStatisticTree<Standing> tree = new OrderStatisticTree<Standing>(ORDER);
+
+	// Standing of each player ID
+	private final Map<Integer, Standing> players = new HashMap<Integer, Standing>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param repository - RankingRepository : Reads a player's best score when it is deleted
+	 * @param dictionary - PlayerDictionary : Player IDs
+	 */
+	public PlayerRankIndex(RankingRepository repository, PlayerDictionary dictionary) {
+		this.repository = repository;
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Removes every record
+	 */
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			tree.clear();
+			players.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a ranking record
+	 *
+	 * @param rank - Ranking : Persisted ranking record
+	 */
+	@Override
+	public void add(Ranking rank) {
+		if (rank == null || rank.getId() == null || rank.getPlayer() == null) {
+			return;
+		}
+		Integer playerId = dictionary.idOfRecord(rank);
+		if (playerId == null) {
+			return;
+		}
+		int score = rank.getScore();
+
+		lock.writeLock().lock();
+		try {
+			Standing standing = players.get(playerId);
+			if (standing == null) {
+				standing = new Standing(playerId, score);
+				players.put(playerId, standing);
+				tree.add(standing);
+				return;
+			}
+			if (standing.reloading) {
+				// Not seen by the running read of the best score, kept for its result
+				standing.added = standing.added == null ? score : Math.max(standing.added, score);
+			}
+			if (score > standing.bestScore) {
+				setBestScore(standing, score);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a ranking record
+	 *
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Override
+	public void remove(Ranking rank) {
+		if (rank == null || rank.getPlayer() == null) {
+			return;
+		}
+		Integer playerId = dictionary.idOfRecord(rank);
+		if (playerId == null) {
+			return;
+		}
+
+		Standing standing;
+		long seen;
+		lock.writeLock().lock();
+		try {
+			standing = players.get(playerId);
+			if (standing == null) {
+				return;
+			}
+			if (standing.reloading) {
+				// The running read may have seen this record, it reads again (earlier adds are committed, it sees them)
+				standing.added = null;
+				standing.version++;
+				return;
+			}
+			if (rank.getScore() < standing.bestScore) {
+				// Best score unchanged
+				return;
+			}
+			standing.reloading = true;
+			standing.added = null;
+			seen = ++standing.version;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		reload(standing, seen);
+	}
+
+	/**
+	 * Player's global position by best score with the players just above and
+	 * below
+	 *
+	 * @param player - String : Player's name
+	 * @return PlayerRank - null if the player has no score
+	 */
+	public PlayerRank rankOf(String player) {
+		Integer playerId = dictionary.idOf(player);
+		if (playerId == null) {
+			return null;
+		}
+
+		lock.readLock().lock();
+		try {
+			Standing standing = players.get(playerId);
+			if (standing == null) {
+				return null;
+			}
+			int position = tree.rank(standing);
+
+			PlayerRank result = toPlayerRank(standing, position);
+			result.setAbove(toPlayerRank(tree.select(position - 1), position - 1));
+			result.setBelow(toPlayerRank(tree.select(position + 1), position + 1));
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Player at the given position
+	 *
+	 * @param rank - Integer : Position (1 is the best player)
+	 * @return PlayerRank - null if out of range
+	 */
+	public PlayerRank atRank(int rank) {
+		lock.readLock().lock();
+		try {
+			return toPlayerRank(tree.select(rank - 1), rank - 1);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Reads the player's best score again, until no record of the player was deleted during the read
+	private void reload(Standing standing, long seen) {
+		while (true) {
+			List<Ranking> best = repository.findByPlayerOrderByScoreDesc(standing.playerId, PageRequest.of(0, 1));
+
+			lock.writeLock().lock();
+			try {
+				if (standing.version != seen) {
+					seen = standing.version;
+					continue;
+				}
+				standing.reloading = false;
+
+				// Records added during the read are either in its result or in added
+				Integer bestScore = best.isEmpty() ? standing.added
+						: standing.added == null ? best.get(0).getScore()
+								: Math.max(best.get(0).getScore(), standing.added);
+				standing.added = null;
+				if (bestScore == null) {
+					players.remove(standing.playerId);
+					tree.remove(standing);
+				} else if (bestScore != standing.bestScore) {
+					setBestScore(standing, bestScore);
+				}
+				return;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	// Called with the write lock held, the entry leaves the tree while its order changes
+	private void setBestScore(Standing standing, int bestScore) {
+		tree.remove(standing);
+		standing.bestScore = bestScore;
+		tree.add(standing);
+	}
+
+	// Called with the read lock held
+	private PlayerRank toPlayerRank(Standing standing, int position) {
+		if (standing == null) {
+			return null;
+		}
+		return new PlayerRank(dictionary.nameOf(standing.playerId), position + 1, standing.bestScore, tree.size());
+	}
+
+	/**
+	 * Tree entry, one per player
+	 */
+	private static final class Standing {
+		private final int playerId;
+		private int bestScore;
+
+		// Best score being read from the database after a delete
+		private boolean reloading;
+
+		// Best score added during the read (null if none)
+		private Integer added;
+
+		// Incremented on each delete of the player's records
+		private long version;
+
+		private Standing(int playerId, int bestScore) {
+			this.playerId = playerId;
+			this.bestScore = bestScore;
+		}
+	}
+}
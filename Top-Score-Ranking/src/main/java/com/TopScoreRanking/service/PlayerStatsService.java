@@ -0,0 +1,209 @@
+package com.TopScoreRanking.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.TopScoreRanking.entities.PlayerStats;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.repository.PlayerStatsRepository;
+import com.TopScoreRanking.repository.RankingRepository;
+
+/**
+ * Maintains the per player statistics table on every ranking write. A player's
+ * row is created empty before the first write transaction and never deleted (a
+ * player without score keeps a row with a zero count), so the writes always
+ * find a row to lock.
+ * 
+ * @author Marc Mendez
+ */
+@Service
+public class PlayerStatsService {
+
+	private final PlayerStatsRepository statsRepository;
+
+	private final RankingRepository repository;
+
+	private final PlayerDictionary players;
+
+	// Creates the missing rows outside of the caller's transaction
+	private final TransactionTemplate newTransaction;
+
+	// Keys known to have a row (rows are never deleted)
+	private final Set<String> created = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Constructor
+	 * 
+	 * @param statsRepository
+	 * @param repository
+	 * @param players
+	 * @param transactionManager
+	 */
+	public PlayerStatsService(PlayerStatsRepository statsRepository, RankingRepository repository,
+			PlayerDictionary players, PlatformTransactionManager transactionManager) {
+		this.statsRepository = statsRepository;
+		this.repository = repository;
+		this.players = players;
+		this.newTransaction = new TransactionTemplate(transactionManager);
+		this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * Get player statistics
+	 * 
+	 * @param player - String : Player's name
+	 * @return Optional<PlayerStats> - Empty if the player has no score
+	 */
+	public Optional<PlayerStats> find(String player) {
+		return statsRepository.findById(Ranking.toPlayerKey(player)).filter(stats -> stats.getScoreCount() > 0);
+	}
+
+	/**
+	 * Checks if statistics were never computed (new table)
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return statsRepository.count() == 0;
+	}
+
+	/**
+	 * Stores statistics computed outside of the write path (backfill)
+	 * 
+	 * @param stats - Collection<PlayerStats>
+	 */
+	@Transactional
+	public void saveAll(Collection<PlayerStats> stats) {
+		statsRepository.saveAll(stats);
+	}
+
+	/**
+	 * Creates the missing statistics rows of the players, empty, each in its own
+	 * transaction. Call it before opening the write transaction: concurrent first
+	 * scores of a new player then lock the same row instead of inserting the
+	 * same key.
+	 * 
+	 * @param ranks - Collection<Ranking> : Ranking records about to be saved
+	 */
+	public void createRows(Collection<Ranking> ranks) {
+		for (Ranking rank : ranks) {
+			String key = Ranking.toPlayerKey(rank.getPlayer());
+			if (key == null || created.contains(key)) {
+				continue;
+			}
+
+			// No lock : the primary key settles concurrent first scores of the same player
+			try {
+				newTransaction.executeWithoutResult(status -> {
+					if (!statsRepository.existsById(key)) {
+						statsRepository.saveAndFlush(new PlayerStats(rank.getPlayer()));
+					}
+				});
+			} catch (DataIntegrityViolationException e) {
+				// Created by another thread or instance in the meantime
+			}
+			created.add(key);
+		}
+	}
+
+	/**
+	 * Adds a newly saved score to the player statistics. Joins the caller's
+	 * transaction and locks the player's row until it commits.
+	 * 
+	 * @param rank - Ranking : Saved ranking record
+	 */
+	@Transactional
+	public void recordSave(Ranking rank) {
+		recordSaveAll(Collections.singletonList(rank));
+	}
+
+	/**
+	 * Adds newly saved scores to the player statistics with one locked read and
+	 * one write per player. Players are locked in key order so concurrent batches
+	 * cannot deadlock.
+	 * 
+	 * @param ranks - List<Ranking> : Saved ranking records
+	 */
+	@Transactional
+	public void recordSaveAll(List<Ranking> ranks) {
+		Map<String, List<Ranking>> byPlayer = new TreeMap<String, List<Ranking>>();
+		for (Ranking rank : ranks) {
+			byPlayer.computeIfAbsent(Ranking.toPlayerKey(rank.getPlayer()), key -> new ArrayList<Ranking>()).add(rank);
+		}
+
+		byPlayer.forEach((key, playerRanks) -> {
+			// Row created beforehand by createRows
+			PlayerStats stats = statsRepository.findForUpdate(key)
+					.orElseGet(() -> new PlayerStats(playerRanks.get(0).getPlayer()));
+			playerRanks.forEach(rank -> stats.add(rank.getScore(), rank.getTime()));
+
+			statsRepository.save(stats);
+		});
+	}
+
+	/**
+	 * Removes a deleted score from the player statistics. Min, max and last played
+	 * are only recomputed when the deleted score was the extreme.
+	 * 
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Transactional
+	public void recordDelete(Ranking rank) {
+		String key = Ranking.toPlayerKey(rank.getPlayer());
+
+		Optional<PlayerStats> found = statsRepository.findForUpdate(key);
+		if (!found.isPresent()) {
+			return;
+		}
+		PlayerStats stats = found.get();
+		stats.remove(rank.getScore());
+
+		// Last score of the player : the row is kept, empty, for the next first score
+		if (stats.getScoreCount() <= 0) {
+			stats.setScoreCount(0);
+			stats.setScoreSum(0);
+			stats.setLastPlayed(null);
+			statsRepository.save(stats);
+			return;
+		}
+
+		// Extremes are searched by player ID
+		Integer playerId = players.idOfKey(key);
+
+		if (rank.getScore() == stats.getMaxScore()) {
+			List<Ranking> top = repository.findByPlayerOrderByScoreDesc(playerId, PageRequest.of(0, 1));
+			if (!top.isEmpty()) {
+				stats.setMaxScore(top.get(0).getScore());
+				stats.setMaxTime(top.get(0).getTime());
+			}
+		}
+		if (rank.getScore() == stats.getMinScore()) {
+			List<Ranking> low = repository.findByPlayerOrderByScoreAsc(playerId, PageRequest.of(0, 1));
+			if (!low.isEmpty()) {
+				stats.setMinScore(low.get(0).getScore());
+				stats.setMinTime(low.get(0).getTime());
+			}
+		}
+		if (Objects.equals(rank.getTime(), stats.getLastPlayed())) {
+			stats.setLastPlayed(repository.findLastTimeByPlayer(playerId));
+		}
+
+		statsRepository.save(stats);
+	}
+}
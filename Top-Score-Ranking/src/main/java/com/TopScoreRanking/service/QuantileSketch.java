@@ -0,0 +1,186 @@
+package com.TopScoreRanking.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Streaming quantile sketch of integer values (KLL). Values go through a stack
+ * of compactors, level h holding items of weight 2^h. A full compactor sorts
+ * its items and promotes every other one to the next level, so the sketch
+ * keeps about 3k items whatever the number of values, with a normalized rank
+ * error of 2.3 / k^0.94 (1.5% for k = 200). Two sketches merge by
+ * concatenating their levels.
+ * <p>
+ * Not thread safe, callers are expected to guard access.
+ * </p>
+ *
+ * @author Marc Mendez
+ */
+public class QuantileSketch {
+
+	// Capacity ratio between a level and the one above it
+	private static final double DECAY = 2.0 / 3.0;
+
+	private final int k;
+
+	private final List<Compactor> levels = new ArrayList<Compactor>();
+
+	// Number of values seen
+	private long count;
+
+	/**
+	 * Constructor
+	 *
+	 * @param k - Integer : Capacity of the top level (accuracy vs memory, at least 8)
+	 */
+	public QuantileSketch(int k) {
+		this.k = Math.max(8, k);
+		levels.add(new Compactor());
+	}
+
+	/**
+	 * Adds a value
+	 *
+	 * @param value - Integer
+	 */
+	public void update(int value) {
+		levels.get(0).add(value);
+		count++;
+		compress();
+	}
+
+	/**
+	 * Adds every value of another sketch (the other sketch is unchanged)
+	 *
+	 * @param other - QuantileSketch : Sketch built with any k
+	 */
+	public void merge(QuantileSketch other) {
+		for (int h = 0; h < other.levels.size(); h++) {
+			if (h == levels.size()) {
+				levels.add(new Compactor());
+			}
+			Compactor source = other.levels.get(h);
+			for (int i = 0; i < source.size; i++) {
+				levels.get(h).add(source.items[i]);
+			}
+		}
+		count += other.count;
+		compress();
+	}
+
+	/**
+	 * Estimated number of values strictly lower than the given one
+	 *
+	 * @param value - Integer
+	 * @return long
+	 */
+	public long rank(int value) {
+		long rank = 0;
+		for (int h = 0; h < levels.size(); h++) {
+			Compactor level = levels.get(h);
+			long lower = 0;
+			for (int i = 0; i < level.size; i++) {
+				if (level.items[i] < value) {
+					lower++;
+				}
+			}
+			rank += lower << h;
+		}
+		return Math.min(rank, count);
+	}
+
+	/**
+	 * Number of values seen
+	 *
+	 * @return long
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Number of values held by the sketch (memory footprint)
+	 *
+	 * @return int
+	 */
+	public int retained() {
+		int retained = 0;
+		for (Compactor level : levels) {
+			retained += level.size;
+		}
+		return retained;
+	}
+
+	/**
+	 * Expected normalized rank error (fraction of the count, about 99% of the
+	 * queries are within it)
+	 *
+	 * @return double
+	 */
+	public double error() {
+		return 2.296 / Math.pow(k, 0.9444);
+	}
+
+	// Compacts the lowest full level until the sketch is back under its size
+	private void compress() {
+		while (retained() >= maxSize()) {
+			for (int h = 0; h < levels.size(); h++) {
+				Compactor level = levels.get(h);
+				if (level.size >= capacity(h)) {
+					if (h + 1 == levels.size()) {
+						levels.add(new Compactor());
+					}
+					level.compactInto(levels.get(h + 1));
+					break;
+				}
+			}
+		}
+	}
+
+	private int maxSize() {
+		int size = 0;
+		for (int h = 0; h < levels.size(); h++) {
+			size += capacity(h);
+		}
+		return size;
+	}
+
+	// Top level holds k items, each level below two thirds of the one above (at least 2)
+	private int capacity(int h) {
+		int depth = levels.size() - 1 - h;
+		return Math.max(2, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+	}
+
+	/**
+	 * Items of one level
+	 */
+	private static final class Compactor {
+		private int[] items = new int[8];
+		private int size;
+
+		private void add(int value) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, size * 2);
+			}
+			items[size++] = value;
+		}
+
+		// Promotes one item of each sorted pair, keeping the odd one out on this level
+		private void compactInto(Compactor next) {
+			Arrays.sort(items, 0, size);
+			int pairs = size / 2;
+			int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+			for (int i = 0; i < pairs; i++) {
+				next.add(items[2 * i + offset]);
+			}
+			if (size % 2 == 1) {
+				items[0] = items[size - 1];
+				size = 1;
+			} else {
+				size = 0;
+			}
+		}
+	}
+}
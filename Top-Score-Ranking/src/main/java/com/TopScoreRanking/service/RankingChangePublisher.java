@@ -0,0 +1,519 @@
+package com.TopScoreRanking.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingDelta;
+import com.TopScoreRanking.exceptions.SubscriptionLimitException;
+
+/**
+ * Pushes leaderboard changes to subscribers. Committed writes are collected as
+ * they reach the indexes and fanned out once per tick: one delta per
+ * subscriber, holding the changes of the players it watches and the new top N
+ * when it moved.
+ * <p>
+ * Each subscriber has at most one delivery in progress. Deltas produced while
+ * it is busy are merged into a single pending one, and when that one grows
+ * past the buffer size its changes are dropped and the subscriber is told to
+ * resync. A slow client never holds more than one delivery thread.
+ * </p>
+ * <p>
+ * A delivery blocked longer than the send timeout evicts its subscriber: the
+ * subscription is closed, the sending thread interrupted and a thread is added
+ * to the pool until the blocked one returns, so stalled clients cannot stop the
+ * delivery to the others. The blocked send itself ends with the container's
+ * write timeout.
+ * </p>
+ * <p>
+ * Records loaded on startup arrive before any subscriber and are not
+ * collected, nor are changes made while nobody listens.
+ * </p>
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class RankingChangePublisher implements RankingIndex, SmartLifecycle {
+
+	private static final Logger log = LoggerFactory.getLogger(RankingChangePublisher.class);
+
+	private final LeaderboardIndex leaderboard;
+
+	private final long tickMs;
+	private final int topSize;
+	private final int maxSubscribers;
+	private final int bufferSize;
+	private final int threads;
+	private final long sendTimeoutNanos;
+
+	// Changes committed since the last tick
+	private final Queue<Change> changes = new ConcurrentLinkedQueue<Change>();
+
+	private final List<Subscription> subscribers = new CopyOnWriteArrayList<Subscription>();
+
+	// Subscriptions handing a delta to their sink (closed ones included, their thread may still block)
+	private final Set<Subscription> sendingNow = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong resyncs = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong evicted = new AtomicLong();
+
+	// Delivery threads still blocked by an evicted subscriber, replaced in the pool
+	private final AtomicInteger stalled = new AtomicInteger();
+
+	// Top N sent by the last tick, only touched by the ticker thread
+	private List<Ranking> lastTop;
+
+	private ScheduledExecutorService ticker;
+	private ThreadPoolExecutor delivery;
+	private volatile boolean running;
+
+	/**
+	 * Constructor
+	 *
+	 * @param leaderboard    - LeaderboardIndex : Source of the top N
+	 * @param tickMs         - Long : Delay between two fan-outs (milliseconds)
+	 * @param topSize        - Integer : Size of the pushed top N (at most the leaderboard capacity)
+	 * @param maxSubscribers - Integer : Maximum number of open subscriptions
+	 * @param bufferSize     - Integer : Changes kept for a busy subscriber before a resync
+	 * @param threads        - Integer : Delivery threads
+	 * @param sendTimeoutMs  - Long : Time a delivery may block before the subscriber is evicted (milliseconds)
+	 */
+	public RankingChangePublisher(LeaderboardIndex leaderboard,
+			@Value("${ranking.push.tick-ms:250}") long tickMs,
+			@Value("${ranking.push.top-size:10}") int topSize,
+			@Value("${ranking.push.max-subscribers:1000}") int maxSubscribers,
+			@Value("${ranking.push.buffer-size:1000}") int bufferSize,
+			@Value("${ranking.push.threads:4}") int threads,
+			@Value("${ranking.push.send-timeout-ms:5000}") long sendTimeoutMs) {
+		this.leaderboard = leaderboard;
+		this.tickMs = Math.max(1, tickMs);
+		this.topSize = Math.min(topSize, leaderboard.getCapacity());
+		this.maxSubscribers = maxSubscribers;
+		this.bufferSize = Math.max(1, bufferSize);
+		this.threads = Math.max(1, threads);
+		this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, sendTimeoutMs));
+	}
+
+	/**
+	 * Drops the changes not sent yet (indexes are being reloaded)
+	 */
+	@Override
+	public void clear() {
+		changes.clear();
+	}
+
+	/**
+	 * Collects a saved ranking record
+	 *
+	 * @param rank - Ranking : Persisted ranking record
+	 */
+	@Override
+	public void add(Ranking rank) {
+		if (!subscribers.isEmpty() && rank != null && rank.getId() != null) {
+			changes.add(new Change(detach(rank), false));
+		}
+	}
+
+	/**
+	 * Collects a deleted ranking record
+	 *
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Override
+	public void remove(Ranking rank) {
+		if (!subscribers.isEmpty() && rank != null && rank.getId() != null) {
+			changes.add(new Change(detach(rank), true));
+		}
+	}
+
+	/**
+	 * Opens a subscription. When the top N is watched, the current one is sent
+	 * right away.
+	 *
+	 * @param players - Collection<String> : Watched players (may be empty)
+	 * @param top     - Boolean : Watch the top N
+	 * @param sink    - Consumer<RankingDelta> : Receives the deltas, one at a time
+	 * @return Subscription - To be closed by the caller
+	 */
+	public Subscription subscribe(Collection<String> players, boolean top, Consumer<RankingDelta> sink) {
+		if (!running || subscribers.size() >= maxSubscribers) {
+			throw new SubscriptionLimitException(maxSubscribers);
+		}
+		Set<String> keys = players == null ? new HashSet<String>()
+				: players.stream().map(Ranking::toPlayerKey).collect(Collectors.toSet());
+		Subscription subscription = new Subscription(keys, top, sink);
+		subscribers.add(subscription);
+
+		if (top) {
+			RankingDelta initial = new RankingDelta(sequence.get());
+			initial.setTop(leaderboard.top(topSize));
+			subscription.offer(initial);
+		}
+		return subscription;
+	}
+
+	/**
+	 * Publisher counters
+	 *
+	 * @return Map<String, Object> - subscribers, ticks, delivered, coalesced, resync, failed and evicted counts
+	 */
+	public Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<String, Object>();
+		status.put("subscribers", subscribers.size());
+		status.put("maxSubscribers", maxSubscribers);
+		status.put("tickMs", tickMs);
+		status.put("ticks", sequence.get());
+		status.put("delivered", delivered.get());
+		status.put("coalesced", coalesced.get());
+		status.put("resync", resyncs.get());
+		status.put("failed", failed.get());
+		status.put("evicted", evicted.get());
+		status.put("stalledThreads", stalled.get());
+		return status;
+	}
+
+	/**
+	 * Fans out the changes collected since the last tick. Only called by the
+	 * ticker thread.
+	 */
+	void tick() {
+		evictStalled();
+
+		if (subscribers.isEmpty()) {
+			changes.clear();
+			return;
+		}
+
+		// Last change per ID wins (saved then deleted in the same tick is a delete)
+		Map<Long, Change> byId = new LinkedHashMap<Long, Change>();
+		for (Change change = changes.poll(); change != null; change = changes.poll()) {
+			byId.remove(change.rank.getId());
+			byId.put(change.rank.getId(), change);
+		}
+
+		List<Ranking> top = leaderboard.top(topSize);
+		boolean topChanged = !top.equals(lastTop);
+		if (byId.isEmpty() && !topChanged) {
+			return;
+		}
+		lastTop = top;
+		long tick = sequence.incrementAndGet();
+
+		for (Subscription subscription : subscribers) {
+			RankingDelta delta = new RankingDelta(tick);
+			if (!subscription.keys.isEmpty()) {
+				for (Change change : byId.values()) {
+					if (change.rank.getPlayer() != null
+							&& subscription.keys.contains(Ranking.toPlayerKey(change.rank.getPlayer()))) {
+						if (change.deleted) {
+							delta.getDeleted().add(change.rank.getId());
+						} else {
+							delta.getSaved().add(change.rank);
+						}
+					}
+				}
+			}
+			if (subscription.top && topChanged) {
+				delta.setTop(top);
+			}
+			if (!delta.isEmpty()) {
+				subscription.offer(delta);
+			}
+		}
+	}
+
+	// Evicts the subscribers whose delivery is blocked past the send timeout
+	private void evictStalled() {
+		long now = System.nanoTime();
+		for (Subscription subscription : sendingNow) {
+			Send send = subscription.inSink.get();
+			if (send != null && now - send.started > sendTimeoutNanos) {
+				subscription.evict(send);
+			}
+		}
+	}
+
+	// Resizes the pool to the configured threads plus the ones still blocked
+	private synchronized void resizeDelivery(int change) {
+		int size = threads + stalled.addAndGet(change);
+		if (size > delivery.getMaximumPoolSize()) {
+			delivery.setMaximumPoolSize(size);
+			delivery.setCorePoolSize(size);
+		} else {
+			delivery.setCorePoolSize(size);
+			delivery.setMaximumPoolSize(size);
+		}
+	}
+
+	/**
+	 * Starts the ticker and the delivery threads
+	 */
+	@Override
+	public void start() {
+		AtomicInteger count = new AtomicInteger();
+		delivery = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread(runnable, "ranking-push-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ranking-push-tick");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.scheduleWithFixedDelay(() -> {
+			try {
+				tick();
+			} catch (RuntimeException e) {
+				log.error("Leaderboard push tick failed", e);
+			}
+		}, tickMs, tickMs, TimeUnit.MILLISECONDS);
+		running = true;
+	}
+
+	/**
+	 * Closes every subscription and stops the threads
+	 */
+	@Override
+	public void stop() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		ticker.shutdownNow();
+		delivery.shutdownNow();
+		subscribers.clear();
+		changes.clear();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	// Keep a detached copy so later changes to the entity do not alter a pending delta
+	private static Ranking detach(Ranking rank) {
+		Ranking copy = new Ranking(rank.getPlayer(), rank.getScore(), rank.getTime());
+		copy.setId(rank.getId());
+		return copy;
+	}
+
+	/**
+	 * Open subscription to the leaderboard changes
+	 */
+	public final class Subscription {
+		private final Set<String> keys;
+		private final boolean top;
+		private final Consumer<RankingDelta> sink;
+
+		// Delivery in progress
+		private final AtomicBoolean sending = new AtomicBoolean();
+
+		// Send in progress, null between two sends. Cleared by the sender when done, or by the
+		// ticker when it gives up on it (whichever comes first)
+		private final AtomicReference<Send> inSink = new AtomicReference<Send>();
+
+		// Run once the send blocked at eviction returns (closes the client connection)
+		private volatile Runnable onEvicted;
+
+		// Delta waiting for the delivery in progress, guarded by this
+		private RankingDelta pending;
+
+		private volatile boolean closed;
+
+		private Subscription(Set<String> keys, boolean top, Consumer<RankingDelta> sink) {
+			this.keys = keys;
+			this.top = top;
+			this.sink = sink;
+		}
+
+		/**
+		 * Stops the deltas (idempotent)
+		 */
+		public void close() {
+			closed = true;
+			subscribers.remove(this);
+		}
+
+		/**
+		 * Checks if the subscription is closed
+		 *
+		 * @return boolean
+		 */
+		public boolean isClosed() {
+			return closed;
+		}
+
+		/**
+		 * Action run when the subscriber was evicted, by the delivery thread once
+		 * the blocked send returns (the sink may not be usable before)
+		 *
+		 * @param action - Runnable : Closes the client connection
+		 */
+		public void onEvicted(Runnable action) {
+			this.onEvicted = action;
+		}
+
+		// Gives up on the blocked send : closes, replaces the sender's thread and interrupts it
+		private void evict(Send send) {
+			if (!inSink.compareAndSet(send, null)) {
+				// Send completed in the meantime
+				return;
+			}
+			evicted.incrementAndGet();
+			log.debug("Leaderboard push blocked for more than the send timeout, evicting the subscriber");
+			close();
+			resizeDelivery(1);
+			send.thread.interrupt();
+		}
+
+		private void runOnEvicted() {
+			Runnable action = onEvicted;
+			if (action != null) {
+				try {
+					action.run();
+				} catch (RuntimeException e) {
+					log.debug("Closing an evicted subscriber failed", e);
+				}
+			}
+		}
+
+		// Merges the delta into the pending one, then makes sure a delivery is scheduled
+		private void offer(RankingDelta delta) {
+			synchronized (this) {
+				if (pending == null) {
+					pending = delta;
+				} else {
+					coalesced.incrementAndGet();
+					pending.setSequence(delta.getSequence());
+					if (delta.getTop() != null) {
+						pending.setTop(delta.getTop());
+					}
+					if (pending.isResync()) {
+						// Already behind, the client reloads everything anyway
+					} else if (pending.getSaved().size() + pending.getDeleted().size() + delta.getSaved().size()
+							+ delta.getDeleted().size() > bufferSize) {
+						resyncs.incrementAndGet();
+						pending.getSaved().clear();
+						pending.getDeleted().clear();
+						pending.setResync(true);
+					} else {
+						pending.getSaved().addAll(delta.getSaved());
+						pending.getDeleted().addAll(delta.getDeleted());
+					}
+				}
+			}
+			schedule();
+		}
+
+		private void schedule() {
+			if (!closed && sending.compareAndSet(false, true)) {
+				try {
+					delivery.execute(this::drain);
+				} catch (RuntimeException e) {
+					// Publisher stopped
+					sending.set(false);
+				}
+			}
+		}
+
+		// Sends pending deltas until there is none left
+		private void drain() {
+			while (true) {
+				RankingDelta delta;
+				synchronized (this) {
+					delta = pending;
+					pending = null;
+				}
+				if (delta == null || closed) {
+					sending.set(false);
+					// A delta may have arrived between the check and the release
+					synchronized (this) {
+						if (pending == null || closed) {
+							return;
+						}
+					}
+					if (!sending.compareAndSet(false, true)) {
+						return;
+					}
+					continue;
+				}
+				Send send = new Send(Thread.currentThread(), System.nanoTime());
+				inSink.set(send);
+				sendingNow.add(this);
+				try {
+					sink.accept(delta);
+					delivered.incrementAndGet();
+				} catch (RuntimeException e) {
+					failed.incrementAndGet();
+					log.debug("Leaderboard push failed, closing the subscription", e);
+					close();
+				}
+				sendingNow.remove(this);
+				if (!inSink.compareAndSet(send, null)) {
+					// Evicted while blocked : the replacement thread is no longer needed
+					Thread.interrupted();
+					resizeDelivery(-1);
+					runOnEvicted();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Send in progress : sending thread and start time (System.nanoTime)
+	 */
+	private static final class Send {
+		private final Thread thread;
+		private final long started;
+
+		private Send(Thread thread, long started) {
+			this.thread = thread;
+			this.started = started;
+		}
+	}
+
+	/**
+	 * Committed write waiting for the next tick
+	 */
+	private static final class Change {
+		private final Ranking rank;
+		private final boolean deleted;
+
+		private Change(Ranking rank, boolean deleted) {
+			this.rank = rank;
+			this.deleted = deleted;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.TopScoreRanking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Objects;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.exceptions.InvalidCursorException;
+
+/**
+ * Keyset pagination cursor. Points at the last (time, id) returned, the next
+ * page starts right after it.
+ * 
+ * @author Marc Mendez
+ */
+public final class RankingCursor {
+
+	private static final String SEPARATOR = "|";
+
+	// Time of the last record returned (null sorts first)
+	private final LocalDateTime time;
+	// ID of the last record returned
+	private final Long id;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param time - LocalDateTime
+	 * @param id   - Long
+	 */
+	public RankingCursor(LocalDateTime time, Long id) {
+		this.time = time;
+		this.id = id;
+	}
+
+	/**
+	 * Cursor pointing at the given record
+	 * 
+	 * @param rank - Ranking : Last record of a page
+	 * @return RankingCursor
+	 */
+	public static RankingCursor of(Ranking rank) {
+		return new RankingCursor(rank.getTime(), rank.getId());
+	}
+
+	/**
+	 * Decodes an opaque "after" token
+	 * 
+	 * @param token - String : Token issued by encode(), null for the first page
+	 * @return RankingCursor - null for the first page
+	 */
+	public static RankingCursor decode(String token) {
+		if (token == null || token.isEmpty()) {
+			return null;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = value.indexOf(SEPARATOR);
+			String time = value.substring(0, separator);
+			Long id = Long.valueOf(value.substring(separator + 1));
+			return new RankingCursor(time.isEmpty() ? null : LocalDateTime.parse(time), id);
+		} catch (RuntimeException e) {
+			throw new InvalidCursorException(token);
+		}
+	}
+
+	/**
+	 * Opaque "after" token
+	 * 
+	 * @return String - URL safe token
+	 */
+	public String encode() {
+		String value = (time == null ? "" : time.toString()) + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Get time of the last record returned
+	public LocalDateTime getTime() {
+		return this.time;
+	}
+
+	// Get ID of the last record returned
+	public Long getId() {
+		return this.id;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof RankingCursor))
+			return false;
+		RankingCursor cursor = (RankingCursor) o;
+		return Objects.equals(this.time, cursor.time) && Objects.equals(this.id, cursor.id);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.time, this.id);
+	}
+
+	@Override
+	public String toString() {
+		return encode();
+	}
+}
@@ -0,0 +1,94 @@
+package com.TopScoreRanking.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.projections.RankingHistoryListInterface;
+import com.TopScoreRanking.projections.RankingHistoryRowInterface;
+
+/**
+ * Computes a player's history (average, top and low score lists, all scores)
+ * in a single pass over the player's score rows.
+ * 
+ * @author Marc Mendez
+ */
+public class RankingHistoryCollector {
+
+	private String player;
+	private long count;
+	private long sum;
+	private int maxScore = Integer.MIN_VALUE;
+	private int minScore = Integer.MAX_VALUE;
+
+	private List<RankingHistoryListInterface> topScore = new ArrayList<RankingHistoryListInterface>();
+	private List<RankingHistoryListInterface> lowScore = new ArrayList<RankingHistoryListInterface>();
+	private final List<RankingHistoryListInterface> allScore = new ArrayList<RankingHistoryListInterface>();
+
+	/**
+	 * Adds one score row
+	 * 
+	 * @param row - RankingHistoryRowInterface : Player's score and time
+	 */
+	public void accept(RankingHistoryRowInterface row) {
+		if (player == null) {
+			player = row.getPlayer();
+		}
+		int score = row.getScore();
+		count++;
+		sum += score;
+		allScore.add(row);
+
+		// Keep every row tied for the best score
+		if (score > maxScore) {
+			maxScore = score;
+			topScore = new ArrayList<RankingHistoryListInterface>();
+		}
+		if (score == maxScore) {
+			topScore.add(row);
+		}
+
+		// Keep every row tied for the worst score
+		if (score < minScore) {
+			minScore = score;
+			lowScore = new ArrayList<RankingHistoryListInterface>();
+		}
+		if (score == minScore) {
+			lowScore.add(row);
+		}
+	}
+
+	/**
+	 * Checks if no row was added
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Aggregated history
+	 * 
+	 * @return RankingHistory
+	 */
+	public RankingHistory toHistory() {
+		return new RankingHistory(player, topScore, lowScore, average(sum, count), allScore);
+	}
+
+	/**
+	 * Average score rounded to 2 decimals
+	 * 
+	 * @param sum   - Long : Sum of scores
+	 * @param count - Long : Number of scores
+	 * @return double
+	 */
+	public static double average(long sum, long count) {
+		if (count == 0) {
+			return 0;
+		}
+		return BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP).doubleValue();
+	}
+}
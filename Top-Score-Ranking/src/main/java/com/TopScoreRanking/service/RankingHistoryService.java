@@ -0,0 +1,244 @@
+package com.TopScoreRanking.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.stereotype.Service;
+
+import com.TopScoreRanking.assembler.RankingHistoryModelAssembler;
+import com.TopScoreRanking.cache.BoundedCache;
+import com.TopScoreRanking.entities.PlayerHistoryResult;
+import com.TopScoreRanking.entities.PlayerStats;
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.exceptions.HistoryBatchLimitException;
+import com.TopScoreRanking.exceptions.HistoryBatchTooLargeException;
+import com.TopScoreRanking.exceptions.HistoryNotFoundException;
+import com.TopScoreRanking.projections.RankingHistoryListInterface;
+import com.TopScoreRanking.projections.RankingHistoryRowInterface;
+import com.TopScoreRanking.repository.RankingRepository;
+
+/**
+ * Player histories (every score with the top, low and average scores) and
+ * history summaries. Histories are cached by player key and evicted by the
+ * writes of RankingService.
+ *
+ * @author Marc Mendez
+ */
+@Service
+public class RankingHistoryService {
+
+	private final RankingRepository repository;
+
+	private final PlayerStatsService playerStats;
+	private final PlayerDictionary players;
+
+	private final RankingHistoryModelAssembler assemblerhs;
+
+	// Player histories by player key (read-through, evicted on the player's writes)
+	private final BoundedCache<String, RankingHistory> historyCache;
+
+	// Players per batch history search, and players per grouped query
+	@Value("${ranking.history.batch.max-players:100}")
+	private int historyBatchMaxPlayers = 100;
+	@Value("${ranking.history.batch.chunk-size:50}")
+	private int historyBatchChunkSize = 50;
+
+	// Batch history searches running at the same time, the next ones are refused
+	@Value("${ranking.history.batch.max-concurrent:4}")
+	private int historyBatchMaxConcurrent = 4;
+	private final AtomicInteger historyBatches = new AtomicInteger();
+
+	/**
+	 * Constructor
+	 *
+	 * @param repository
+	 * @param playerStats
+	 * @param players
+	 * @param assemblerhs
+	 * @param historyCache
+	 */
+	public RankingHistoryService(RankingRepository repository, PlayerStatsService playerStats,
+			PlayerDictionary players, RankingHistoryModelAssembler assemblerhs,
+			BoundedCache<String, RankingHistory> historyCache) {
+		this.repository = repository;
+		this.playerStats = playerStats;
+		this.players = players;
+		this.assemblerhs = assemblerhs;
+		this.historyCache = historyCache;
+	}
+
+	/***
+	 * Search player's history. Result contains:
+	 * <p>Top score (time and score) which the best ever score of the player.</p>
+	 * <p>Low score (time and score) worst score of the player.</p>
+	 * <p>Average score value for player</p>
+	 * <p>List of all the scores (time and score) of this player.</p>
+	 *
+	 * @param player - String : Player name
+	 * @return RankingHistory - Returns player's history searched by player
+	 */
+	public RankingHistory getPlayerScoreHistory(String player) {
+		// Cache first, keyed by the normalized player name
+		return historyCache.get(Ranking.toPlayerKey(player), key -> loadPlayerScoreHistory(player, key));
+	}
+
+	/***
+	 * Search the histories of several players. Cached histories are served from
+	 * the cache, the others are read with one query per chunk of
+	 * ranking.history.batch.chunk-size players. A player without score, or whose
+	 * query failed, is reported in its own result without failing the others.
+	 *
+	 * @param player - List<String> : Players' names (duplicates are answered once)
+	 * @return List<PlayerHistoryResult> - Result of each player, in request order
+	 */
+	public List<PlayerHistoryResult> getPlayerScoreHistories(List<String> player) {
+		// Requested name by player key, case insensitive duplicates are dropped
+		Map<String, String> requested = new LinkedHashMap<String, String>();
+		player.forEach(name -> {
+			if (name != null && !name.trim().isEmpty()) {
+				requested.putIfAbsent(Ranking.toPlayerKey(name.trim()), name.trim());
+			}
+		});
+		if (requested.size() > historyBatchMaxPlayers) {
+			throw new HistoryBatchTooLargeException(historyBatchMaxPlayers);
+		}
+
+		// Bulkhead, a burst of batches cannot take every database connection
+		if (historyBatches.incrementAndGet() > historyBatchMaxConcurrent) {
+			historyBatches.decrementAndGet();
+			throw new HistoryBatchLimitException(historyBatchMaxConcurrent);
+		}
+		try {
+			Map<String, PlayerHistoryResult> results = new HashMap<String, PlayerHistoryResult>();
+
+			// Players to read by player ID, with the cache stamp taken before the read
+			Map<Integer, String> toLoad = new LinkedHashMap<Integer, String>();
+			Map<String, Long> stamps = new HashMap<String, Long>();
+			requested.forEach((key, name) -> {
+				RankingHistory cached = historyCache.get(key);
+				Integer playerId = players.idOfKey(key);
+				if (cached != null) {
+					results.put(key, PlayerHistoryResult.found(name, cached));
+				} else if (playerId == null) {
+					results.put(key, PlayerHistoryResult.notFound(name, new HistoryNotFoundException(name).getMessage()));
+				} else {
+					stamps.put(key, historyCache.stamp(key));
+					toLoad.put(playerId, key);
+				}
+			});
+
+			List<Integer> playerIds = new ArrayList<Integer>(toLoad.keySet());
+			for (int from = 0; from < playerIds.size(); from += historyBatchChunkSize) {
+				List<Integer> chunk = playerIds.subList(from, Math.min(from + historyBatchChunkSize, playerIds.size()));
+
+				// Rows of the whole chunk, split by player in the same pass
+				Map<String, RankingHistoryCollector> collectors = new HashMap<String, RankingHistoryCollector>();
+				try {
+					for (RankingHistoryRowInterface row : repository.findScoreRowsByPlayerIdIn(chunk)) {
+						collectors.computeIfAbsent(Ranking.toPlayerKey(row.getPlayer()),
+								key -> new RankingHistoryCollector()).accept(row);
+					}
+				} catch (RuntimeException e) {
+					String error = "Could not read history: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+					chunk.forEach(playerId -> results.put(toLoad.get(playerId),
+							PlayerHistoryResult.failed(requested.get(toLoad.get(playerId)), error)));
+					continue;
+				}
+
+				for (Integer playerId : chunk) {
+					String key = toLoad.get(playerId);
+					String name = requested.get(key);
+					RankingHistoryCollector collector = collectors.get(key);
+					if (collector == null) {
+						results.put(key, PlayerHistoryResult.notFound(name, new HistoryNotFoundException(name).getMessage()));
+					} else {
+						RankingHistory history = collector.toHistory();
+						historyCache.put(key, history, stamps.get(key));
+						results.put(key, PlayerHistoryResult.found(name, history));
+					}
+				}
+			}
+
+			return requested.keySet().stream().map(results::get).collect(Collectors.toList());
+		} finally {
+			historyBatches.decrementAndGet();
+		}
+	}
+
+	// Player's history read from the database, throws exception when the player has no score
+	private RankingHistory loadPlayerScoreHistory(String player, String playerKey) {
+		// Get player's all score list and aggregate average, top and low scores in the same pass
+		RankingHistoryCollector collector = new RankingHistoryCollector();
+		Integer playerId = players.idOfKey(playerKey);
+		if (playerId != null) {
+			repository.findScoreRowsByPlayer(playerId).forEach(collector::accept);
+		}
+
+		// Throws exception when no results returned
+		if (collector.isEmpty()) {
+			throw new HistoryNotFoundException(player);
+		}
+
+		// Aggregate all results above into the class-based projection
+		return collector.toHistory();
+	}
+
+	/***
+	 * Search player's history summary from the player statistics. Average, top and
+	 * low scores are read without scanning the player's records, the list of all
+	 * scores is not included.
+	 *
+	 * @param player - String : Player name
+	 * @return EntityModel<RankingHistory> - Returns RESTful output with player's history summary
+	 */
+	public EntityModel<RankingHistory> getPlayerScoreSummary(String player) {
+		// Get player statistics, throws exception when the player has no score
+		PlayerStats stats = playerStats.find(player).orElseThrow(() -> new HistoryNotFoundException(player));
+
+		// Get player's top and low score lists (every record tied for the extreme)
+		Integer playerId = players.idOfKey(stats.getPlayerKey());
+		List<RankingHistoryListInterface> topScoreList = new ArrayList<RankingHistoryListInterface>(
+				repository.findScoreRowsByPlayerAndScore(playerId, stats.getMaxScore()));
+		List<RankingHistoryListInterface> lowScoreList = stats.getMinScore() == stats.getMaxScore() ? topScoreList
+				: new ArrayList<RankingHistoryListInterface>(
+						repository.findScoreRowsByPlayerAndScore(playerId, stats.getMinScore()));
+
+		RankingHistory rankHistory = new RankingHistory(stats.getPlayer(), topScoreList, lowScoreList,
+				RankingHistoryCollector.average(stats.getScoreSum(), stats.getScoreCount()), null);
+
+		return assemblerhs.toModel(rankHistory);
+	}
+
+	/**
+	 * Evicts the player's cached history now and once committed (a read may
+	 * reload the old history in between)
+	 *
+	 * @param rank - Ranking : Saved or deleted ranking record
+	 */
+	public void invalidate(Ranking rank) {
+		if (rank.getPlayer() == null) {
+			return;
+		}
+		String key = Ranking.toPlayerKey(rank.getPlayer());
+		historyCache.invalidate(key);
+		AfterCommit.run(() -> historyCache.invalidate(key));
+	}
+
+	/**
+	 * History cache counters
+	 *
+	 * @return Map<String, Object>
+	 */
+	public Map<String, Object> getCacheStats() {
+		return historyCache.stats();
+	}
+}
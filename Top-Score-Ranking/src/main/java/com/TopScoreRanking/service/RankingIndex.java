@@ -0,0 +1,31 @@
+package com.TopScoreRanking.service;
+
+import com.TopScoreRanking.entities.Ranking;
+
+/**
+ * In-memory structure kept in sync with the Ranking table. Implementations are
+ * loaded on startup and notified by RankingService on every write.
+ *
+ * @author Marc Mendez
+ */
+public interface RankingIndex {
+
+	/**
+	 * Removes every record (called before loading from the database)
+	 */
+	void clear();
+
+	/**
+	 * Adds a persisted ranking record
+	 *
+	 * @param rank - Ranking
+	 */
+	void add(Ranking rank);
+
+	/**
+	 * Removes a deleted ranking record
+	 *
+	 * @param rank - Ranking
+	 */
+	void remove(Ranking rank);
+}
@@ -0,0 +1,327 @@
+package com.TopScoreRanking.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingAcceptance;
+import com.TopScoreRanking.entities.RankingBatchResult;
+import com.TopScoreRanking.exceptions.IngestionQueueFullException;
+
+/**
+ * Optional write-behind ingestion. Accepted records wait in a bounded queue and
+ * a single background writer stores them in group commits through
+ * RankingService.saveRankings. The queue is flushed when the application stops.
+ * <p>
+ * Readers see the accepted records until they are indexed: a committed chunk is
+ * indexed and dropped from the pending records under the same lock, so a read
+ * sees each record either pending or indexed. Readers get a copy taken on
+ * acceptance, the writer stores another one.
+ * </p>
+ * <p>
+ * Accepting a record and closing the intake on stop are exclusive, so the
+ * final flush sees every accepted record.
+ * </p>
+ * 
+ * @author Marc Mendez
+ */
+@Component
+public class RankingIngestionQueue implements SmartLifecycle {
+
+	private static final Logger log = LoggerFactory.getLogger(RankingIngestionQueue.class);
+
+	private final RankingService rankService;
+
+	private final boolean enabled;
+	private final int capacity;
+	private final long flushIntervalMs;
+	private final int batchSize;
+
+	private final BlockingQueue<PendingRanking> queue;
+
+	// Records taken from the queue and not indexed yet (read-your-writes overlay), guarded by the overlay lock
+	private final List<PendingRanking> inFlight = new ArrayList<PendingRanking>();
+
+	// Moves of records from pending to indexed (write) and reads of both (read)
+	private final ReadWriteLock overlayLock = new ReentrantReadWriteLock();
+
+	// Accepting records (read) and closing the intake (write)
+	private final ReadWriteLock intakeLock = new ReentrantReadWriteLock();
+
+	private final AtomicLong tickets = new AtomicLong();
+	private final AtomicLong accepted = new AtomicLong();
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejectedFull = new AtomicLong();
+
+	private ScheduledExecutorService writer;
+	private volatile boolean running;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param rankService     - RankingService : Writes the drained records
+	 * @param enabled         - Boolean : Write-behind mode on/off
+	 * @param capacity        - Integer : Maximum number of pending records
+	 * @param flushIntervalMs - Long : Delay between two flushes (milliseconds)
+	 * @param batchSize       - Integer : Maximum number of records per group commit
+	 */
+	public RankingIngestionQueue(@Lazy RankingService rankService,
+			@Value("${ranking.ingest.async.enabled:false}") boolean enabled,
+			@Value("${ranking.ingest.async.capacity:10000}") int capacity,
+			@Value("${ranking.ingest.async.flush-interval-ms:100}") long flushIntervalMs,
+			@Value("${ranking.ingest.batch-size:500}") int batchSize) {
+		this.rankService = rankService;
+		this.enabled = enabled;
+		this.capacity = capacity;
+		this.flushIntervalMs = flushIntervalMs;
+		this.batchSize = batchSize;
+		this.queue = new ArrayBlockingQueue<PendingRanking>(Math.max(1, capacity));
+	}
+
+	/**
+	 * Checks if write-behind mode is on
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Queues a record for the background writer
+	 * 
+	 * @param rank - Ranking : New ranking record
+	 * @return RankingAcceptance - Accepted ID and queue depth
+	 */
+	public RankingAcceptance offer(Ranking rank) {
+		PendingRanking entry = new PendingRanking(rank);
+		boolean queued;
+		intakeLock.readLock().lock();
+		try {
+			queued = running && queue.offer(entry);
+		} finally {
+			intakeLock.readLock().unlock();
+		}
+		if (!queued) {
+			rejectedFull.incrementAndGet();
+			throw new IngestionQueueFullException(capacity);
+		}
+		accepted.incrementAndGet();
+
+		return new RankingAcceptance(tickets.incrementAndGet(), rank, queue.size());
+	}
+
+	/**
+	 * Records accepted but not indexed yet
+	 * 
+	 * @return List<Ranking> - Copies of the pending records taken on acceptance (IDs are not assigned)
+	 */
+	public List<Ranking> pending() {
+		return read(pending -> pending);
+	}
+
+	/**
+	 * Reads the in-memory indexes together with the pending records. No chunk is
+	 * indexed during the read, a record is seen either pending or indexed.
+	 * 
+	 * @param reader - Function<List<Ranking>, T> : Reads the indexes, given the pending records
+	 * @return T - Result of the reader
+	 */
+	public <T> T read(Function<List<Ranking>, T> reader) {
+		if (!enabled) {
+			return reader.apply(Collections.<Ranking>emptyList());
+		}
+		overlayLock.readLock().lock();
+		try {
+			List<Ranking> pending = new ArrayList<Ranking>(inFlight.size() + queue.size());
+			inFlight.forEach(entry -> pending.add(entry.accepted));
+			queue.forEach(entry -> pending.add(entry.accepted));
+			return reader.apply(pending);
+		} finally {
+			overlayLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Number of records waiting to be written
+	 * 
+	 * @return int
+	 */
+	public int depth() {
+		overlayLock.readLock().lock();
+		try {
+			return queue.size() + inFlight.size();
+		} finally {
+			overlayLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Queue counters
+	 * 
+	 * @return Map<String, Object> - enabled, capacity, depth, accepted, written, failed and rejected counts
+	 */
+	public Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<String, Object>();
+		status.put("enabled", enabled);
+		status.put("capacity", capacity);
+		status.put("depth", depth());
+		status.put("accepted", accepted.get());
+		status.put("written", written.get());
+		status.put("failed", failed.get());
+		status.put("rejected", rejectedFull.get());
+		return status;
+	}
+
+	/**
+	 * Writes pending records in group commits until the queue is empty. Called by
+	 * the writer thread and on stop (the writer may still be running if it did
+	 * not end in time).
+	 */
+	synchronized void flush() {
+		while (!queue.isEmpty()) {
+			// Move the head of the queue to the in-flight records, readers see it in either place
+			List<PendingRanking> taken = new ArrayList<PendingRanking>(Math.min(batchSize, queue.size()));
+			overlayLock.writeLock().lock();
+			try {
+				for (Iterator<PendingRanking> it = queue.iterator(); it.hasNext() && taken.size() < batchSize;) {
+					taken.add(it.next());
+				}
+				for (int i = 0; i < taken.size(); i++) {
+					queue.poll();
+				}
+				inFlight.addAll(taken);
+			} finally {
+				overlayLock.writeLock().unlock();
+			}
+
+			List<Ranking> batch = taken.stream().map(entry -> entry.written).collect(Collectors.toList());
+			try {
+				for (RankingBatchResult result : rankService.saveRankings(batch, this::publish)) {
+					if (RankingBatchResult.CREATED.equals(result.getStatus())) {
+						written.incrementAndGet();
+					} else {
+						failed.incrementAndGet();
+						log.warn("Write-behind record {} rejected: {}", batch.get(result.getIndex()),
+								result.getMessage());
+					}
+				}
+			} catch (RuntimeException e) {
+				failed.addAndGet(batch.size());
+				log.error("Write-behind flush of {} records failed", batch.size(), e);
+			} finally {
+				// Records that could not be stored are dropped
+				overlayLock.writeLock().lock();
+				try {
+					inFlight.clear();
+				} finally {
+					overlayLock.writeLock().unlock();
+				}
+			}
+		}
+	}
+
+	// Indexes a committed chunk and drops its records from the pending ones at once
+	private void publish(List<Ranking> written, Runnable indexing) {
+		Set<Ranking> indexed = Collections.newSetFromMap(new IdentityHashMap<Ranking, Boolean>());
+		indexed.addAll(written);
+
+		overlayLock.writeLock().lock();
+		try {
+			indexing.run();
+			inFlight.removeIf(entry -> indexed.contains(entry.written));
+		} finally {
+			overlayLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Starts the background writer when write-behind mode is on
+	 */
+	@Override
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ranking-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+		running = true;
+	}
+
+	/**
+	 * Stops accepting records, then writes everything still pending
+	 */
+	@Override
+	public void stop() {
+		// Waits for the records being accepted, none is accepted afterwards
+		intakeLock.writeLock().lock();
+		try {
+			if (!running) {
+				return;
+			}
+			running = false;
+		} finally {
+			intakeLock.writeLock().unlock();
+		}
+		writer.shutdown();
+		try {
+			writer.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	// Stopped after the web server stopped taking requests, before the database is closed
+	@Override
+	public int getPhase() {
+		return Integer.MAX_VALUE - 2048;
+	}
+
+	/**
+	 * Accepted record: the copy shown to readers is never changed, the writer
+	 * stores (and assigns an ID to) its own copy
+	 */
+	private static final class PendingRanking {
+		private final Ranking accepted;
+		private final Ranking written;
+
+		private PendingRanking(Ranking rank) {
+			this.accepted = new Ranking(rank.getPlayer(), rank.getScore(), rank.getTime());
+			this.written = new Ranking(rank.getPlayer(), rank.getScore(), rank.getTime());
+		}
+	}
+}
@@ -4,88 +4,390 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.TopScoreRanking.assembler.RankingHistoryModelAssembler;
+import com.TopScoreRanking.assembler.RankingLinks;
 import com.TopScoreRanking.assembler.RankingModelAssembler;
 import com.TopScoreRanking.assembler.RankingModelByIdAssembler;
-import com.TopScoreRanking.controller.RankingController;
+import com.TopScoreRanking.cache.BoundedCache;
+import com.TopScoreRanking.controller.RankingRecordController;
+import com.TopScoreRanking.entities.PlayerStats;
 import com.TopScoreRanking.entities.Ranking;
-import com.TopScoreRanking.entities.RankingHistory;
-import com.TopScoreRanking.exceptions.HistoryNotFoundException;
+import com.TopScoreRanking.entities.RankingAcceptance;
+import com.TopScoreRanking.entities.RankingBatchResult;
+import com.TopScoreRanking.entities.RankingList;
 import com.TopScoreRanking.exceptions.IDNotFoundException;
+import com.TopScoreRanking.exceptions.InvalidRankingException;
 import com.TopScoreRanking.exceptions.PlayerNotFoundException;
-import com.TopScoreRanking.projections.RankingHistoryDataInterface;
-import com.TopScoreRanking.projections.RankingHistoryListInterface;
 import com.TopScoreRanking.repository.RankingRepository;
 
 /**
- * Business logic handler for Top Score Ranking
+ * Business logic handler for Top Score Ranking : registrations, searches and
+ * deletes. Every write keeps the in-memory indexes and the caches in sync, the
+ * leaderboard reads are served by LeaderboardService and the histories by
+ * RankingHistoryService.
  * 
  * @author Marc Mendez
  */
 @Service
 public class RankingService {
 
+	// Before any stored time, lower bound of the keyset range once the records without time are read
+	private static final LocalDateTime EARLIEST_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+
 	private final RankingRepository repository;
 
+	private final PlayerStatsService playerStats;
+	private final PlayerDictionary players;
+
+	private final TransactionTemplate transactionTemplate;
+
 	private final RankingModelAssembler assembler;
 	private final RankingModelByIdAssembler assemblerid;
-	private final RankingHistoryModelAssembler assemblerhs;
+
+	// Precomputed collection-level links
+	private final RankingLinks links;
+
+	private final RankingIngestionQueue ingestionQueue;
+
+	// Ranking records by ID (read-through, evicted on delete)
+	private final BoundedCache<Long, Ranking> recordCache;
+
+	// Player histories, evicted on the player's writes
+	private final RankingHistoryService historyService;
+
+	// Every in-memory structure kept in sync with the table
+	private final List<RankingIndex> indexes;
+
+	// Rows read per query when scanning the whole table
+	@Value("${ranking.scan.batch-size:500}")
+	private int scanBatchSize = 500;
+
+	// Records per page of /ranking/all, default and largest page size
+	@Value("${ranking.all.page-size:500}")
+	private int allPageSize = 500;
+
+	// Rows inserted per transaction by batch registration
+	@Value("${ranking.ingest.batch-size:500}")
+	private int ingestBatchSize = 500;
+
 
 	/**
 	 * Constructor
 	 * 
 	 * @param repository
+	 * @param playerStats
+	 * @param players
+	 * @param transactionTemplate
 	 * @param assembler
 	 * @param assemblerid
-	 * @param assemblerhs
+	 * @param links
+	 * @param ingestionQueue
+	 * @param recordCache
+	 * @param historyService
+	 * @param indexes
 	 */
-	public RankingService(RankingRepository repository, RankingModelAssembler assembler,
-			RankingModelByIdAssembler assemblerid, RankingHistoryModelAssembler assemblerhs) {
+	public RankingService(RankingRepository repository, PlayerStatsService playerStats, PlayerDictionary players,
+			TransactionTemplate transactionTemplate, RankingModelAssembler assembler,
+			RankingModelByIdAssembler assemblerid, RankingLinks links, RankingIngestionQueue ingestionQueue,
+			BoundedCache<Long, Ranking> recordCache, RankingHistoryService historyService,
+			List<RankingIndex> indexes) {
 		this.repository = repository;
+		this.playerStats = playerStats;
+		this.players = players;
+		this.transactionTemplate = transactionTemplate;
 		this.assembler = assembler;
 		this.assemblerid = assemblerid;
-		this.assemblerhs = assemblerhs;
+		this.links = links;
+		this.ingestionQueue = ingestionQueue;
+		this.recordCache = recordCache;
+		this.historyService = historyService;
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Fills the player ID of records stored before the column existed, then loads
+	 * the in-memory indexes from the database on startup. Player statistics
+	 * are backfilled in the same pass when the statistics table is new.
+	 */
+	@PostConstruct
+	public void rebuildIndexes() {
+		// Player IDs first (new players in their own transaction), then one update per player
+		Map<String, Integer> playerIds = new LinkedHashMap<String, Integer>();
+		for (String player : repository.findPlayersWithoutId()) {
+			playerIds.computeIfAbsent(Ranking.toPlayerKey(player), key -> players.intern(player));
+		}
+		playerIds.forEach(repository::backfillPlayerId);
+
+		indexes.forEach(RankingIndex::clear);
+
+		Map<String, PlayerStats> backfill = playerStats.isEmpty() ? new HashMap<String, PlayerStats>() : null;
+
+		forEachRanking(rank -> {
+			indexes.forEach(index -> index.add(rank));
+
+			if (backfill != null && rank.getPlayer() != null) {
+				backfill.computeIfAbsent(Ranking.toPlayerKey(rank.getPlayer()), key -> new PlayerStats(rank.getPlayer()))
+						.add(rank.getScore(), rank.getTime());
+			}
+		});
+
+		if (backfill != null && !backfill.isEmpty()) {
+			playerStats.saveAll(backfill.values());
+		}
 	}
 
 	/**
-	 * Get all records from the database
+	 * Get all records from the database (with keyset pagination). Pages are
+	 * ordered by ID and continue after the given ID, so a page costs the same
+	 * whatever its depth and the table is never read at once.
 	 * 
-	 * @return List<EntityModel<Ranking>> - returns list of player
+	 * @param after - Long : ID of the last record of the previous page (null for the first page)
+	 * @param size  - Integer : Page size (null for ranking.all.page-size, which is also the largest)
+	 * @return RankingList - Returns the page with its self and "next" links
 	 */
-	public List<EntityModel<Ranking>> getAll() {
-		return repository.findAll().stream().map(assembler::toModel).collect(Collectors.toList());
+	public RankingList getAll(Long after, Integer size) {
+		int pageSize = allPageSize(size);
+		List<Ranking> rows = allRows(after, pageSize);
+
+		Map<String, String> pageLinks = new LinkedHashMap<String, String>();
+		pageLinks.put("self", links.all(after, pageSize));
+
+		// Next page continues after the last record returned
+		if (rows.size() > pageSize) {
+			rows = rows.subList(0, pageSize);
+			pageLinks.put("next", links.all(rows.get(rows.size() - 1).getId(), pageSize));
+		}
+		return new RankingList(rows, pageLinks);
+	}
+
+	// Page size of /ranking/all, at most ranking.all.page-size
+	private int allPageSize(Integer size) {
+		return size == null || size <= 0 ? allPageSize : Math.min(size, allPageSize);
+	}
+
+	// One record more than the page, to know whether there is a next page
+	private List<Ranking> allRows(Long after, int size) {
+		return repository.findByIdGreaterThanOrderByIdAsc(after == null ? Long.MIN_VALUE : after,
+				PageRequest.of(0, size + 1));
 	}
 
 	/**
-	 * Register new record to database
+	 * Visit every record of the database in ID order. Rows are read in keyset
+	 * batches so memory use stays flat regardless of the table size.
+	 * 
+	 * @param consumer - Consumer<Ranking> : Called once per record
+	 */
+	public void forEachRanking(Consumer<Ranking> consumer) {
+		Pageable batch = PageRequest.of(0, scanBatchSize);
+		Long lastId = Long.MIN_VALUE;
+
+		while (true) {
+			List<Ranking> rows = repository.findByIdGreaterThanOrderByIdAsc(lastId, batch);
+			if (rows == null || rows.isEmpty()) {
+				return;
+			}
+			rows.forEach(consumer);
+			lastId = rows.get(rows.size() - 1).getId();
+		}
+	}
+
+	/**
+	 * Register new record to database. New players are added to the dictionary,
+	 * and get their statistics row, before the record's transaction, so a
+	 * registration never holds two connections.
 	 * 
 	 * @param newRanking - Ranking : New ranking record to be registered
 	 * @return EntityModel<Ranking> - Returns RESTful output
 	 */
 	public EntityModel<Ranking> saveRanking(Ranking newRanking) {
-		return assembler.toModel(repository.save(newRanking));
+		// Reference the player by ID (new players are added to the dictionary)
+		newRanking.setPlayerId(players.intern(newRanking.getPlayer()));
+		playerStats.createRows(Collections.singletonList(newRanking));
+
+		Ranking rank = transactionTemplate.execute(status -> {
+			Ranking saved = repository.save(newRanking);
+
+			// Update player statistics in the same transaction
+			playerStats.recordSave(saved);
+
+			// Player's cached history is out of date
+			historyService.invalidate(saved);
+
+			// Keep the in-memory indexes in sync with the table
+			AfterCommit.run(() -> indexes.forEach(index -> index.add(saved)));
+			return saved;
+		});
+
+		return assembler.toModel(rank);
+	}
+
+	/**
+	 * Checks if single registrations go through the write-behind queue
+	 * 
+	 * @return boolean
+	 */
+	public boolean isWriteBehind() {
+		return ingestionQueue.isEnabled();
 	}
 
 	/**
-	 * Search player's score using ID
+	 * Accept a new record for asynchronous registration. The record is stored by
+	 * the write-behind queue in a later group commit.
+	 * 
+	 * @param newRanking - Ranking : New ranking record to be registered
+	 * @return RankingAcceptance - Accepted ID and queue depth
+	 */
+	public RankingAcceptance acceptRanking(Ranking newRanking) {
+		// Invalid records are refused now, the client would never see the later failure
+		String error = validate(newRanking);
+		if (error != null) {
+			throw new InvalidRankingException(error);
+		}
+
+		// Throws exception when the queue is full
+		return ingestionQueue.offer(newRanking);
+	}
+
+	/**
+	 * Write-behind queue counters
+	 * 
+	 * @return Map<String, Object> - enabled, capacity, depth, accepted, written, failed and rejected counts
+	 */
+	public Map<String, Object> getIngestionStatus() {
+		return ingestionQueue.status();
+	}
+
+	/**
+	 * In-process cache counters
+	 * 
+	 * @return Map<String, Object> - Counters by cache name
+	 */
+	public Map<String, Object> getCacheStats() {
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("record", recordCache.stats());
+		stats.put("history", historyService.getCacheStats());
+		return stats;
+	}
+
+	/**
+	 * Register a batch of new records to database. Valid records are inserted in
+	 * chunks of ranking.ingest.batch-size, one transaction and one JDBC batch per
+	 * chunk. A failing chunk does not stop the others.
+	 * 
+	 * @param newRankings - List<Ranking> : New ranking records to be registered
+	 * @return List<RankingBatchResult> - Result of each record, in request order
+	 */
+	public List<RankingBatchResult> saveRankings(List<Ranking> newRankings) {
+		return saveRankings(newRankings, (written, indexing) -> indexing.run());
+	}
+
+	/**
+	 * Register a batch of new records to database, the indexing of each committed
+	 * chunk is handed to the publisher (write-behind queue)
+	 * 
+	 * @param newRankings - List<Ranking> : New ranking records to be registered
+	 * @param publisher   - BiConsumer<List<Ranking>, Runnable> : Runs the indexing of the written records
+	 * @return List<RankingBatchResult> - Result of each record, in request order
+	 */
+	public List<RankingBatchResult> saveRankings(List<Ranking> newRankings,
+			BiConsumer<List<Ranking>, Runnable> publisher) {
+		RankingBatchResult[] results = new RankingBatchResult[newRankings.size()];
+
+		// Reject invalid records up front
+		List<Integer> accepted = new ArrayList<Integer>();
+		for (int i = 0; i < newRankings.size(); i++) {
+			String error = validate(newRankings.get(i));
+			if (error == null) {
+				accepted.add(i);
+			} else {
+				results[i] = RankingBatchResult.rejected(i, error);
+			}
+		}
+
+		for (int from = 0; from < accepted.size(); from += ingestBatchSize) {
+			List<Integer> chunk = accepted.subList(from, Math.min(from + ingestBatchSize, accepted.size()));
+			List<Ranking> ranks = chunk.stream().map(newRankings::get).collect(Collectors.toList());
+
+			// Reference the players by ID before the chunk's transaction (new players are added to the dictionary)
+			ranks.forEach(rank -> rank.setPlayerId(players.intern(rank.getPlayer())));
+			playerStats.createRows(ranks);
+
+			try {
+				List<Ranking> saved = transactionTemplate.execute(status -> {
+					List<Ranking> rows = repository.saveAll(ranks);
+
+					// Update player statistics in the same transaction
+					playerStats.recordSaveAll(rows);
+
+					// Players' cached histories are out of date
+					rows.forEach(historyService::invalidate);
+					return rows;
+				});
+
+				for (int i = 0; i < chunk.size(); i++) {
+					results[chunk.get(i)] = RankingBatchResult.created(chunk.get(i), saved.get(i).getId());
+				}
+
+				// Keep the in-memory indexes in sync with the table (chunk is committed)
+				publisher.accept(ranks, () -> saved.forEach(rank -> indexes.forEach(index -> index.add(rank))));
+			} catch (RuntimeException e) {
+				String error = "Could not store record: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+				chunk.forEach(i -> results[i] = RankingBatchResult.rejected(i, error));
+			}
+		}
+
+		return Arrays.asList(results);
+	}
+
+	// Reason why a record cannot be registered, null if valid
+	private static String validate(Ranking rank) {
+		if (rank == null) {
+			return "Missing record";
+		}
+		if (rank.getPlayer() == null || rank.getPlayer().trim().isEmpty()) {
+			return "Missing player";
+		}
+		if (rank.getScore() <= 0) {
+			return "Score must be greater than 0";
+		}
+		return null;
+	}
+
+	/**
+	 * Search player's score using ID. Records are cached (links are still built
+	 * per request, they depend on the request's base URI).
 	 * 
 	 * @param id - Long : Unique ranking ID
 	 * @return EntityModel<Ranking> - Returns RESTful output with ranking records searched by ID
 	 */
 	public EntityModel<Ranking> filterById(Long id) {
 
-		// search player by id, throws Exception if not existing.
-		Ranking rank = repository.findById(id).orElseThrow(() -> new IDNotFoundException(id));
+		// search player by id (cache first), throws Exception if not existing.
+		Ranking rank = recordCache.get(id,
+				key -> repository.findById(key).orElseThrow(() -> new IDNotFoundException(key)));
 
 		EntityModel<Ranking> entityModel = assemblerid.toModel(rank);
 
@@ -98,55 +400,23 @@ public class RankingService {
 	 * @param player - List<String> : List of players to search
 	 * @param page   - Integer : Current Page no. (Zero base)
 	 * @param size   - Integer : Page size
-	 * @return CollectionModel<EntityModel<Ranking>> - Returns RESTful output with embedded ranking records searched by ID
+	 * @return RankingList - Returns the ranking records with the self, next, previous and all links
 	 */
-	public CollectionModel<EntityModel<Ranking>> filterByPlayers(List<String> player, int page, int size) {
-		Pageable paging = PageRequest.of(page, size);
-		Page<Ranking> pageDate;
-
-		// Search player by player name (Case Insensitive)
-		pageDate = repository.findByPlayerInIgnoreCase(player, paging);
-
-		// Throws exception when no results returned
-		if (pageDate.isEmpty()) {
-			throw new PlayerNotFoundException(player);
+	public RankingList filterByPlayers(List<String> player, int page, int size) {
+		Page<Ranking> pageDate = findByPlayers(player, page, size);
+
+		// RESTful Pagination Links
+		Map<String, String> pageLinks = new LinkedHashMap<String, String>();
+		pageLinks.put("self", links.searchList(player, page, size));
+		if (pageDate.hasNext()) {
+			pageLinks.put("next", links.searchList(player, page + 1, size));
 		}
-
-		int totalPage = pageDate.getTotalPages();
-		int nextPage = Math.min(page + 1, totalPage - 1);
-		int prevPage = Math.max(page - 1, 0);
-
-		List<EntityModel<Ranking>> rank = pageDate.stream().map(assembler::toModel).collect(Collectors.toList());
-
-		// Conditions for RESTful Pagination Links
-		if (nextPage == 0 && prevPage == 0) {
-			// If results are within a single page
-			return CollectionModel.of(rank,
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, page, size)).withSelfRel(),
-					linkTo(methodOn(RankingController.class).all()).withRel("all"));
-		} else if (nextPage == totalPage - 1) {
-			// If first page
-			return CollectionModel.of(rank,
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, page, size)).withSelfRel(),
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, prevPage, size))
-							.withRel("previous"),
-					linkTo(methodOn(RankingController.class).all()).withRel("all"));
-		} else if (prevPage == 0) {
-			// If last page
-			return CollectionModel.of(rank,
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, page, size)).withSelfRel(),
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, nextPage, size)).withRel("next"),
-					linkTo(methodOn(RankingController.class).all()).withRel("all"));
-		} else {
-			// else, display both next and previous links
-			return CollectionModel.of(rank,
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, page, size)).withSelfRel(),
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, nextPage, size)).withRel("next"),
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, prevPage, size))
-							.withRel("previous"),
-					linkTo(methodOn(RankingController.class).all()).withRel("all"));
+		if (pageDate.hasPrevious()) {
+			pageLinks.put("previous", links.searchList(player, page - 1, size));
 		}
+		pageLinks.put("all", links.all());
 
+		return new RankingList(pageDate.getContent(), pageLinks);
 	}
 
 	/**
@@ -157,98 +427,133 @@ public class RankingService {
 	 * @param size     - Integer : Page size
 	 * @param onbefore - LocalDateTime : Filter by on or before the given date and time
 	 * @param onafter  - LocalDateTime : Filter by on or after the given date and time
-	 * @return CollectionModel<EntityModel<Ranking>> - Returns RESTful output with embedded ranking records searched by ID
+	 * @return RankingList - Returns the ranking records with the self, next, previous and all links
 	 */
-	public CollectionModel<EntityModel<Ranking>> filterByPlayersAndDate(List<String> player, int page, int size,
-			LocalDateTime onbefore, LocalDateTime onafter) {
-		Pageable paging = PageRequest.of(page, size);
-		Page<Ranking> pageDate;
+	public RankingList filterByPlayersAndDate(List<String> player, int page, int size, LocalDateTime onbefore,
+			LocalDateTime onafter) {
+		Page<Ranking> pageDate = findByPlayersAndDate(player, page, size, onbefore, onafter);
+
+		// RESTful Pagination Links
+		Map<String, String> pageLinks = new LinkedHashMap<String, String>();
+		pageLinks.put("self", links.searchList(player, page, size, onbefore, onafter));
+		if (pageDate.hasNext()) {
+			pageLinks.put("next", links.searchList(player, page + 1, size, onbefore, onafter));
+		}
+		if (pageDate.hasPrevious()) {
+			pageLinks.put("previous", links.searchList(player, page - 1, size, onbefore, onafter));
+		}
+		pageLinks.put("all", links.all());
+
+		return new RankingList(pageDate.getContent(), pageLinks);
+	}
 
-		// Search by player name and given date and time
-		pageDate = repository.findByPlayerWithBeforeAndAfterTime(player, onbefore, onafter, paging);
+	// Page of player's scores, throws exception when no results returned
+	private Page<Ranking> findByPlayers(List<String> player, int page, int size) {
+		// Search player by player ID (Case Insensitive, names resolved by the player dictionary)
+		List<Integer> playerIds = players.idsOf(player);
+		Page<Ranking> pageDate = playerIds.isEmpty() ? Page.empty()
+				: repository.findByPlayerIdIn(playerIds, PageRequest.of(page, size));
 
-		// Throws exception when no results returned
 		if (pageDate.isEmpty()) {
 			throw new PlayerNotFoundException(player);
 		}
+		return pageDate;
+	}
 
-		int totalPage = pageDate.getTotalPages();
-		int nextPage = Math.min(page + 1, totalPage - 1);
-		int prevPage = Math.max(page - 1, 0);
-
-		List<EntityModel<Ranking>> rank = pageDate.stream().map(assembler::toModel).collect(Collectors.toList());
-
-		// Conditions for RESTful Pagination Links
-		if (nextPage == 0 && prevPage == 0) {
-			// If results are within a single page
-			return CollectionModel.of(rank,
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, page, size, onbefore, onafter))
-							.withSelfRel(),
-					linkTo(methodOn(RankingController.class).all()).withRel("all"));
-		} else if (nextPage == totalPage - 1) {
-			// If last page
-			return CollectionModel.of(rank,
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, page, size, onbefore, onafter))
-							.withSelfRel(),
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, prevPage, size, onbefore, onafter))
-							.withRel("previous"),
-					linkTo(methodOn(RankingController.class).all()).withRel("all"));
-		} else if (prevPage == 0) {
-			// If first page
-			return CollectionModel.of(rank,
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, page, size, onbefore, onafter))
-							.withSelfRel(),
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, nextPage, size, onbefore, onafter))
-							.withRel("next"),
-					linkTo(methodOn(RankingController.class).all()).withRel("all"));
-		} else {
-			// else, display both next and previous links
-			return CollectionModel.of(rank,
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, page, size, onbefore, onafter))
-							.withSelfRel(),
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, nextPage, size, onbefore, onafter))
-							.withRel("next"),
-					linkTo(methodOn(RankingController.class).searchByPlayers(player, prevPage, size, onbefore, onafter))
-							.withRel("previous"),
-					linkTo(methodOn(RankingController.class).all()).withRel("all"));
+	// Page of player's scores filtered by date, throws exception when no results returned
+	private Page<Ranking> findByPlayersAndDate(List<String> player, int page, int size, LocalDateTime onbefore,
+			LocalDateTime onafter) {
+		// Search by player ID and given date and time
+		List<Integer> playerIds = players.idsOf(player);
+		Page<Ranking> pageDate = playerIds.isEmpty() ? Page.empty()
+				: repository.findByPlayerWithBeforeAndAfterTime(playerIds, onbefore, onafter, PageRequest.of(page, size));
+
+		if (pageDate.isEmpty()) {
+			throw new PlayerNotFoundException(player);
 		}
+		return pageDate;
 	}
 
-	/***
-	 * Search player's history. Result contains: 
-	 * <p>Top score (time and score) which the best ever score of the player.</p>
-	 * <p>Low score (time and score) worst score of the player.</p>
-	 * <p>Average score value for player</p>
-	 * <p>List of all the scores (time and score) of this player.</p>
+	/**
+	 * Search player's score list filtered by date (with keyset pagination). Pages
+	 * are ordered by (time, id) and continue after the given cursor, so deep pages
+	 * cost the same as the first one and no count query is issued.
 	 * 
-	 * @param player - String : Player name
-	 * @return EntityModel<RankingHistory> - Returns RESTful output with player's history searched by player
+	 * @param player   - List<String> : List of players to search
+	 * @param size     - Integer : Page size
+	 * @param after    - String : Cursor returned by the previous page (null for the first page)
+	 * @param onbefore - LocalDateTime : Filter by on or before the given date and time
+	 * @param onafter  - LocalDateTime : Filter by on or after the given date and time
+	 * @return RankingList - Returns the ranking records with the self, "next" cursor and all links
 	 */
-	public EntityModel<RankingHistory> getPlayerScoreHistory(String player) {
-		// Get player name and player's average score
-		RankingHistoryDataInterface playerAndAvgScore = repository.findAvgByPlayer(player);
+	public RankingList seekByPlayersAndDate(List<String> player, int size, String after, LocalDateTime onbefore,
+			LocalDateTime onafter) {
+		List<Ranking> rows = seekRows(player, size, after, onbefore, onafter);
+
+		Map<String, String> pageLinks = new LinkedHashMap<String, String>();
+		pageLinks.put("self", seekLink(player, size, after, onbefore, onafter));
+
+		// Next page continues after the last record returned
+		if (rows.size() > size) {
+			rows = rows.subList(0, size);
+			String next = RankingCursor.of(rows.get(rows.size() - 1)).encode();
+			pageLinks.put("next", seekLink(player, size, next, onbefore, onafter));
+		}
+		pageLinks.put("all", links.all());
 
-		// Get player's top score list
-		List<RankingHistoryListInterface> topScoreList = repository.findMaxScoreListByPlayer(player);
+		return new RankingList(rows, pageLinks);
+	}
+
+	// Up to size + 1 records after the cursor (the extra one tells if there is a next page)
+	private List<Ranking> seekRows(List<String> player, int size, String after, LocalDateTime onbefore,
+			LocalDateTime onafter) {
+		RankingCursor cursor = RankingCursor.decode(after);
 
-		// Get player's low score list
-		List<RankingHistoryListInterface> lowScoreList = repository.findMinScoreListByPlayer(player);
+		List<Integer> playerIds = players.idsOf(player);
 
-		// Get player's all score list
-		List<RankingHistoryListInterface> allScoreList = repository.findAllScoreListByPlayer(player);
+		// First page
+		if (cursor == null) {
+			List<Ranking> rows = playerIds.isEmpty() ? new ArrayList<Ranking>()
+					: repository.findByPlayerFirstPage(playerIds, onbefore, onafter, PageRequest.of(0, size + 1));
 
-		// Throws exception when no results returned
-		if (topScoreList.isEmpty() || lowScoreList.isEmpty() || allScoreList.isEmpty()) {
-			throw new HistoryNotFoundException(player);
+			// Throws exception when no results returned
+			if (rows.isEmpty()) {
+				throw new PlayerNotFoundException(player);
+			}
+			return rows;
 		}
 
-		// Aggregate all results above into the class-based projection
-		RankingHistory rankHistory = new RankingHistory(playerAndAvgScore.getPlayer(), topScoreList, lowScoreList,
-				playerAndAvgScore.getAvgScore(), allScoreList);
+		if (playerIds.isEmpty()) {
+			return new ArrayList<Ranking>();
+		}
 
-		EntityModel<RankingHistory> entityModel = assemblerhs.toModel(rankHistory);
+		// Next page of records with a time, on a plain range of the player ID and time index
+		if (cursor.getTime() != null) {
+			return repository.findByPlayerAfterCursor(playerIds, onbefore, onafter, cursor.getTime(),
+					cursor.getId(), PageRequest.of(0, size + 1));
+		}
 
-		return entityModel;
+		// Records without time sort first (never matched by a date filter), then the records with a time
+		List<Ranking> rows = new ArrayList<Ranking>();
+		if (onbefore == null && onafter == null) {
+			rows.addAll(repository.findByPlayerWithoutTimeAfterId(playerIds, cursor.getId(),
+					PageRequest.of(0, size + 1)));
+		}
+		if (rows.size() <= size) {
+			rows.addAll(repository.findByPlayerAfterCursor(playerIds, onbefore, onafter, EARLIEST_TIME,
+					Long.MIN_VALUE, PageRequest.of(0, size + 1 - rows.size())));
+		}
+		return rows;
+	}
+
+	// Keyset pagination link, with or without date filter
+	private String seekLink(List<String> player, int size, String after, LocalDateTime onbefore,
+			LocalDateTime onafter) {
+		if (onbefore == null && onafter == null) {
+			return links.href(linkTo(methodOn(RankingRecordController.class).seekByPlayers(player, size, after)));
+		}
+		return links.href(linkTo(
+				methodOn(RankingRecordController.class).seekByPlayers(player, size, after, onbefore, onafter)));
 	}
 
 	/***
@@ -256,7 +561,25 @@ public class RankingService {
 	 * 
 	 * @param id - Long : Unique ranking ID
 	 */
+	@Transactional
 	public void deleteRanking(Long id) {
+		Optional<Ranking> rank = repository.findById(id);
+
 		repository.deleteById(id);
+
+		// Evict now and once committed (a lookup may reload the row in between)
+		recordCache.invalidate(id);
+		AfterCommit.run(() -> recordCache.invalidate(id));
+
+		rank.ifPresent(deleted -> {
+			// Update player statistics in the same transaction
+			playerStats.recordDelete(deleted);
+
+			// Player's cached history is out of date
+			historyService.invalidate(deleted);
+
+			// Keep the in-memory indexes in sync with the table
+			AfterCommit.run(() -> indexes.forEach(index -> index.remove(deleted)));
+		});
 	}
 }
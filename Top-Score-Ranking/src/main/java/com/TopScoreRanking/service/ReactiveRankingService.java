@@ -0,0 +1,86 @@
+package com.TopScoreRanking.service;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.exceptions.HistoryNotFoundException;
+import com.TopScoreRanking.repository.ReactiveRankingRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Business logic of the reactive read path (ranking.reactive.enabled). Same
+ * results as RankingService, read through R2DBC without holding a thread while
+ * the database answers. Writes stay on RankingService.
+ * 
+ * @author Marc Mendez
+ */
+@Service
+@ConditionalOnProperty(name = "ranking.reactive.enabled", havingValue = "true")
+public class ReactiveRankingService {
+
+	private final ReactiveRankingRepository repository;
+
+	private final PlayerDictionary players;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param repository
+	 * @param players
+	 */
+	public ReactiveRankingService(ReactiveRankingRepository repository, PlayerDictionary players) {
+		this.repository = repository;
+		this.players = players;
+	}
+
+	/**
+	 * Get all records
+	 * 
+	 * @return Flux<Ranking> - Ranking records by ID
+	 */
+	public Flux<Ranking> getAll() {
+		return repository.findAll();
+	}
+
+	/**
+	 * Search player's score list (with Pagination)
+	 * 
+	 * @param player - List<String> : List of players to search
+	 * @param page   - Integer : Current Page no. (Zero base)
+	 * @param size   - Integer : Page size
+	 * @return Flux<Ranking> - Ranking records, empty when the players have no score
+	 */
+	public Flux<Ranking> filterByPlayers(List<String> player, int page, int size) {
+		// Search player by player ID (Case Insensitive, names resolved by the player dictionary)
+		List<Integer> playerIds = players.idsOf(player);
+		if (playerIds.isEmpty()) {
+			return Flux.empty();
+		}
+		return repository.findByPlayerIdIn(playerIds, Math.max(0, page), Math.max(1, size));
+	}
+
+	/**
+	 * Search player's history
+	 * 
+	 * @param player - String : Player name
+	 * @return Mono<RankingHistory> - Player's history, HistoryNotFoundException when the player has no score
+	 */
+	public Mono<RankingHistory> getPlayerScoreHistory(String player) {
+		Integer playerId = players.idOf(player);
+		if (playerId == null) {
+			return Mono.error(new HistoryNotFoundException(player));
+		}
+
+		// Aggregate average, top and low scores as the rows arrive
+		return repository.findScoreRowsByPlayer(playerId)
+				.collect(RankingHistoryCollector::new, RankingHistoryCollector::accept)
+				.filter(collector -> !collector.isEmpty()).map(RankingHistoryCollector::toHistory)
+				.switchIfEmpty(Mono.error(() -> new HistoryNotFoundException(player)));
+	}
+}
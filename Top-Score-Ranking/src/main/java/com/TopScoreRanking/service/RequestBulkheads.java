@@ -0,0 +1,245 @@
+package com.TopScoreRanking.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.exceptions.BulkheadFullException;
+
+/**
+ * Optional asynchronous execution of the endpoints that wait on the database.
+ * Each endpoint runs on its own bounded pool with a bounded queue, the Tomcat
+ * thread is released as soon as the work is queued. A full bulkhead refuses
+ * the request right away, a burst on one endpoint cannot take the threads of
+ * the others.
+ * <p>
+ * Pools are sized by kind of endpoint (searches, histories, writes). Their
+ * threads are only started under load and stop after a minute idle.
+ * </p>
+ * <p>
+ * When disabled the work runs on the calling thread, as before.
+ * </p>
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class RequestBulkheads implements SmartLifecycle {
+
+	// Searches (ranking.async.read.threads each)
+	public static final String SEARCH_BY_ID = "searchscore";
+	public static final String SEARCH_LIST = "searchlist";
+	public static final String TIME_SEARCH_LIST = "timefilter-searchlist";
+	public static final String SEEK_LIST = "seek-searchlist";
+	public static final String SEEK_TIME_LIST = "seek-timefilter-searchlist";
+
+	// Player histories (ranking.async.history.threads each)
+	public static final String HISTORY = "history";
+	public static final String HISTORY_SUMMARY = "history-summary";
+	public static final String HISTORY_BATCH = "history-batch";
+
+	// Registrations and deletes (ranking.async.write.threads each)
+	public static final String REGISTER = "register";
+	public static final String REGISTER_BATCH = "register-batch";
+	public static final String DELETE = "delete";
+
+	private final boolean enabled;
+	private final int queueCapacity;
+
+	// Threads per bulkhead, in creation order
+	private final Map<String, Integer> threads = new LinkedHashMap<String, Integer>();
+
+	private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<String, Bulkhead>();
+
+	private volatile boolean running;
+
+	// Time given to the queued and running requests when stopping
+	@Value("${ranking.async.shutdown-timeout-ms:30000}")
+	private long shutdownTimeoutMs = 30000;
+
+	/**
+	 * Constructor
+	 *
+	 * @param enabled        - Boolean : Asynchronous mode on/off
+	 * @param readThreads    - Integer : Threads of each search bulkhead
+	 * @param historyThreads - Integer : Threads of each history bulkhead
+	 * @param writeThreads   - Integer : Threads of each registration and delete bulkhead
+	 * @param queueCapacity  - Integer : Requests waiting per bulkhead before new ones are refused
+	 */
+	public RequestBulkheads(@Value("${ranking.async.enabled:false}") boolean enabled,
+			@Value("${ranking.async.read.threads:16}") int readThreads,
+			@Value("${ranking.async.history.threads:8}") int historyThreads,
+			@Value("${ranking.async.write.threads:8}") int writeThreads,
+			@Value("${ranking.async.queue-capacity:200}") int queueCapacity) {
+		this.enabled = enabled;
+		this.queueCapacity = Math.max(1, queueCapacity);
+		for (String endpoint : Arrays.asList(SEARCH_BY_ID, SEARCH_LIST, TIME_SEARCH_LIST, SEEK_LIST, SEEK_TIME_LIST)) {
+			threads.put(endpoint, Math.max(1, readThreads));
+		}
+		for (String endpoint : Arrays.asList(HISTORY, HISTORY_SUMMARY, HISTORY_BATCH)) {
+			threads.put(endpoint, Math.max(1, historyThreads));
+		}
+		for (String endpoint : Arrays.asList(REGISTER, REGISTER_BATCH, DELETE)) {
+			threads.put(endpoint, Math.max(1, writeThreads));
+		}
+	}
+
+	/**
+	 * Checks if the endpoints run asynchronously
+	 *
+	 * @return boolean
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Runs the work on the bulkhead's pool, or on the calling thread when the
+	 * asynchronous mode is disabled. The work does not get the request context
+	 * (the request may be recycled before it runs), anything it needs from the
+	 * request must be resolved by the caller before the hand-off.
+	 *
+	 * @param bulkhead - String : Endpoint (SEARCH_BY_ID, HISTORY, REGISTER...)
+	 * @param work     - Supplier<T> : Endpoint work
+	 * @return CompletableFuture<T> - Completed with the result, or with the exception thrown
+	 */
+	public <T> CompletableFuture<T> supply(String bulkhead, Supplier<T> work) {
+		if (!enabled) {
+			// Exceptions reach the exception handlers the usual way
+			return CompletableFuture.completedFuture(work.get());
+		}
+		Bulkhead target = bulkheads.get(bulkhead);
+		if (target == null) {
+			throw new IllegalArgumentException("Unknown bulkhead " + bulkhead);
+		}
+		return target.supply(work);
+	}
+
+	/**
+	 * Requests waiting in a bulkhead
+	 *
+	 * @param bulkhead - String : Endpoint (SEARCH_BY_ID, HISTORY, REGISTER...)
+	 * @return int - 0 when the asynchronous mode is disabled
+	 */
+	public int queued(String bulkhead) {
+		Bulkhead target = bulkheads.get(bulkhead);
+		return target == null ? 0 : target.pool.getQueue().size();
+	}
+
+	/**
+	 * Bulkhead counters
+	 *
+	 * @return Map<String, Object> - threads, active, queued, peak queue, completed and rejected counts per bulkhead
+	 */
+	public Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<String, Object>();
+		status.put("enabled", enabled);
+		for (Map.Entry<String, Bulkhead> entry : bulkheads.entrySet()) {
+			status.put(entry.getKey(), entry.getValue().status());
+		}
+		return status;
+	}
+
+	/**
+	 * Starts the bulkhead pools (asynchronous mode only)
+	 */
+	@Override
+	public void start() {
+		if (enabled) {
+			threads.forEach((name, size) -> bulkheads.put(name, new Bulkhead(name, size)));
+		}
+		running = true;
+	}
+
+	/**
+	 * Stops taking requests, then lets the queued and running ones complete
+	 * (ranking.async.shutdown-timeout-ms at most, the remaining ones are
+	 * interrupted)
+	 */
+	@Override
+	public void stop() {
+		running = false;
+		bulkheads.values().forEach(bulkhead -> bulkhead.pool.shutdown());
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+		try {
+			for (Bulkhead bulkhead : bulkheads.values()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0 || !bulkhead.pool.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		bulkheads.values().forEach(bulkhead -> bulkhead.pool.shutdownNow());
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	// Stopped after the web server stopped taking requests
+	@Override
+	public int getPhase() {
+		return Integer.MAX_VALUE - 1024;
+	}
+
+	/**
+	 * Bounded pool of one endpoint
+	 */
+	private final class Bulkhead {
+		private final String name;
+		private final ThreadPoolExecutor pool;
+
+		private final AtomicInteger peakQueue = new AtomicInteger();
+		private final AtomicLong rejected = new AtomicLong();
+
+		private Bulkhead(String name, int size) {
+			this.name = name;
+			AtomicInteger count = new AtomicInteger();
+			this.pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<Runnable>(queueCapacity), runnable -> {
+						Thread thread = new Thread(runnable, "ranking-" + name + "-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}, new ThreadPoolExecutor.AbortPolicy());
+			this.pool.allowCoreThreadTimeOut(true);
+		}
+
+		private <T> CompletableFuture<T> supply(Supplier<T> work) {
+			try {
+				CompletableFuture<T> result = CompletableFuture.supplyAsync(work, pool);
+				peakQueue.accumulateAndGet(pool.getQueue().size(), Math::max);
+				return result;
+			} catch (RejectedExecutionException e) {
+				rejected.incrementAndGet();
+				throw new BulkheadFullException(name, queueCapacity);
+			}
+		}
+
+		private Map<String, Object> status() {
+			Map<String, Object> status = new LinkedHashMap<String, Object>();
+			status.put("threads", pool.getMaximumPoolSize());
+			status.put("active", pool.getActiveCount());
+			status.put("queued", pool.getQueue().size());
+			status.put("queueCapacity", queueCapacity);
+			status.put("peakQueued", peakQueue.get());
+			status.put("completed", pool.getCompletedTaskCount());
+			status.put("rejected", rejected.get());
+			return status;
+		}
+	}
+}
@@ -0,0 +1,332 @@
+package com.TopScoreRanking.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+
+/**
+ * Columnar copy of the Ranking table in primitive arrays: ID (long), player
+ * (int, ID of the player dictionary), score (int) and time (epoch seconds as an
+ * unsigned int, good until 2106), 20 bytes per score instead of a few hundred
+ * for an entity.
+ * Rows are kept in ID order so a record is found by binary search without a
+ * map. Deleted rows are marked and compacted once they are a quarter of the
+ * store.
+ * <p>
+ * Times are kept to the second and records come back with the player's name
+ * as registered with its first score. Ranking objects are only built for the
+ * rows returned by a query.
+ * </p>
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class ScoreStore implements RankingIndex {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	// Player column of a deleted row
+	private static final int DELETED = -1;
+
+	// Time column of a record without time (largest unsigned value)
+	private static final int NO_TIME = -1;
+
+	// Bytes per row : id + player + score + time
+	private static final int ROW_BYTES = Long.BYTES + 3 * Integer.BYTES;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private long[] ids = new long[INITIAL_CAPACITY];
+	private int[] players = new int[INITIAL_CAPACITY];
+	private int[] scores = new int[INITIAL_CAPACITY];
+	private int[] times = new int[INITIAL_CAPACITY];
+
+	// Used rows, deleted rows included
+	private int size;
+	private int deleted;
+
+	// Player names by ID, shared with the other player searches
+	private final PlayerDictionary dictionary;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dictionary - PlayerDictionary : Player IDs and names
+	 */
+	public ScoreStore(PlayerDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Removes every record
+	 */
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			ids = new long[INITIAL_CAPACITY];
+			players = new int[INITIAL_CAPACITY];
+			scores = new int[INITIAL_CAPACITY];
+			times = new int[INITIAL_CAPACITY];
+			size = 0;
+			deleted = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds (or replaces) a ranking record
+	 *
+	 * @param rank - Ranking : Persisted ranking record
+	 */
+	@Override
+	public void add(Ranking rank) {
+		if (rank == null || rank.getId() == null || rank.getPlayer() == null) {
+			return;
+		}
+		long id = rank.getId();
+		Integer playerId = dictionary.idOfRecord(rank);
+		if (playerId == null) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			int row;
+			if (size == 0 || id > ids[size - 1]) {
+				// IDs come from a sequence, appending is the usual case
+				row = size;
+				insertAt(row);
+			} else {
+				row = Arrays.binarySearch(ids, 0, size, id);
+				if (row < 0) {
+					// Committed out of order, a few rows from the end
+					row = -row - 1;
+					insertAt(row);
+				} else if (players[row] == DELETED) {
+					deleted--;
+				}
+			}
+			ids[row] = id;
+			players[row] = playerId;
+			scores[row] = rank.getScore();
+			times[row] = toColumn(rank.getTime());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a ranking record
+	 *
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Override
+	public void remove(Ranking rank) {
+		if (rank == null || rank.getId() == null) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			int row = Arrays.binarySearch(ids, 0, size, rank.getId());
+			if (row < 0 || players[row] == DELETED) {
+				return;
+			}
+			players[row] = DELETED;
+			deleted++;
+			if (deleted > INITIAL_CAPACITY && deleted > size / 4) {
+				compact();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Best n ranking records with a time in the given range, in one pass over
+	 * the score and time columns
+	 *
+	 * @param n        - Integer : Number of records
+	 * @param onafter  - LocalDateTime : On or after the given date and time (optional)
+	 * @param onbefore - LocalDateTime : On or before the given date and time (optional)
+	 * @return List<Ranking> - Ordered by score desc, time and id
+	 */
+	public List<Ranking> top(int n, LocalDateTime onafter, LocalDateTime onbefore) {
+		long from = onafter == null ? 0 : Math.max(0, onafter.toEpochSecond(ZoneOffset.UTC));
+		long to = onbefore == null ? Long.MAX_VALUE : onbefore.toEpochSecond(ZoneOffset.UTC);
+		boolean anyTime = onafter == null && onbefore == null;
+
+		lock.readLock().lock();
+		try {
+			// Heap of row numbers, worst kept row on top
+			int[] heap = new int[Math.max(0, Math.min(n, size))];
+			int kept = 0;
+			for (int row = 0; row < size && heap.length > 0; row++) {
+				if (players[row] == DELETED) {
+					continue;
+				}
+				if (!anyTime) {
+					long time = Integer.toUnsignedLong(times[row]);
+					if (times[row] == NO_TIME || time < from || time > to) {
+						continue;
+					}
+				}
+				if (kept < heap.length) {
+					heap[kept] = row;
+					siftUp(heap, kept++);
+				} else if (better(row, heap[0])) {
+					heap[0] = row;
+					siftDown(heap, kept);
+				}
+			}
+
+			// Worst kept row leaves the heap first and goes last
+			Ranking[] top = new Ranking[kept];
+			for (int last = kept - 1; last >= 0; last--) {
+				top[last] = toRanking(heap[0]);
+				heap[0] = heap[last];
+				siftDown(heap, last);
+			}
+			return Arrays.asList(top);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Store counters
+	 *
+	 * @return Map<String, Object> - rows, deleted rows, players, capacity and bytes used per score
+	 */
+	public Map<String, Object> stats() {
+		lock.readLock().lock();
+		try {
+			long bytes = (long) ids.length * ROW_BYTES;
+			int rows = size - deleted;
+
+			Map<String, Object> stats = new LinkedHashMap<String, Object>();
+			stats.put("rows", rows);
+			stats.put("deleted", deleted);
+			stats.put("players", dictionary.size());
+			stats.put("capacity", ids.length);
+			stats.put("bytes", bytes);
+			stats.put("bytesPerScore", rows == 0 ? 0 : bytes / rows);
+			return stats;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Called with the write lock held
+	private void insertAt(int row) {
+		if (size == ids.length) {
+			// Grow by an eighth, the unused tail stays under 3 bytes per score
+			int capacity = ids.length + Math.max(INITIAL_CAPACITY, ids.length >> 3);
+			ids = Arrays.copyOf(ids, capacity);
+			players = Arrays.copyOf(players, capacity);
+			scores = Arrays.copyOf(scores, capacity);
+			times = Arrays.copyOf(times, capacity);
+		}
+		int moved = size - row;
+		if (moved > 0) {
+			System.arraycopy(ids, row, ids, row + 1, moved);
+			System.arraycopy(players, row, players, row + 1, moved);
+			System.arraycopy(scores, row, scores, row + 1, moved);
+			System.arraycopy(times, row, times, row + 1, moved);
+		}
+		size++;
+	}
+
+	// Called with the write lock held
+	private void compact() {
+		int live = 0;
+		for (int row = 0; row < size; row++) {
+			if (players[row] != DELETED) {
+				ids[live] = ids[row];
+				players[live] = players[row];
+				scores[live] = scores[row];
+				times[live] = times[row];
+				live++;
+			}
+		}
+		size = live;
+		deleted = 0;
+	}
+
+	private static int toColumn(LocalDateTime time) {
+		if (time == null) {
+			return NO_TIME;
+		}
+		// Unsigned epoch seconds, 1970 to 2106
+		long seconds = Math.min(0xFFFFFFFEL, Math.max(0, time.toEpochSecond(ZoneOffset.UTC)));
+		return (int) seconds;
+	}
+
+	// Called with the read lock held
+	private Ranking toRanking(int row) {
+		LocalDateTime time = times[row] == NO_TIME ? null
+				: LocalDateTime.ofEpochSecond(Integer.toUnsignedLong(times[row]), 0, ZoneOffset.UTC);
+		Ranking rank = new Ranking(dictionary.nameOf(players[row]), scores[row], time);
+		rank.setId(ids[row]);
+		rank.setPlayerId(players[row]);
+		return rank;
+	}
+
+	// Same order as LeaderboardIndex.ORDER : score desc, then earliest time (no time last), then lowest ID
+	private boolean better(int row, int other) {
+		if (scores[row] != scores[other]) {
+			return scores[row] > scores[other];
+		}
+		if (times[row] != times[other]) {
+			return Integer.compareUnsigned(times[row], times[other]) < 0;
+		}
+		return ids[row] < ids[other];
+	}
+
+	private void siftUp(int[] heap, int index) {
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (!better(heap[parent], heap[index])) {
+				return;
+			}
+			swap(heap, parent, index);
+			index = parent;
+		}
+	}
+
+	private void siftDown(int[] heap, int size) {
+		int index = 0;
+		while (true) {
+			int worst = index;
+			int left = 2 * index + 1;
+			int right = left + 1;
+			if (left < size && better(heap[worst], heap[left])) {
+				worst = left;
+			}
+			if (right < size && better(heap[worst], heap[right])) {
+				worst = right;
+			}
+			if (worst == index) {
+				return;
+			}
+			swap(heap, index, worst);
+			index = worst;
+		}
+	}
+
+	private static void swap(int[] heap, int i, int j) {
+		int row = heap[i];
+		heap[i] = heap[j];
+		heap[j] = row;
+	}
+}
@@ -0,0 +1,241 @@
+package com.TopScoreRanking.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+
+/**
+ * Best scores of the last N hours, moving continuously. Ranking.time is cut in
+ * fixed length segments kept in a ring, each holding the top K records of its
+ * segment. A query merges the segments still in the window. Segments leaving
+ * the window are reused, so memory stays at (window / granularity + 1) * K
+ * records.
+ * <p>
+ * Deleting a record of a full segment does not bring back the (K+1)th one, the
+ * segment then answers with one record less until it expires.
+ * </p>
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class SlidingWindowIndex implements RankingIndex {
+
+	private final long windowMinutes;
+	private final long segmentMinutes;
+	private final int segmentCapacity;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Ring of segments, slot = segment number modulo ring size
+	private final Segment[] ring;
+
+	/**
+	 * Constructor
+	 *
+	 * @param windowHours     - Long : Window length (hours)
+	 * @param segmentMinutes  - Long : Granularity of the expiry (minutes)
+	 * @param segmentCapacity - Integer : Records kept per segment (largest top n served)
+	 */
+	public SlidingWindowIndex(@Value("${ranking.recent.window-hours:24}") long windowHours,
+			@Value("${ranking.recent.segment-minutes:60}") long segmentMinutes,
+			@Value("${ranking.recent.segment-capacity:100}") int segmentCapacity) {
+		this.windowMinutes = TimeUnit.HOURS.toMinutes(windowHours);
+		this.segmentMinutes = Math.max(1, segmentMinutes);
+		this.segmentCapacity = Math.max(1, segmentCapacity);
+
+		// One more segment than the window holds, the oldest one is partly out of the window
+		int size = (int) ((this.windowMinutes + this.segmentMinutes - 1) / this.segmentMinutes) + 1;
+		this.ring = new Segment[size];
+		for (int i = 0; i < size; i++) {
+			ring[i] = new Segment();
+		}
+	}
+
+	/**
+	 * Removes every record
+	 */
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			for (Segment segment : ring) {
+				segment.reset(Long.MIN_VALUE);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a ranking record to the segment of its time. Records already out of the
+	 * window, or dated after the current segment, are ignored.
+	 *
+	 * @param rank - Ranking : Persisted ranking record
+	 */
+	@Override
+	public void add(Ranking rank) {
+		if (rank == null || rank.getId() == null || rank.getTime() == null) {
+			return;
+		}
+		// Records out of the window, or ahead of the clock (they would take the slot of a segment still in use)
+		LocalDateTime now = LocalDateTime.now();
+		long number = segmentOf(rank.getTime());
+		if (number < segmentOf(now.minusMinutes(windowMinutes)) || number > segmentOf(now)) {
+			return;
+		}
+
+		// Keep a detached copy so later changes to the entity do not corrupt the order
+		Ranking copy = new Ranking(rank.getPlayer(), rank.getScore(), rank.getTime());
+		copy.setId(rank.getId());
+
+		lock.writeLock().lock();
+		try {
+			Segment segment = ring[slot(number)];
+			if (segment.number > number) {
+				// Slot already reused by a more recent segment
+				return;
+			}
+			if (segment.number < number) {
+				segment.reset(number);
+			}
+			segment.records.add(copy);
+			if (segment.records.size() > segmentCapacity) {
+				segment.records.pollLast();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a ranking record
+	 *
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Override
+	public void remove(Ranking rank) {
+		if (rank == null || rank.getTime() == null) {
+			return;
+		}
+		long number = segmentOf(rank.getTime());
+
+		lock.writeLock().lock();
+		try {
+			Segment segment = ring[slot(number)];
+			if (segment.number == number) {
+				segment.records.removeIf(record -> record.getId().equals(rank.getId()));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Best n ranking records with a time in the window ending at the given time
+	 *
+	 * @param n   - Integer : Number of records (at most the segment capacity)
+	 * @param now - LocalDateTime : End of the window
+	 * @return List<Ranking> - Ordered by score desc, time and id
+	 */
+	public List<Ranking> top(int n, LocalDateTime now) {
+		LocalDateTime cutoff = now.minusMinutes(windowMinutes);
+		long oldest = segmentOf(cutoff);
+		long newest = segmentOf(now);
+		int limit = Math.min(n, segmentCapacity);
+
+		lock.readLock().lock();
+		try {
+			// K-way merge of the segments in the window, best head first
+			PriorityQueue<Head> heads = new PriorityQueue<Head>(ring.length,
+					(left, right) -> LeaderboardIndex.ORDER.compare(left.record, right.record));
+			for (Segment segment : ring) {
+				if (segment.number >= oldest && segment.number <= newest) {
+					Head head = Head.first(segment.records.iterator(), cutoff, now);
+					if (head != null) {
+						heads.add(head);
+					}
+				}
+			}
+
+			List<Ranking> top = new ArrayList<Ranking>(limit);
+			while (top.size() < limit && !heads.isEmpty()) {
+				Head head = heads.poll();
+				top.add(head.record);
+				Head next = Head.first(head.rest, cutoff, now);
+				if (next != null) {
+					heads.add(next);
+				}
+			}
+			return top;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Window length
+	 *
+	 * @return long - minutes
+	 */
+	public long getWindowMinutes() {
+		return windowMinutes;
+	}
+
+	// Segment number of a time (minutes since epoch divided by the granularity)
+	private long segmentOf(LocalDateTime time) {
+		return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC) / 60, segmentMinutes);
+	}
+
+	private int slot(long number) {
+		return (int) Math.floorMod(number, (long) ring.length);
+	}
+
+	/**
+	 * Top K records of a segment
+	 */
+	private static final class Segment {
+		private long number = Long.MIN_VALUE;
+		private final TreeSet<Ranking> records = new TreeSet<Ranking>(LeaderboardIndex.ORDER);
+
+		private void reset(long number) {
+			this.number = number;
+			records.clear();
+		}
+	}
+
+	/**
+	 * Next record of a segment during the merge
+	 */
+	private static final class Head {
+		private final Ranking record;
+		private final Iterator<Ranking> rest;
+
+		private Head(Ranking record, Iterator<Ranking> rest) {
+			this.record = record;
+			this.rest = rest;
+		}
+
+		// Next record within [cutoff, now], null when the segment is exhausted
+		private static Head first(Iterator<Ranking> records, LocalDateTime cutoff, LocalDateTime now) {
+			while (records.hasNext()) {
+				Ranking record = records.next();
+				if (!record.getTime().isBefore(cutoff) && !record.getTime().isAfter(now)) {
+					return new Head(record, records);
+				}
+			}
+			return null;
+		}
+	}
+}
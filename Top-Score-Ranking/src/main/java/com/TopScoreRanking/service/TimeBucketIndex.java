@@ -0,0 +1,295 @@
+package com.TopScoreRanking.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.exceptions.TopLimitException;
+import com.TopScoreRanking.repository.RankingRepository;
+
+/**
+ * In-memory daily, weekly and monthly leaderboards. Each bucket (a day, a week
+ * or a month of Ranking.time) keeps its top K records ordered by (score desc,
+ * time, id). Only the current and the previous bucket of each window are kept,
+ * older buckets are retired, so memory stays at 6 * K records.
+ * <p>
+ * A bucket that dropped records and then falls below K by deletions is
+ * refilled from the database on its next read.
+ * </p>
+ *
+ * @author Marc Mendez
+ */
+@Component
+public class TimeBucketIndex implements RankingIndex {
+
+	// Windows maintained here (ALLTIME is LeaderboardIndex)
+	private static final LeaderboardWindow[] WINDOWS = { LeaderboardWindow.DAILY, LeaderboardWindow.WEEKLY,
+			LeaderboardWindow.MONTHLY };
+
+	private final RankingRepository repository;
+
+	private final int capacity;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<LeaderboardWindow, Buckets> windows = new EnumMap<LeaderboardWindow, Buckets>(
+			LeaderboardWindow.class);
+
+	/**
+	 * Constructor
+	 *
+	 * @param repository - RankingRepository : Refills the buckets that fell below K
+	 * @param capacity   - Integer : Records kept per bucket (largest top n served)
+	 */
+	public TimeBucketIndex(RankingRepository repository,
+			@Value("${ranking.buckets.capacity:100}") int capacity) {
+		this.repository = repository;
+		this.capacity = Math.max(1, capacity);
+		for (LeaderboardWindow window : WINDOWS) {
+			windows.put(window, new Buckets(window));
+		}
+	}
+
+	/**
+	 * Removes every record
+	 */
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			windows.values().forEach(Buckets::clear);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds (or replaces) a ranking record in the bucket of its time. Records of
+	 * retired buckets are ignored.
+	 *
+	 * @param rank - Ranking : Persisted ranking record
+	 */
+	@Override
+	public void add(Ranking rank) {
+		if (rank == null || rank.getId() == null || rank.getTime() == null) {
+			return;
+		}
+		// Keep a detached copy so later changes to the entity do not corrupt the order
+		Ranking copy = new Ranking(rank.getPlayer(), rank.getScore(), rank.getTime());
+		copy.setId(rank.getId());
+
+		LocalDateTime now = LocalDateTime.now();
+
+		lock.writeLock().lock();
+		try {
+			for (Buckets buckets : windows.values()) {
+				buckets.retire(now);
+				buckets.add(copy, now);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a ranking record
+	 *
+	 * @param rank - Ranking : Deleted ranking record
+	 */
+	@Override
+	public void remove(Ranking rank) {
+		if (rank == null || rank.getId() == null || rank.getTime() == null) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			windows.values().forEach(buckets -> buckets.remove(rank));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Best n ranking records of the bucket holding the given time
+	 *
+	 * @param window - LeaderboardWindow : DAILY, WEEKLY or MONTHLY
+	 * @param n      - Integer : Number of records (at most the bucket capacity)
+	 * @param at     - LocalDateTime : Time within the bucket
+	 * @return List<Ranking> - Ordered by score desc, time and id
+	 */
+	public List<Ranking> top(LeaderboardWindow window, int n, LocalDateTime at) {
+		Buckets buckets = windows.get(window);
+		if (buckets == null) {
+			throw new IllegalArgumentException("Window not maintained by this index: " + window);
+		}
+		// Throws exception when more records are asked than kept
+		if (n > capacity) {
+			throw new TopLimitException(capacity);
+		}
+		LocalDateTime start = window.bucketStart(at);
+
+		// Retire old buckets even when no score arrives
+		LocalDateTime now = LocalDateTime.now();
+		lock.readLock().lock();
+		try {
+			Bucket bucket = buckets.byStart.get(start);
+			if (!buckets.needsRetire(now) && (bucket == null || !bucket.stale)) {
+				return top(bucket, n);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		Bucket stale;
+		long version;
+		lock.writeLock().lock();
+		try {
+			buckets.retire(now);
+			Bucket bucket = buckets.byStart.get(start);
+			if (bucket == null || !bucket.stale) {
+				return top(bucket, n);
+			}
+			stale = bucket;
+			version = bucket.version;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		// Refill out of the lock, the best records of the bucket are read again from the database
+		List<Ranking> rows = repository.findTopBetween(start, window.nextBucket(start), PageRequest.of(0, capacity));
+
+		lock.writeLock().lock();
+		try {
+			// Applied only if nothing was deleted from the bucket meanwhile, the next read retries otherwise
+			if (buckets.byStart.get(start) == stale && stale.version == version) {
+				for (Ranking rank : rows) {
+					Ranking copy = new Ranking(rank.getPlayer(), rank.getScore(), rank.getTime());
+					copy.setId(rank.getId());
+					stale.add(copy, capacity);
+				}
+				stale.stale = false;
+				stale.truncated = rows.size() >= capacity;
+			}
+			return top(stale, n);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Best n records of a bucket, called with the lock held
+	private static List<Ranking> top(Bucket bucket, int n) {
+		List<Ranking> top = new ArrayList<Ranking>(Math.max(0, n));
+		if (bucket != null) {
+			for (Iterator<Ranking> it = bucket.records.iterator(); it.hasNext() && top.size() < n;) {
+				top.add(it.next());
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * Buckets of a single window. Not thread safe, guarded by the index lock.
+	 */
+	private final class Buckets {
+		private final LeaderboardWindow window;
+
+		// Buckets by start time
+		private final TreeMap<LocalDateTime, Bucket> byStart = new TreeMap<LocalDateTime, Bucket>();
+
+		private Buckets(LeaderboardWindow window) {
+			this.window = window;
+		}
+
+		private void clear() {
+			byStart.clear();
+		}
+
+		private void add(Ranking rank, LocalDateTime now) {
+			LocalDateTime start = window.bucketStart(rank.getTime());
+			if (isRetired(start, now)) {
+				return;
+			}
+			byStart.computeIfAbsent(start, key -> new Bucket()).add(rank, capacity);
+		}
+
+		private void remove(Ranking rank) {
+			Bucket bucket = byStart.get(window.bucketStart(rank.getTime()));
+			if (bucket != null) {
+				bucket.remove(rank.getId(), capacity);
+			}
+		}
+
+		// Buckets before the previous one are retired
+		private boolean isRetired(LocalDateTime start, LocalDateTime now) {
+			return start.isBefore(window.previousBucket(window.bucketStart(now)));
+		}
+
+		private boolean needsRetire(LocalDateTime now) {
+			return !byStart.isEmpty() && isRetired(byStart.firstKey(), now);
+		}
+
+		private void retire(LocalDateTime now) {
+			Iterator<LocalDateTime> it = byStart.keySet().iterator();
+			while (it.hasNext() && isRetired(it.next(), now)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Top K records of a bucket
+	 */
+	private static final class Bucket {
+		private final TreeSet<Ranking> records = new TreeSet<Ranking>(LeaderboardIndex.ORDER);
+
+		// Kept records by ID, used for removal
+		private final Map<Long, Ranking> byId = new HashMap<Long, Ranking>();
+
+		// Records beyond K were dropped, the database may hold more than the bucket
+		private boolean truncated;
+
+		// Fell below K after dropping records, refilled on the next read
+		private boolean stale;
+
+		// Incremented on each removal, a refill read before a removal is not applied
+		private long version;
+
+		private void add(Ranking rank, int capacity) {
+			Ranking previous = byId.remove(rank.getId());
+			if (previous != null) {
+				records.remove(previous);
+			}
+			records.add(rank);
+			byId.put(rank.getId(), rank);
+			if (records.size() > capacity) {
+				byId.remove(records.pollLast().getId());
+				truncated = true;
+			}
+		}
+
+		private void remove(Long id, int capacity) {
+			Ranking previous = byId.remove(id);
+			if (previous == null) {
+				return;
+			}
+			records.remove(previous);
+			version++;
+			if (truncated && records.size() < capacity) {
+				stale = true;
+			}
+		}
+	}
+}
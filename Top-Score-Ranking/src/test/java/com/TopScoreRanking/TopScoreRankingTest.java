@@ -4,10 +4,21 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,27 +31,84 @@ import org.springframework.data.projection.ProjectionFactory;
 import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
-
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import com.TopScoreRanking.assembler.RankingLinks;
 import com.TopScoreRanking.assembler.RankingModelAssembler;
+import com.TopScoreRanking.assembler.RankingRepresentation;
+import com.TopScoreRanking.cache.BoundedCache;
+import com.TopScoreRanking.controller.RankingController;
+import com.TopScoreRanking.controller.RankingRecordController;
+import com.TopScoreRanking.entities.PlayerHistoryResult;
+import com.TopScoreRanking.entities.PlayerRank;
 import com.TopScoreRanking.entities.Ranking;
+import com.TopScoreRanking.entities.RankingAcceptance;
+import com.TopScoreRanking.entities.RankingBatchResult;
+import com.TopScoreRanking.entities.RankingDelta;
 import com.TopScoreRanking.entities.RankingHistory;
+import com.TopScoreRanking.entities.RankingList;
+import com.TopScoreRanking.entities.ScoreBucket;
+import com.TopScoreRanking.entities.ScoreDistribution;
+import com.TopScoreRanking.exceptions.BulkheadFullException;
+import com.TopScoreRanking.exceptions.HistoryBatchTooLargeException;
 import com.TopScoreRanking.exceptions.HistoryNotFoundException;
+import com.TopScoreRanking.exceptions.IDNotFoundException;
+import com.TopScoreRanking.exceptions.IngestionQueueFullException;
+import com.TopScoreRanking.exceptions.InvalidCursorException;
 import com.TopScoreRanking.exceptions.PlayerNotFoundException;
-import com.TopScoreRanking.projections.RankingHistoryDataInterface;
+import com.TopScoreRanking.exceptions.TopLimitException;
+import com.TopScoreRanking.exceptions.WindowNotFoundException;
 import com.TopScoreRanking.projections.RankingHistoryListInterface;
+import com.TopScoreRanking.projections.RankingHistoryRowInterface;
+import com.TopScoreRanking.repository.RankingIdSequence;
 import com.TopScoreRanking.repository.RankingRepository;
+import com.TopScoreRanking.repository.ReactiveRankingRepository;
+import com.TopScoreRanking.service.PlayerDictionary;
+import com.TopScoreRanking.service.LeaderboardIndex;
+import com.TopScoreRanking.service.LeaderboardService;
+import com.TopScoreRanking.service.LeaderboardWindow;
+import com.TopScoreRanking.service.QuantileSketch;
+import com.TopScoreRanking.service.RankingChangePublisher;
+import com.TopScoreRanking.service.RankingCursor;
+import com.TopScoreRanking.service.RankingIngestionQueue;
+import com.TopScoreRanking.service.RankingHistoryService;
 import com.TopScoreRanking.service.RankingService;
+import com.TopScoreRanking.service.ReactiveRankingService;
+import com.TopScoreRanking.service.RequestBulkheads;
+import com.TopScoreRanking.service.TimeBucketIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.mock;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 
 /***
- * Unit test for RankingService
+ * Unit test for the ranking services
  * 
  * @author Marc Mendez
  *
@@ -51,14 +119,88 @@ public class TopScoreRankingTest {
 	@Autowired
 	private RankingService rankService;
 
+	@Autowired
+	private LeaderboardService leaderboardService;
+
+	@Autowired
+	private RankingHistoryService historyService;
+
 	@MockBean
 	private RankingRepository repository;
 
+	@Autowired
+	private BoundedCache<String, RankingHistory> historyCache;
+
+	@Autowired
+	private PlayerDictionary playerDictionary;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private RankingLinks rankingLinks;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private RequestMappingHandlerAdapter handlerAdapter;
+
+	@Autowired
+	private RankingIdSequence rankingIdSequence;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private RankingController rankingController;
+
+	@Autowired
+	private RankingRepresentation representation;
+
 	private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-	private final RankingModelAssembler assembler = new RankingModelAssembler();
+	private final RankingModelAssembler assembler = new RankingModelAssembler(new RankingLinks());
 
 	private final ProjectionFactory factory = new SpelAwareProxyProjectionFactory();
+
+	/***
+	 * Mocked rows change from one test to another, cached histories must not leak
+	 */
+	@AfterEach
+	void clearHistoryCache() {
+		historyCache.clear();
+	}
+
+	/***
+	 * Registers a ranking record, the mocked repository returning it as saved
+	 *
+	 * @param player - String : Player's name
+	 * @param score  - Integer : Score
+	 * @param time   - LocalDateTime : Date and time of the score
+	 * @param id     - Long : Ranking ID given by the mocked repository
+	 * @return Ranking - Registered ranking record
+	 */
+	private Ranking saveMock(String player, int score, LocalDateTime time, long id) {
+		Ranking rank = new Ranking(player, score, time);
+		rank.setId(id);
+		doReturn(rank).when(repository).save(rank);
+
+		rankService.saveRanking(rank);
+		return rank;
+	}
+
+	/***
+	 * Deletes ranking records, the mocked repository finding them by ID
+	 *
+	 * @param ranks - Ranking[] : Registered ranking records
+	 */
+	private void deleteMock(Ranking... ranks) {
+		for (Ranking rank : ranks) {
+			doReturn(Optional.of(rank)).when(repository).findById(rank.getId());
+			rankService.deleteRanking(rank.getId());
+		}
+	}
 	
 	/***
 	 * Test RankingService getAll 
@@ -78,12 +220,16 @@ public class TopScoreRankingTest {
 		rankMock2.setScore(200);
 		rankMock2.setTime(LocalDateTime.parse("2020-12-12 17:46:30", formatter));
 
-		doReturn(Arrays.asList(rankMock1, rankMock2)).when(repository).findAll();
+		// One record more than the page size : there is a next page
+		doReturn(Arrays.asList(rankMock1, rankMock2)).when(repository).findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE,
+				PageRequest.of(0, 2));
 
-		List<EntityModel<Ranking>> rankAllMockResult = rankService.getAll();
+		RankingList rankAllMockResult = rankService.getAll(null, 1);
 
 		// Assert the response
-		Assertions.assertEquals(2, rankAllMockResult.size(), "getAll should return 2 Ranking record");
+		Assertions.assertEquals(1, rankAllMockResult.getItems().size(), "getAll should return 1 Ranking record");
+		Assertions.assertEquals(rankingLinks.all(1L, 1), rankAllMockResult.getLinks().get("next"),
+				"getAll should link the page after the last record");
 	}
 
 	/***
@@ -109,6 +255,81 @@ public class TopScoreRankingTest {
 		Assertions.assertEquals(1L, (long) returnedWidget.getContent().getId(), "The id should be incremented");
 	}
 
+	/***
+	 * Test RankingService saveRankings
+	 */
+	@Test
+	@DisplayName("Test saveRankings Success")
+	void testSaveRankings() {
+		Ranking rankMock1 = new Ranking("batch1", 100, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		Ranking rankMock2 = new Ranking("batch2", 0, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		Ranking rankMock3 = new Ranking("batch3", 300, LocalDateTime.parse("2020-12-13 17:46:30", formatter));
+
+		Ranking savedMock1 = new Ranking(rankMock1.getPlayer(), rankMock1.getScore(), rankMock1.getTime());
+		savedMock1.setId(6001L);
+		Ranking savedMock3 = new Ranking(rankMock3.getPlayer(), rankMock3.getScore(), rankMock3.getTime());
+		savedMock3.setId(6003L);
+
+		doReturn(Arrays.asList(savedMock1, savedMock3)).when(repository).saveAll(Arrays.asList(rankMock1, rankMock3));
+
+		List<RankingBatchResult> results = rankService.saveRankings(Arrays.asList(rankMock1, rankMock2, rankMock3));
+
+		// Assert the response
+		Assertions.assertEquals(RankingBatchResult.created(0, 6001L), results.get(0), "Valid record should be created");
+		Assertions.assertEquals(RankingBatchResult.REJECTED, results.get(1).getStatus(),
+				"Record with score 0 should be rejected");
+		Assertions.assertEquals(RankingBatchResult.created(2, 6003L), results.get(2), "Valid record should be created");
+
+		doReturn(Optional.of(savedMock1)).when(repository).findById(6001L);
+		doReturn(Optional.of(savedMock3)).when(repository).findById(6003L);
+
+		rankService.deleteRanking(6001L);
+		rankService.deleteRanking(6003L);
+	}
+
+	/***
+	 * Test RankingIngestionQueue offer, backpressure and flush on stop
+	 */
+	@Test
+	@DisplayName("Test write-behind queue Success")
+	void testIngestionQueue() {
+		RankingIngestionQueue queue = new RankingIngestionQueue(rankService, true, 2, 60000L, 500);
+		queue.start();
+
+		Ranking rankMock1 = new Ranking("queued1", 100, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		Ranking rankMock2 = new Ranking("queued2", 200, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+
+		RankingAcceptance accepted = queue.offer(rankMock1);
+		queue.offer(rankMock2);
+
+		// Assert the response
+		Assertions.assertEquals(1L, accepted.getTicket(), "The first record should get the first ticket");
+		Assertions.assertEquals(2, queue.pending().size(), "Both records should be pending");
+		Assertions.assertNotSame(rankMock1, queue.pending().get(0), "Readers should get the copy taken on acceptance");
+		Assertions.assertThrows(IngestionQueueFullException.class,
+				() -> queue.offer(new Ranking("queued3", 300, rankMock1.getTime())), "Full queue should refuse records");
+
+		Ranking savedMock1 = new Ranking(rankMock1.getPlayer(), rankMock1.getScore(), rankMock1.getTime());
+		savedMock1.setId(5001L);
+		Ranking savedMock2 = new Ranking(rankMock2.getPlayer(), rankMock2.getScore(), rankMock2.getTime());
+		savedMock2.setId(5002L);
+		doReturn(Arrays.asList(savedMock1, savedMock2)).when(repository).saveAll(Arrays.asList(rankMock1, rankMock2));
+
+		// Stopping writes everything still pending
+		queue.stop();
+
+		Assertions.assertEquals(0, queue.depth(), "The queue should be empty");
+		Assertions.assertTrue(queue.pending().isEmpty(), "Indexed records should no longer be pending");
+		Assertions.assertEquals(2L, queue.status().get("written"), "Both records should be written");
+		Assertions.assertNull(rankMock1.getId(), "The accepted record should not be changed by the writer");
+
+		doReturn(Optional.of(savedMock1)).when(repository).findById(5001L);
+		doReturn(Optional.of(savedMock2)).when(repository).findById(5002L);
+
+		rankService.deleteRanking(5001L);
+		rankService.deleteRanking(5002L);
+	}
+
 	/***
 	 * Test RankingService filterById 
 	 */
@@ -147,6 +368,32 @@ public class TopScoreRankingTest {
 		}, "Expects to throw IDNotFoundException but didn't");
 	}
 
+	/***
+	 * Test RankingService filterById (served from the cache, evicted on delete)
+	 */
+	@Test
+	@DisplayName("Test filterById cache Success")
+	void testFilterByIdCache() {
+
+		Ranking rankMock = new Ranking("cached", 400, LocalDateTime.parse("2020-12-14 17:46:30", formatter));
+		rankMock.setId(4001L);
+
+		doReturn(Optional.of(rankMock)).when(repository).findById(4001L);
+
+		rankService.filterById(4001L);
+		EntityModel<Ranking> rankMockResult = rankService.filterById(4001L);
+
+		// Assert the response
+		Assertions.assertEquals(rankMock, rankMockResult.getContent(), "Cached record should be equal to mock data");
+		verify(repository, times(1)).findById(4001L);
+
+		rankService.deleteRanking(4001L);
+		doReturn(Optional.empty()).when(repository).findById(4001L);
+
+		Assertions.assertThrows(IDNotFoundException.class, () -> rankService.filterById(4001L),
+				"Deleted record should not be served from the cache");
+	}
+
 	/***
 	 * Test RankingService filterByPlayers
 	 */
@@ -180,12 +427,84 @@ public class TopScoreRankingTest {
 		List<EntityModel<Ranking>> rankMockEntityList = rankMockPage.stream().map(assembler::toModel)
 				.collect(Collectors.toList());
 
-		doReturn(rankMockPage).when(repository).findByPlayerInIgnoreCase(playerList, paging);
+		doReturn(rankMockPage).when(repository).findByPlayerIdIn(
+				Arrays.asList(playerDictionary.intern("test1"), playerDictionary.intern("test2")), paging);
 
-		CollectionModel<EntityModel<Ranking>> rankMockResult = rankService.filterByPlayers(playerList, 0, 3);
+		RankingList rankMockResult = rankService.filterByPlayers(playerList, 0, 3);
+		CollectionModel<?> rankMockModel = (CollectionModel<?>) representation.list(rankMockResult, false);
 
-		Assertions.assertEquals(rankMockEntityList, new ArrayList<EntityModel<Ranking>>(rankMockResult.getContent()),
+		Assertions.assertEquals(rankMockList, rankMockResult.getItems(),
 				"filterByPlayers' result should be equal to mock data");
+		Assertions.assertEquals(rankMockEntityList, new ArrayList<Object>(rankMockModel.getContent()),
+				"HAL representation should link each record");
+		Assertions.assertEquals(rankMockResult.getLinks().get("self"), rankMockModel.getRequiredLink("self").getHref(),
+				"HAL representation should keep the collection links");
+	}
+
+	/***
+	 * Test RankingRepresentation (compact representation of filterByPlayers)
+	 */
+	@Test
+	@DisplayName("Test RankingRepresentation compact Success")
+	void testFilterByPlayersCompact() {
+
+		Ranking rankMock1 = new Ranking("compact1", 100, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		rankMock1.setId(1L);
+		Ranking rankMock2 = new Ranking("compact2", 200, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		rankMock2.setId(2L);
+
+		List<Ranking> rankMockList = Arrays.asList(rankMock1, rankMock2);
+
+		doReturn(new PageImpl<>(rankMockList)).when(repository)
+				.findByPlayerIdIn(Arrays.asList(playerDictionary.intern("compact1"), playerDictionary.intern("compact2")),
+						PageRequest.of(0, 3));
+
+		RankingList rankMockResult = (RankingList) representation
+				.list(rankService.filterByPlayers(Arrays.asList("compact1", "Compact2"), 0, 3), true);
+
+		// Assert the response
+		Assertions.assertEquals(rankMockList, rankMockResult.getItems(),
+				"Compact representation should be equal to mock data");
+		Assertions.assertTrue(rankMockResult.getLinks().get("record").endsWith("/ranking/searchscore?id={id}"),
+				"Record link should be a template");
+		Assertions.assertFalse(rankMockResult.getLinks().containsKey("next"), "Single page should have no next link");
+	}
+
+	/***
+	 * Test RankingLinks (same links as the link builder)
+	 */
+	@Test
+	@DisplayName("Test RankingLinks Success")
+	void testRankingLinks() {
+		RankingLinks links = new RankingLinks();
+		List<String> playerList = Arrays.asList("test 1", "t\u00ebst&2");
+		LocalDateTime time = LocalDateTime.parse("2020-12-11 17:46:30", formatter);
+
+		// Assert the response
+		Assertions.assertEquals(linkTo(methodOn(RankingRecordController.class).searchById(42L)).withSelfRel().getHref(),
+				links.record(42L), "Record link should match");
+		Assertions.assertEquals(
+				linkTo(methodOn(RankingRecordController.class).getHistory("t\u00ebst 1")).withSelfRel().getHref(),
+				links.history("t\u00ebst 1"), "History link should match");
+		Assertions.assertEquals(linkTo(methodOn(RankingController.class).all(null, null)).withSelfRel().expand().getHref(),
+				links.all(), "All link should match");
+		Assertions.assertEquals(linkTo(methodOn(RankingController.class).all(42L, 3)).withSelfRel().getHref(),
+				links.all(42L, 3), "All page link should match");
+		Assertions.assertEquals(
+				linkTo(methodOn(RankingRecordController.class).searchByPlayers(playerList, 2, 3)).withSelfRel().getHref(),
+				links.searchList(playerList, 2, 3), "Search list link should match");
+		Assertions.assertEquals(
+				linkTo(methodOn(RankingRecordController.class).searchByPlayers(playerList, 0, 3, time, null)).withSelfRel()
+						.getHref(),
+				links.searchList(playerList, 0, 3, time, null), "Time filtered search list link should match");
+		Assertions.assertEquals(
+				linkTo(methodOn(RankingRecordController.class).searchByPlayers(playerList, 1, 3, null, null)).withSelfRel()
+						.getHref(),
+				links.searchList(playerList, 1, 3, null, null), "Unfiltered search list link should match");
+		Assertions.assertEquals(
+				linkTo(methodOn(RankingRecordController.class).searchByPlayers(playerList, 1, 3, time, time)).withSelfRel()
+						.getHref(),
+				links.searchList(playerList, 1, 3, time, time), "Time filtered search list link should match");
 	}
 
 	/***
@@ -201,7 +520,8 @@ public class TopScoreRankingTest {
 
 		Pageable paging = PageRequest.of(0, 3);
 
-		doReturn(Page.empty()).when(repository).findByPlayerInIgnoreCase(playerList, paging);
+		doReturn(Page.empty()).when(repository).findByPlayerIdIn(
+				Arrays.asList(playerDictionary.intern("test1"), playerDictionary.intern("test2")), paging);
 
 		PlayerNotFoundException thrown = Assertions.assertThrows(PlayerNotFoundException.class,
 				() -> rankService.filterByPlayers(playerList, 0, 3),
@@ -241,17 +561,15 @@ public class TopScoreRankingTest {
 		playerList.add("TeSt1");
 		playerList.add("tEsT2");
 
-		List<EntityModel<Ranking>> rankMockEntityList = rankMockPage.stream().map(assembler::toModel)
-				.collect(Collectors.toList());
-
-		doReturn(rankMockPage).when(repository).findByPlayerWithBeforeAndAfterTime(playerList, rankMock2.getTime(),
+		doReturn(rankMockPage).when(repository).findByPlayerWithBeforeAndAfterTime(
+				Arrays.asList(playerDictionary.intern("test1"), playerDictionary.intern("test2")), rankMock2.getTime(),
 				rankMock1.getTime(), paging);
 
-		CollectionModel<EntityModel<Ranking>> rankMockResult = rankService.filterByPlayersAndDate(playerList, 0, 3,
-				rankMock2.getTime(), rankMock1.getTime());
+		RankingList rankMockResult = rankService.filterByPlayersAndDate(playerList, 0, 3, rankMock2.getTime(),
+				rankMock1.getTime());
 
 		// Assert the response
-		Assertions.assertEquals(rankMockEntityList, new ArrayList<EntityModel<Ranking>>(rankMockResult.getContent()),
+		Assertions.assertEquals(rankMockList, rankMockResult.getItems(),
 				"filterByPlayersAndDate's result should be equal to mock data");
 	}
 
@@ -268,11 +586,7 @@ public class TopScoreRankingTest {
 
 		LocalDateTime mockTime = LocalDateTime.parse("2020-12-12 17:46:30", formatter);
 
-		Pageable paging = PageRequest.of(0, 3);
-
-		doReturn(Page.empty()).when(repository).findByPlayerWithBeforeAndAfterTime(playerList, mockTime, mockTime,
-				paging);
-
+		// Players never registered, the repository is not queried
 		PlayerNotFoundException thrown = Assertions.assertThrows(PlayerNotFoundException.class,
 				() -> rankService.filterByPlayersAndDate(playerList, 0, 3, mockTime, mockTime),
 				"Expects to throw PlayerNotFoundException but didn't");
@@ -282,46 +596,122 @@ public class TopScoreRankingTest {
 	}
 
 	/***
-	 * Test RankingService getPlayerScoreHistory
+	 * Test RankingService seekByPlayersAndDate
+	 */
+	@Test
+	@DisplayName("Test seekByPlayersAndDate Success")
+	void testSeekByPlayersAndDate() {
+
+		Ranking rankMock1 = new Ranking("test1", 100, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		rankMock1.setId(1L);
+
+		Ranking rankMock2 = new Ranking("test2", 200, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		rankMock2.setId(2L);
+
+		List<String> playerList = Arrays.asList("TeSt1", "tEsT2");
+		List<Integer> playerIds = Arrays.asList(playerDictionary.intern("test1"), playerDictionary.intern("test2"));
+
+		doReturn(Arrays.asList(rankMock1, rankMock2)).when(repository).findByPlayerFirstPage(playerIds, null,
+				null, PageRequest.of(0, 2));
+
+		RankingList firstPage = rankService.seekByPlayersAndDate(playerList, 1, null, null, null);
+
+		// Assert the response
+		Assertions.assertEquals(1, firstPage.getItems().size(), "seekByPlayersAndDate should return one page");
+		Assertions.assertTrue(firstPage.getLinks().containsKey("next"), "seekByPlayersAndDate should link the next page");
+
+		String after = RankingCursor.of(rankMock1).encode();
+		Assertions.assertEquals(RankingCursor.of(rankMock1), RankingCursor.decode(after),
+				"Cursor should survive an encode/decode round trip");
+
+		doReturn(Arrays.asList(rankMock2)).when(repository).findByPlayerAfterCursor(playerIds, null, null,
+				rankMock1.getTime(), rankMock1.getId(), PageRequest.of(0, 2));
+
+		RankingList lastPage = rankService.seekByPlayersAndDate(playerList, 1, after, null, null);
+
+		Assertions.assertEquals(rankMock2, lastPage.getItems().get(0),
+				"seekByPlayersAndDate should continue after the cursor");
+		Assertions.assertFalse(lastPage.getLinks().containsKey("next"), "Last page should not link a next page");
+
+		Assertions.assertThrows(InvalidCursorException.class,
+				() -> rankService.seekByPlayersAndDate(playerList, 1, "not-a-cursor", null, null),
+				"Expects to throw InvalidCursorException but didn't");
+	}
+
+	/***
+	 * Test RankingHistoryService getPlayerScoreHistory
 	 */
 	@Test
 	@DisplayName("Test getPlayerScoreHistory Success")
 	void testGetPlayerScoreHistory() {
 
-		RankingHistoryDataInterface dataInterface = factory.createProjection(RankingHistoryDataInterface.class);
+		RankingHistoryRowInterface lowRow = factory.createProjection(RankingHistoryRowInterface.class);
+		lowRow.setPlayer("test");
+		lowRow.setScore(100);
+		lowRow.setTime(LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+
+		RankingHistoryRowInterface topRow = factory.createProjection(RankingHistoryRowInterface.class);
+		topRow.setPlayer("test");
+		topRow.setScore(202);
+		topRow.setTime(LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+
+		List<RankingHistoryListInterface> allScoreMock = Arrays.asList(lowRow, topRow, lowRow);
+
+		RankingHistory returnMock = new RankingHistory("test", Arrays.asList(topRow), Arrays.asList(lowRow, lowRow),
+				134.0, allScoreMock);
+
+		doReturn(Arrays.asList(lowRow, topRow, lowRow)).when(repository).findScoreRowsByPlayer(playerDictionary.intern("test"));
 
-		dataInterface.setPlayer("test");
-		dataInterface.setAvgScore(5.0);
+		RankingHistory historyMockResult = historyService.getPlayerScoreHistory("test");
 
-		List<RankingHistoryListInterface> listScoreMock = new ArrayList<RankingHistoryListInterface>();
-		RankingHistoryListInterface listInterface = factory.createProjection(RankingHistoryListInterface.class);
-		listInterface.setScore(100);
-		listInterface.setTime(LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		Assertions.assertEquals(returnMock, historyMockResult,
+				"getPlayerScoreHistory's result should be equal to mock data");
+
+	}
 
-		listScoreMock.add(listInterface);
-		listScoreMock.add(listInterface);
+	/***
+	 * Test RankingHistoryService getPlayerScoreHistory (served from the cache, evicted
+	 * when the player registers a score)
+	 */
+	@Test
+	@DisplayName("Test getPlayerScoreHistory cache Success")
+	void testGetPlayerScoreHistoryCache() {
+		RankingHistoryRowInterface row = factory.createProjection(RankingHistoryRowInterface.class);
+		row.setPlayer("cachedhistory");
+		row.setScore(100);
+		row.setTime(LocalDateTime.parse("2020-12-11 17:46:30", formatter));
 
-		RankingHistory returnMock = new RankingHistory(dataInterface.getPlayer(), listScoreMock, listScoreMock,
-				dataInterface.getAvgScore(), listScoreMock);
+		doReturn(Arrays.asList(row)).when(repository).findScoreRowsByPlayer(playerDictionary.intern("cachedhistory"));
 
-		doReturn(dataInterface).when(repository).findAvgByPlayer(dataInterface.getPlayer());
+		historyService.getPlayerScoreHistory("cachedhistory");
+		historyService.getPlayerScoreHistory("CachedHistory");
 
-		doReturn(listScoreMock).when(repository).findMaxScoreListByPlayer(dataInterface.getPlayer());
+		// Assert the response
+		verify(repository, times(1)).findScoreRowsByPlayer(playerDictionary.intern("cachedhistory"));
 
-		doReturn(listScoreMock).when(repository).findMinScoreListByPlayer(dataInterface.getPlayer());
+		Ranking rankMock = new Ranking("CachedHistory", 300, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		Ranking savedMock = new Ranking(rankMock.getPlayer(), rankMock.getScore(), rankMock.getTime());
+		savedMock.setId(3001L);
+		doReturn(savedMock).when(repository).save(rankMock);
+		rankService.saveRanking(rankMock);
 
-		doReturn(listScoreMock).when(repository).findAllScoreListByPlayer(dataInterface.getPlayer());
+		RankingHistoryRowInterface newRow = factory.createProjection(RankingHistoryRowInterface.class);
+		newRow.setPlayer("CachedHistory");
+		newRow.setScore(300);
+		newRow.setTime(rankMock.getTime());
+		doReturn(Arrays.asList(row, newRow)).when(repository).findScoreRowsByPlayer(playerDictionary.intern("cachedhistory"));
 
-		EntityModel<RankingHistory> entityMockModelResult = rankService
-				.getPlayerScoreHistory(dataInterface.getPlayer());
+		RankingHistory historyMockResult = historyService.getPlayerScoreHistory("cachedhistory");
 
-		Assertions.assertEquals(returnMock, entityMockModelResult.getContent(),
-				"getPlayerScoreHistory's result should be equal to mock data");
+		Assertions.assertEquals(200.0, historyMockResult.getAvgScore(),
+				"History should be reloaded after the player's new score");
 
+		doReturn(Optional.of(savedMock)).when(repository).findById(3001L);
+		rankService.deleteRanking(3001L);
 	}
 
 	/***
-	 * Test RankingService getPlayerScoreHistory (NotFoundExeception)
+	 * Test RankingHistoryService getPlayerScoreHistory (NotFoundExeception)
 	 */
 	@Test
 	@DisplayName("Test getPlayerScoreHistory ErrorException")
@@ -329,30 +719,786 @@ public class TopScoreRankingTest {
 
 		String player = "test";
 
-		ProjectionFactory factory = new SpelAwareProxyProjectionFactory();
-		RankingHistoryDataInterface dataInterface = factory.createProjection(RankingHistoryDataInterface.class);
+		doReturn(new ArrayList<RankingHistoryRowInterface>()).when(repository).findScoreRowsByPlayer(playerDictionary.intern("test"));
+
+		HistoryNotFoundException thrown = Assertions.assertThrows(HistoryNotFoundException.class,
+				() -> historyService.getPlayerScoreHistory(player),
+				"Expects to throw HistoryNotFoundException but didn't");
 
-		dataInterface.setPlayer("test");
-		dataInterface.setAvgScore(5.0);
+		Assertions.assertTrue(thrown.getMessage().contains("Could not find history for player " + player));
+	}
+	
+	/***
+	 * Test RankingHistoryService getPlayerScoreHistories (one grouped query, results per
+	 * player)
+	 */
+	@Test
+	@DisplayName("Test getPlayerScoreHistories Success")
+	void testGetPlayerScoreHistories() {
+		RankingHistoryRowInterface row = factory.createProjection(RankingHistoryRowInterface.class);
+		row.setPlayer("batch1");
+		row.setScore(100);
+		row.setTime(LocalDateTime.parse("2020-12-11 17:46:30", formatter));
 
-		doReturn(dataInterface).when(repository).findAvgByPlayer(dataInterface.getPlayer());
+		Integer batch1 = playerDictionary.intern("batch1");
+		Integer batch2 = playerDictionary.intern("batch2");
 
-		doReturn(new ArrayList<RankingHistoryListInterface>()).when(repository)
-				.findMaxScoreListByPlayer(dataInterface.getPlayer());
+		doReturn(Arrays.asList(row)).when(repository).findScoreRowsByPlayerIdIn(Arrays.asList(batch1, batch2));
 
-		doReturn(new ArrayList<RankingHistoryListInterface>()).when(repository)
-				.findMinScoreListByPlayer(dataInterface.getPlayer());
+		List<PlayerHistoryResult> results = rankService
+				.getPlayerScoreHistories(Arrays.asList("Batch1", "batch2", "BATCH1", "unknownbatch"));
 
-		doReturn(new ArrayList<RankingHistoryListInterface>()).when(repository)
-				.findAllScoreListByPlayer(dataInterface.getPlayer());
+		// Assert the response
+		Assertions.assertEquals(3, results.size(), "Duplicate players should be answered once");
+		Assertions.assertEquals(PlayerHistoryResult.FOUND, results.get(0).getStatus(), "batch1 should be found");
+		Assertions.assertEquals(100.0, results.get(0).getHistory().getAvgScore(), "batch1 history should be returned");
+		Assertions.assertEquals(PlayerHistoryResult.NOT_FOUND, results.get(1).getStatus(),
+				"batch2 without score should not fail the batch");
+		Assertions.assertEquals("Could not find history for player unknownbatch", results.get(2).getMessage(),
+				"Unknown player should be reported");
+
+		historyService.getPlayerScoreHistories(Arrays.asList("batch1", "batch2"));
+
+		verify(repository, times(1)).findScoreRowsByPlayerIdIn(Arrays.asList(batch1, batch2));
+		verify(repository, times(1)).findScoreRowsByPlayerIdIn(Arrays.asList(batch2));
+
+		List<String> tooMany = new ArrayList<String>();
+		for (int i = 0; i <= 100; i++) {
+			tooMany.add("batch" + i);
+		}
+		Assertions.assertThrows(HistoryBatchTooLargeException.class, () -> historyService.getPlayerScoreHistories(tooMany),
+				"Expects to throw HistoryBatchTooLargeException but didn't");
+	}
 
-		HistoryNotFoundException thrown = Assertions.assertThrows(HistoryNotFoundException.class,
-				() -> rankService.getPlayerScoreHistory(player),
+	/***
+	 * Test RankingHistoryService getPlayerScoreSummary
+	 */
+	@Test
+	@DisplayName("Test getPlayerScoreSummary Success")
+	void testGetPlayerScoreSummary() {
+
+		Ranking rankMock1 = new Ranking("stats1", 10, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		rankMock1.setId(7001L);
+
+		Ranking rankMock2 = new Ranking("STATS1", 30, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		rankMock2.setId(7002L);
+
+		doReturn(rankMock1).when(repository).save(rankMock1);
+		doReturn(rankMock2).when(repository).save(rankMock2);
+
+		rankService.saveRanking(rankMock1);
+		rankService.saveRanking(rankMock2);
+
+		RankingHistoryRowInterface lowRow = factory.createProjection(RankingHistoryRowInterface.class);
+		lowRow.setPlayer("stats1");
+		lowRow.setScore(10);
+		lowRow.setTime(rankMock1.getTime());
+
+		RankingHistoryRowInterface topRow = factory.createProjection(RankingHistoryRowInterface.class);
+		topRow.setPlayer("STATS1");
+		topRow.setScore(30);
+		topRow.setTime(rankMock2.getTime());
+
+		doReturn(Arrays.asList(topRow)).when(repository).findScoreRowsByPlayerAndScore(playerDictionary.idOf("stats1"), 30);
+		doReturn(Arrays.asList(lowRow)).when(repository).findScoreRowsByPlayerAndScore(playerDictionary.idOf("stats1"), 10);
+
+		RankingHistory summary = historyService.getPlayerScoreSummary("Stats1").getContent();
+
+		// Assert the response
+		Assertions.assertEquals(20.0, summary.getAvgScore(), "Average should be read from the player statistics");
+		Assertions.assertEquals(Arrays.asList(topRow), summary.getTopScore(), "Top score list should be returned");
+		Assertions.assertEquals(Arrays.asList(lowRow), summary.getLowScore(), "Low score list should be returned");
+		Assertions.assertNull(summary.getAllScore(), "Summary should not list all scores");
+
+		doReturn(Optional.of(rankMock2)).when(repository).findById(7002L);
+		doReturn(Arrays.asList(rankMock1)).when(repository).findByPlayerOrderByScoreDesc(playerDictionary.idOf("stats1"),
+				PageRequest.of(0, 1));
+
+		rankService.deleteRanking(7002L);
+
+		doReturn(Arrays.asList(lowRow)).when(repository).findScoreRowsByPlayerAndScore(playerDictionary.idOf("stats1"), 10);
+
+		summary = historyService.getPlayerScoreSummary("stats1").getContent();
+
+		Assertions.assertEquals(10.0, summary.getAvgScore(), "Deleted scores should be removed from the statistics");
+		Assertions.assertEquals(Arrays.asList(lowRow), summary.getTopScore(),
+				"Top score should be recomputed when the best score is deleted");
+
+		doReturn(Optional.of(rankMock1)).when(repository).findById(7001L);
+
+		rankService.deleteRanking(7001L);
+
+		Assertions.assertThrows(HistoryNotFoundException.class, () -> historyService.getPlayerScoreSummary("stats1"),
 				"Expects to throw HistoryNotFoundException but didn't");
+	}
 
-		Assertions.assertTrue(thrown.getMessage().contains("Could not find history for player " + player));
+	/***
+	 * Test RankingService saveRanking, concurrent first scores of a new player
+	 */
+	@Test
+	@DisplayName("Test concurrent first scores Success")
+	void testConcurrentFirstScores() throws Exception {
+		int writers = 8;
+		List<Ranking> rankMocks = new ArrayList<Ranking>();
+		for (int i = 0; i < writers; i++) {
+			Ranking rankMock = new Ranking("concurrent1", i + 1, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+			rankMock.setId(7101L + i);
+			rankMocks.add(rankMock);
+		}
+		doAnswer(invocation -> invocation.getArgument(0)).when(repository).save(any(Ranking.class));
+
+		// Every writer registers the player's first score at the same time
+		ExecutorService pool = Executors.newFixedThreadPool(writers);
+		CountDownLatch start = new CountDownLatch(1);
+		List<CompletableFuture<EntityModel<Ranking>>> saves = new ArrayList<CompletableFuture<EntityModel<Ranking>>>();
+		try {
+			for (Ranking rankMock : rankMocks) {
+				saves.add(CompletableFuture.supplyAsync(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return rankService.saveRanking(rankMock);
+				}, pool));
+			}
+			start.countDown();
+
+			// Assert the response
+			for (CompletableFuture<EntityModel<Ranking>> save : saves) {
+				Assertions.assertNotNull(save.get(10, TimeUnit.SECONDS), "Every first score should be registered");
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		RankingHistory summary = historyService.getPlayerScoreSummary("concurrent1").getContent();
+		Assertions.assertEquals(4.5, summary.getAvgScore(), "Every score should be added to the player statistics");
+
+		for (Ranking rankMock : rankMocks) {
+			doReturn(Optional.of(rankMock)).when(repository).findById(rankMock.getId());
+			rankService.deleteRanking(rankMock.getId());
+		}
 	}
-	
+
+	/***
+	 * Test LeaderboardService getTopByWindow
+	 */
+	@Test
+	@DisplayName("Test getTopByWindow Success")
+	void testGetTopByWindow() {
+		LocalDateTime now = LocalDateTime.now();
+
+		Ranking rankMock1 = saveMock("window1", 800000, now, 2001L);
+
+		// Two months ago : outside the current day, week and month
+		Ranking rankMock2 = saveMock("window2", 800001, now.minusMonths(2), 2002L);
+
+		// Assert the response
+		for (String window : Arrays.asList("daily", "Weekly", "MONTHLY")) {
+			List<Ranking> topResult = leaderboardService.getTopByWindow(window, 1).getItems();
+			Assertions.assertEquals(rankMock1, topResult.get(0),
+					"getTopByWindow should return the best score of the current " + window + " bucket");
+		}
+		List<Ranking> allTimeResult = leaderboardService.getTopByWindow("alltime", 1).getItems();
+		Assertions.assertEquals(rankMock2, allTimeResult.get(0),
+				"getTopByWindow should return the best score of all time");
+		Assertions.assertThrows(WindowNotFoundException.class, () -> leaderboardService.getTopByWindow("yearly", 1),
+				"Unknown window should throw WindowNotFoundException");
+
+		deleteMock(rankMock1, rankMock2);
+	}
+
+	/***
+	 * Test TimeBucketIndex refill of a bucket emptied below its capacity by deletes
+	 */
+	@Test
+	@DisplayName("Test TimeBucketIndex refill Success")
+	void testTimeBucketRefill() {
+		TimeBucketIndex index = new TimeBucketIndex(repository, 2);
+		LocalDateTime now = LocalDateTime.now();
+
+		Ranking rankMock1 = new Ranking("bucket1", 300, now);
+		rankMock1.setId(2101L);
+		Ranking rankMock2 = new Ranking("bucket2", 200, now);
+		rankMock2.setId(2102L);
+		Ranking rankMock3 = new Ranking("bucket3", 100, now);
+		rankMock3.setId(2103L);
+
+		// Third record dropped, only the top 2 are kept
+		index.add(rankMock1);
+		index.add(rankMock2);
+		index.add(rankMock3);
+		Assertions.assertEquals(Arrays.asList(rankMock1, rankMock2), index.top(LeaderboardWindow.DAILY, 2, now),
+				"TimeBucketIndex should keep the best capacity records of the bucket");
+		Assertions.assertThrows(TopLimitException.class, () -> index.top(LeaderboardWindow.DAILY, 5, now),
+				"TimeBucketIndex should refuse top n beyond its capacity");
+
+		// Bucket below capacity after the delete : refilled from the database
+		LocalDateTime start = LeaderboardWindow.DAILY.bucketStart(now);
+		doReturn(Arrays.asList(rankMock2, rankMock3)).when(repository).findTopBetween(start,
+				LeaderboardWindow.DAILY.nextBucket(start), PageRequest.of(0, 2));
+		index.remove(rankMock1);
+
+		Assertions.assertEquals(Arrays.asList(rankMock2, rankMock3), index.top(LeaderboardWindow.DAILY, 2, now),
+				"TimeBucketIndex should refill the bucket from the database");
+		index.top(LeaderboardWindow.DAILY, 2, now);
+		verify(repository, times(1)).findTopBetween(start, LeaderboardWindow.DAILY.nextBucket(start),
+				PageRequest.of(0, 2));
+	}
+
+	/***
+	 * Test LeaderboardService getTopBetween (columnar score store)
+	 */
+	@Test
+	@DisplayName("Test getTopBetween Success")
+	void testGetTopBetween() {
+		// Score store keeps times to the second
+		LocalDateTime day = LocalDateTime.of(2001, 2, 3, 0, 0, 0);
+
+		Ranking rankMock1 = saveMock("between1", 300, day.plusHours(1), 1801L);
+		Ranking rankMock2 = saveMock("between2", 400, day.plusHours(2), 1802L);
+
+		// Next day : outside the range
+		Ranking rankMock3 = saveMock("between3", 500, day.plusDays(1), 1803L);
+
+		// Assert the response
+		List<Ranking> topResult = leaderboardService.getTopBetween(day, day.plusDays(1).minusSeconds(1), 5).getItems();
+		Assertions.assertEquals(Arrays.asList(rankMock2, rankMock1), topResult,
+				"getTopBetween should return the best scores of the range only, best first");
+
+		deleteMock(rankMock1, rankMock2, rankMock3);
+
+		Assertions.assertTrue(leaderboardService.getTopBetween(day, day.plusDays(1).minusSeconds(1), 5).getItems().isEmpty(),
+				"getTopBetween should not return deleted records");
+	}
+
+	/***
+	 * Test LeaderboardService getDistribution
+	 */
+	@Test
+	@DisplayName("Test getDistribution Success")
+	void testGetDistribution() {
+		Ranking rankMock1 = saveMock("histogram1", 150, LocalDateTime.now(), 1701L);
+		Ranking rankMock2 = saveMock("histogram1", 7000, LocalDateTime.now(), 1702L);
+
+		// Assert the response : ranges [100, 500) and [5000, 10000)
+		ScoreDistribution distribution = leaderboardService.getDistribution("HISTOGRAM1", null).getContent();
+		Assertions.assertEquals(2, distribution.getCount(), "getDistribution should count the player's scores");
+		Assertions.assertEquals(new ScoreBucket(100, 500, 1), distribution.getBuckets().get(2),
+				"getDistribution should count 150 in [100, 500)");
+		Assertions.assertEquals(new ScoreBucket(5000, 10000, 1), distribution.getBuckets().get(5),
+				"getDistribution should count 7000 in [5000, 10000)");
+		Assertions.assertThrows(PlayerNotFoundException.class,
+				() -> leaderboardService.getDistribution("histogram2", null),
+				"Player without score should throw PlayerNotFoundException");
+
+		deleteMock(rankMock1, rankMock2);
+
+		Assertions.assertEquals(0, leaderboardService.getDistribution("histogram1", null).getContent().getCount(),
+				"getDistribution should uncount deleted scores");
+	}
+
+	/***
+	 * Test QuantileSketch (used by RankingService getPercentile)
+	 */
+	@Test
+	@DisplayName("Test QuantileSketch Success")
+	void testQuantileSketch() {
+		QuantileSketch even = new QuantileSketch(200);
+		QuantileSketch odd = new QuantileSketch(200);
+		for (int score = 0; score < 1000000; score++) {
+			(score % 2 == 0 ? even : odd).update(score);
+		}
+		even.merge(odd);
+
+		// Assert the estimates
+		Assertions.assertEquals(1000000, even.count(), "QuantileSketch should count every value");
+		Assertions.assertTrue(even.retained() < 3 * 200 + 100, "QuantileSketch should keep about 3k values");
+		for (int score = 0; score <= 1000000; score += 100000) {
+			double rank = even.rank(score) / 1000000.0;
+			Assertions.assertEquals(score / 1000000.0, rank, 2 * even.error(),
+					"QuantileSketch should estimate the rank of " + score + " within its error bound");
+		}
+	}
+
+	/***
+	 * Test LeaderboardService subscribeChanges (embedded subscriber)
+	 */
+	@Test
+	@DisplayName("Test subscribeChanges Success")
+	void testSubscribeChanges() throws InterruptedException {
+		BlockingQueue<RankingDelta> received = new LinkedBlockingQueue<RankingDelta>();
+		RankingChangePublisher.Subscription subscription = leaderboardService.subscribeChanges(Arrays.asList("Push1"),
+				false, received::add);
+
+		Ranking rankMock = saveMock("push1", 1200, LocalDateTime.now(), 1601L);
+
+		// Assert the pushed delta
+		RankingDelta saved = received.poll(5, TimeUnit.SECONDS);
+		Assertions.assertNotNull(saved, "subscribeChanges should push the saved record of a watched player");
+		Assertions.assertEquals(Arrays.asList(rankMock), saved.getSaved(),
+				"subscribeChanges should push the saved record of a watched player");
+		Assertions.assertNull(saved.getTop(), "subscribeChanges should not push the top N when not watched");
+
+		deleteMock(rankMock);
+
+		RankingDelta deleted = received.poll(5, TimeUnit.SECONDS);
+		Assertions.assertNotNull(deleted, "subscribeChanges should push the deleted ID of a watched player");
+		Assertions.assertEquals(Arrays.asList(1601L), deleted.getDeleted(),
+				"subscribeChanges should push the deleted ID of a watched player");
+
+		subscription.close();
+	}
+
+	/***
+	 * Test RankingChangePublisher eviction of a subscriber blocking its delivery
+	 */
+	@Test
+	@DisplayName("Test RankingChangePublisher send timeout Success")
+	void testPushSendTimeout() throws InterruptedException {
+		// One delivery thread, sends may block 200 ms
+		RankingChangePublisher publisher = new RankingChangePublisher(new LeaderboardIndex(repository, 100), 20,
+				10, 10, 10, 1, 200);
+		publisher.start();
+
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch evicted = new CountDownLatch(1);
+		BlockingQueue<RankingDelta> received = new LinkedBlockingQueue<RankingDelta>();
+		try {
+			// Stalled client : ignores the interrupt and blocks until released
+			RankingChangePublisher.Subscription stalled = publisher.subscribe(Arrays.asList("stalled1"), false,
+					delta -> {
+						boolean done = false;
+						while (!done) {
+							try {
+								done = release.await(10, TimeUnit.SECONDS);
+							} catch (InterruptedException e) {
+								// Keeps blocking
+							}
+						}
+					});
+			stalled.onEvicted(evicted::countDown);
+
+			Ranking rankMock1 = new Ranking("stalled1", 100, LocalDateTime.now());
+			rankMock1.setId(1701L);
+			publisher.add(rankMock1);
+
+			// The only delivery thread is now blocked
+			Thread.sleep(100);
+			RankingChangePublisher.Subscription healthy = publisher.subscribe(Arrays.asList("healthy1"), false,
+					received::add);
+
+			Ranking rankMock2 = new Ranking("healthy1", 200, LocalDateTime.now());
+			rankMock2.setId(1702L);
+			publisher.add(rankMock2);
+
+			// Assert the response
+			RankingDelta delta = received.poll(5, TimeUnit.SECONDS);
+			Assertions.assertNotNull(delta, "Other subscribers should still get their deltas");
+			Assertions.assertEquals(Arrays.asList(rankMock2), delta.getSaved(), "The saved record should be pushed");
+			Assertions.assertTrue(stalled.isClosed(), "The stalled subscriber should be evicted");
+			Assertions.assertEquals(1L, publisher.status().get("evicted"), "One subscriber should be evicted");
+
+			release.countDown();
+			Assertions.assertTrue(evicted.await(5, TimeUnit.SECONDS),
+					"The eviction action should run once the blocked send returns");
+			healthy.close();
+		} finally {
+			release.countDown();
+			publisher.stop();
+		}
+	}
+
+	/***
+	 * Test LeaderboardService getTopRecent
+	 */
+	@Test
+	@DisplayName("Test getTopRecent Success")
+	void testGetTopRecent() {
+		LocalDateTime now = LocalDateTime.now();
+
+		Ranking rankMock1 = saveMock("recent1", 700000, now.minusMinutes(5), 1501L);
+
+		// Two days ago : outside the 24 hours window
+		Ranking rankMock2 = saveMock("recent2", 700001, now.minusDays(2), 1502L);
+
+		// Assert the response
+		List<Ranking> topResult = leaderboardService.getTopRecent(1).getItems();
+		Assertions.assertEquals(rankMock1, topResult.get(0),
+				"getTopRecent should return the best score of the window");
+
+		deleteMock(rankMock1, rankMock2);
+	}
+
+	/***
+	 * Test LeaderboardService getTop
+	 */
+	@Test
+	@DisplayName("Test getTop Success")
+	void testGetTop() {
+		Ranking rankMock1 = new Ranking("top1", 900000, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		rankMock1.setId(9001L);
+
+		Ranking rankMock2 = new Ranking("top2", 900001, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		rankMock2.setId(9002L);
+
+		doReturn(rankMock1).when(repository).save(rankMock1);
+		doReturn(rankMock2).when(repository).save(rankMock2);
+
+		rankService.saveRanking(rankMock1);
+		rankService.saveRanking(rankMock2);
+
+		List<Ranking> topResult = leaderboardService.getTop(2).getItems();
+
+		// Assert the response
+		Assertions.assertEquals(rankMock2, topResult.get(0), "getTop should return the best score first");
+		Assertions.assertEquals(rankMock1, topResult.get(1), "getTop should return the second best score next");
+
+		doReturn(Optional.of(rankMock2)).when(repository).findById(9002L);
+		doReturn(Optional.of(rankMock1)).when(repository).findById(9001L);
+
+		rankService.deleteRanking(9002L);
+
+		topResult = leaderboardService.getTop(1).getItems();
+
+		Assertions.assertEquals(rankMock1, topResult.get(0), "getTop should not return deleted scores");
+
+		rankService.deleteRanking(9001L);
+	}
+
+	/***
+	 * Test LeaderboardIndex top K refilled from the database
+	 */
+	@Test
+	@DisplayName("Test LeaderboardIndex capacity Success")
+	void testLeaderboardCapacity() {
+		LeaderboardIndex index = new LeaderboardIndex(repository, 2);
+
+		Ranking rankMock1 = new Ranking("capacity1", 300, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		rankMock1.setId(9101L);
+		Ranking rankMock2 = new Ranking("capacity2", 200, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		rankMock2.setId(9102L);
+		Ranking rankMock3 = new Ranking("capacity3", 100, LocalDateTime.parse("2020-12-13 17:46:30", formatter));
+		rankMock3.setId(9103L);
+
+		Arrays.asList(rankMock1, rankMock2, rankMock3).forEach(index::add);
+		Assertions.assertEquals(2, index.size(), "LeaderboardIndex should keep the best capacity records only");
+		Assertions.assertThrows(TopLimitException.class, () -> index.top(3),
+				"LeaderboardIndex should refuse top n beyond its capacity");
+
+		// Below capacity after the delete : refilled from the database
+		index.remove(rankMock1);
+		doReturn(Arrays.asList(rankMock2, rankMock3)).when(repository).findTopScores(PageRequest.of(0, 2));
+		Assertions.assertEquals(Arrays.asList(rankMock2, rankMock3), index.top(2),
+				"LeaderboardIndex should refill from the database");
+		Assertions.assertEquals(2, index.size(), "LeaderboardIndex should be back to its capacity");
+	}
+
+	/***
+	 * Test LeaderboardService getPlayerRank
+	 */
+	@Test
+	@DisplayName("Test getPlayerRank Success")
+	void testGetPlayerRank() {
+		Ranking rankMock1 = new Ranking("rank1", 800000, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		rankMock1.setId(8001L);
+
+		Ranking rankMock2 = new Ranking("RANK2", 800001, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		rankMock2.setId(8002L);
+
+		Ranking rankMock3 = new Ranking("rank2", 10, LocalDateTime.parse("2020-12-13 17:46:30", formatter));
+		rankMock3.setId(8003L);
+
+		doReturn(rankMock1).when(repository).save(rankMock1);
+		doReturn(rankMock2).when(repository).save(rankMock2);
+		doReturn(rankMock3).when(repository).save(rankMock3);
+
+		rankService.saveRanking(rankMock1);
+		rankService.saveRanking(rankMock2);
+		rankService.saveRanking(rankMock3);
+
+		PlayerRank playerRank = leaderboardService.getPlayerRank("Rank1").getContent();
+
+		// Assert the response
+		Assertions.assertEquals(800000, playerRank.getBestScore(), "getPlayerRank should return the best score");
+		Assertions.assertEquals(playerRank.getRank() - 1, playerRank.getAbove().getRank(),
+				"getPlayerRank should return the player just above");
+		Assertions.assertEquals(800001, playerRank.getAbove().getBestScore(),
+				"Scores of the same player should be merged case insensitively");
+
+		doReturn(Optional.of(rankMock2)).when(repository).findById(8002L);
+
+		// The player's next best score is read from the table
+		doReturn(Arrays.asList(rankMock3)).when(repository)
+				.findByPlayerOrderByScoreDesc(playerDictionary.idOf("rank2"), PageRequest.of(0, 1));
+
+		rankService.deleteRanking(8002L);
+
+		Assertions.assertEquals(playerRank.getRank() - 1, leaderboardService.getPlayerRank("rank1").getContent().getRank(),
+				"Deleting the best score of the player above should move the player up");
+		Assertions.assertEquals(10, leaderboardService.getPlayerRank("Rank2").getContent().getBestScore(),
+				"Deleting the best score of a player should fall back to its next best score");
+
+		Assertions.assertThrows(PlayerNotFoundException.class, () -> leaderboardService.getPlayerRank("unknown"),
+				"Expects to throw PlayerNotFoundException but didn't");
+
+		doReturn(Optional.of(rankMock1)).when(repository).findById(8001L);
+		doReturn(Optional.of(rankMock3)).when(repository).findById(8003L);
+		doReturn(new ArrayList<Ranking>()).when(repository)
+				.findByPlayerOrderByScoreDesc(playerDictionary.idOf("rank2"), PageRequest.of(0, 1));
+
+		rankService.deleteRanking(8001L);
+		rankService.deleteRanking(8003L);
+	}
+
+	/***
+	 * Test RankingIdSequence (sequence moved past the stored IDs)
+	 */
+	@Test
+	@DisplayName("Test RankingIdSequence Success")
+	void testRankingIdSequence() {
+		// Row stored with an explicit ID, ahead of the sequence
+		jdbcTemplate.update("INSERT INTO ranking (id, player, score) VALUES (?, ?, ?)", 900001L, "sequence1", 10);
+		try {
+			rankingIdSequence.seed();
+
+			Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + Ranking.ID_SEQUENCE, Long.class);
+
+			// Assert the response
+			Assertions.assertTrue(next - Ranking.ID_ALLOCATION_SIZE >= 900001L,
+					"Next allocated IDs should be after the highest stored ID");
+
+			rankingIdSequence.seed();
+			Assertions.assertTrue(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + Ranking.ID_SEQUENCE,
+					Long.class) > next, "Sequence should only move forward");
+		} finally {
+			jdbcTemplate.update("DELETE FROM ranking WHERE id = ?", 900001L);
+		}
+	}
+
+	/***
+	 * Test PlayerDictionary (one ID per player, case insensitive)
+	 */
+	@Test
+	@DisplayName("Test PlayerDictionary Success")
+	void testPlayerDictionary() {
+		Integer id = playerDictionary.intern("Dictionary1");
+
+		// Assert the response
+		Assertions.assertEquals(id, playerDictionary.intern("DICTIONARY1"), "Same player should keep the same ID");
+		Assertions.assertEquals(id, playerDictionary.idOf("dictionary1"), "Known player should be found by name");
+		Assertions.assertEquals("DICTIONARY1", playerDictionary.keyOf(id), "ID should map back to the player key");
+		Assertions.assertNotEquals(id, playerDictionary.intern("Dictionary2"), "Players should have their own ID");
+		Assertions.assertNull(playerDictionary.idOf("dictionary3"), "Unknown player should have no ID");
+		Assertions.assertEquals(Arrays.asList(id), playerDictionary.idsOf(Arrays.asList("dictionary1", "DICTIONARY1",
+				"dictionary3")), "Unknown players should be left out");
+	}
+
+	/***
+	 * Test ReactiveRankingService getPlayerScoreHistory (same history as the
+	 * blocking path)
+	 */
+	@Test
+	@DisplayName("Test ReactiveRankingService getPlayerScoreHistory Success")
+	void testReactiveGetPlayerScoreHistory() {
+		RankingHistoryRowInterface lowRow = factory.createProjection(RankingHistoryRowInterface.class);
+		lowRow.setPlayer("reactive1");
+		lowRow.setScore(100);
+		lowRow.setTime(LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+
+		RankingHistoryRowInterface topRow = factory.createProjection(RankingHistoryRowInterface.class);
+		topRow.setPlayer("reactive1");
+		topRow.setScore(300);
+		topRow.setTime(LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+
+		ReactiveRankingRepository reactiveRepository = mock(ReactiveRankingRepository.class);
+		ReactiveRankingService reactiveService = new ReactiveRankingService(reactiveRepository, playerDictionary);
+
+		doReturn(Flux.just(lowRow, topRow)).when(reactiveRepository)
+				.findScoreRowsByPlayer(playerDictionary.intern("reactive1"));
+
+		RankingHistory history = reactiveService.getPlayerScoreHistory("Reactive1").block();
+
+		// Assert the response
+		Assertions.assertEquals(new RankingHistory("reactive1", Arrays.asList(topRow), Arrays.asList(lowRow), 200.0,
+				Arrays.asList(lowRow, topRow)), history, "Reactive history should match the blocking one");
+
+		Assertions.assertThrows(HistoryNotFoundException.class,
+				() -> reactiveService.getPlayerScoreHistory("unknownreactive").block(),
+				"Expects to throw HistoryNotFoundException but didn't");
+		Assertions.assertEquals(0L, reactiveService.filterByPlayers(Arrays.asList("unknownreactive"), 0, 3).count()
+				.block(), "Unknown players should give an empty stream");
+	}
+
+	/***
+	 * Test repository timing (per query, with rows returned) and gauges
+	 */
+	@Test
+	@DisplayName("Test repository metrics Success")
+	void testRepositoryMetrics() {
+		playerDictionary.intern("metrics1");
+
+		Timer timer = meterRegistry.find("ranking.repository.query").tag("repository", "PlayerRepository")
+				.tag("method", "findByPlayerKey").tag("outcome", "SUCCESS").timer();
+
+		// Assert the response
+		Assertions.assertNotNull(timer, "Repository queries should be timed per method");
+		Assertions.assertTrue(timer.count() > 0, "Repository query should be counted");
+		Assertions.assertNotNull(meterRegistry.find("ranking.repository.rows").tag("method", "findByPlayerKey")
+				.summary(), "Rows returned should be recorded");
+		Assertions.assertEquals(playerDictionary.size(), meterRegistry.get("ranking.players").gauge().value(),
+				"Player dictionary size should be exported");
+	}
+
+	/***
+	 * Test RequestBulkheads (bounded pool and queue per endpoint, full bulkhead
+	 * refuses, stop lets the running requests complete)
+	 */
+	@Test
+	@DisplayName("Test RequestBulkheads Success")
+	void testRequestBulkheads() throws Exception {
+		RequestBulkheads bulkheads = new RequestBulkheads(true, 1, 1, 1, 1);
+		bulkheads.start();
+		try {
+			CountDownLatch release = new CountDownLatch(1);
+			CompletableFuture<String> running = bulkheads.supply(RequestBulkheads.HISTORY, () -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "running";
+			});
+			CompletableFuture<String> queued = bulkheads.supply(RequestBulkheads.HISTORY, () -> "queued");
+
+			// Assert the response
+			Assertions.assertThrows(BulkheadFullException.class,
+					() -> bulkheads.supply(RequestBulkheads.HISTORY, () -> "refused"),
+					"Expects to throw BulkheadFullException but didn't");
+			CompletableFuture<String> other = bulkheads.supply(RequestBulkheads.HISTORY_SUMMARY, () -> "summary");
+			Assertions.assertEquals("summary", other.get(5, TimeUnit.SECONDS), "Other endpoints should not be affected");
+
+			release.countDown();
+			Assertions.assertEquals("running", running.get(5, TimeUnit.SECONDS), "Running request should complete");
+			Assertions.assertEquals("queued", queued.get(5, TimeUnit.SECONDS), "Queued request should complete");
+
+			CompletionException thrown = Assertions.assertThrows(CompletionException.class,
+					() -> bulkheads.supply(RequestBulkheads.DELETE, () -> {
+						throw new IDNotFoundException(1L);
+					}).join(), "Expects to throw CompletionException but didn't");
+			Assertions.assertTrue(thrown.getCause() instanceof IDNotFoundException,
+					"Exception of the work should be passed on");
+
+			@SuppressWarnings("unchecked")
+			Map<String, Object> history = (Map<String, Object>) bulkheads.status().get(RequestBulkheads.HISTORY);
+			Assertions.assertEquals(1L, history.get("rejected"), "Refused requests should be counted");
+
+			CompletableFuture<String> draining = bulkheads.supply(RequestBulkheads.SEARCH_BY_ID, () -> {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return "interrupted";
+				}
+				return "drained";
+			});
+			bulkheads.stop();
+			Assertions.assertEquals("drained", draining.getNow(null), "Stop should let the running requests complete");
+		} finally {
+			bulkheads.stop();
+		}
+	}
+
+	/***
+	 * Test RankingRecordController in asynchronous mode (links built on the
+	 * bulkhead once the request thread has returned)
+	 */
+	@Test
+	@DisplayName("Test asynchronous searchById links Success")
+	void testAsyncSearchByIdLinks() throws Exception {
+		Ranking rankMock = new Ranking("asynclinks", 500, LocalDateTime.parse("2020-12-15 17:46:30", formatter));
+		rankMock.setId(4101L);
+
+		// The record is read once the request thread has returned
+		CountDownLatch requestReturned = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			requestReturned.await(5, TimeUnit.SECONDS);
+			return Optional.of(rankMock);
+		}).when(repository).findById(4101L);
+
+		RequestBulkheads bulkheads = new RequestBulkheads(true, 1, 1, 1, 1);
+		bulkheads.start();
+		try {
+			MockMvc asyncMvc = MockMvcBuilders
+					.standaloneSetup(new RankingRecordController(rankService, historyService, rankingLinks, bulkheads,
+							objectMapper, representation))
+					.setMessageConverters(handlerAdapter.getMessageConverters().toArray(new HttpMessageConverter<?>[0]))
+					.build();
+
+			MvcResult started = asyncMvc.perform(get("/ranking/searchscore").param("id", "4101"))
+					.andExpect(request().asyncStarted()).andReturn();
+			requestReturned.countDown();
+			started.getAsyncResult(5000);
+
+			// Assert the response
+			asyncMvc.perform(asyncDispatch(started)).andExpect(status().isCreated())
+					.andExpect(jsonPath("$._links.self.href").value("http://localhost/ranking/searchscore?id=4101"))
+					.andExpect(jsonPath("$._links.history.href").value("http://localhost/ranking/history?player=asynclinks"))
+					.andExpect(jsonPath("$._links.all.href").value("http://localhost/ranking/all"));
+		} finally {
+			bulkheads.stop();
+		}
+	}
+
+	/***
+	 * Test RankingController allStream (newline delimited JSON over several scan
+	 * batches)
+	 */
+	@Test
+	@DisplayName("Test allStream Success")
+	void testAllStream() throws Exception {
+		Ranking rankMock1 = new Ranking("stream1", 100, LocalDateTime.parse("2020-12-11 17:46:30", formatter));
+		rankMock1.setId(4201L);
+		Ranking rankMock2 = new Ranking("stream2", 200, LocalDateTime.parse("2020-12-12 17:46:30", formatter));
+		rankMock2.setId(4202L);
+		Ranking rankMock3 = new Ranking("stream3", 300, LocalDateTime.parse("2020-12-13 17:46:30", formatter));
+		rankMock3.setId(4203L);
+
+		// Two scan batches, then none
+		doReturn(Arrays.asList(rankMock1, rankMock2)).when(repository)
+				.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class));
+		doReturn(Arrays.asList(rankMock3)).when(repository).findByIdGreaterThanOrderByIdAsc(eq(4202L),
+				any(Pageable.class));
+		doReturn(Collections.emptyList()).when(repository).findByIdGreaterThanOrderByIdAsc(eq(4203L),
+				any(Pageable.class));
+
+		MockMvc streamMvc = MockMvcBuilders.standaloneSetup(rankingController).build();
+
+		// Records are written off the request thread
+		MvcResult started = streamMvc.perform(get("/ranking/all/stream")).andExpect(request().asyncStarted())
+				.andReturn();
+		started.getAsyncResult(5000);
+
+		MvcResult result = streamMvc.perform(asyncDispatch(started)).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(RankingController.NDJSON)).andReturn();
+
+		// Assert the response
+		String[] lines = result.getResponse().getContentAsString().split("\n");
+		List<Ranking> expected = Arrays.asList(rankMock1, rankMock2, rankMock3);
+		Assertions.assertEquals(expected.size(), lines.length,
+				"allStream should write one line per record of every scan batch");
+		for (int i = 0; i < lines.length; i++) {
+			JsonNode line = objectMapper.readTree(lines[i]);
+			Assertions.assertTrue(line.isObject(), "allStream should write one JSON object per line");
+			Assertions.assertEquals(expected.get(i).getId().longValue(), line.get("id").asLong(),
+					"allStream should write the records in ID order");
+			Assertions.assertEquals(expected.get(i).getPlayer(), line.get("player").asText(),
+					"allStream should write the record's player");
+		}
+		verify(repository).findByIdGreaterThanOrderByIdAsc(eq(4202L), any(Pageable.class));
+	}
+
 	/***
 	 * Test RankingService deleteRanking
 	 */